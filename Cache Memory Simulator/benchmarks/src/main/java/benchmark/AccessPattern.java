@@ -0,0 +1,75 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+
+// Address streams replayed by the benchmarks. Every pattern is generated up front so the
+// measured loop only pays for the simulator, never for the generator.
+public enum AccessPattern {
+    SEQUENTIAL,
+    STRIDED,
+    RANDOM,
+    ZIPFIAN;
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    public long[] addresses(int count, long footprintBytes, int blockSize, long seed) {
+        long[] addresses = new long[count];
+        long blocks = Math.max(1, footprintBytes / blockSize);
+        SplittableRandom random = new SplittableRandom(seed);
+
+        switch (this) {
+            case SEQUENTIAL:
+                for (int i = 0; i < count; i++) {
+                    addresses[i] = i % footprintBytes;
+                }
+                break;
+            case STRIDED:
+                // One access per block, skipping a block each time, so every access lands on a new line
+                long stride = 2L * blockSize;
+                for (int i = 0; i < count; i++) {
+                    addresses[i] = (i * stride) % footprintBytes;
+                }
+                break;
+            case RANDOM:
+                for (int i = 0; i < count; i++) {
+                    addresses[i] = random.nextLong(footprintBytes);
+                }
+                break;
+            case ZIPFIAN:
+                double[] cdf = zipfCdf((int) Math.min(blocks, Integer.MAX_VALUE));
+                for (int i = 0; i < count; i++) {
+                    long block = rank(cdf, random.nextDouble());
+                    // Scatter the ranks so the hot blocks do not all fall into the first sets
+                    block = Long.remainderUnsigned(block * 0x9E3779B97F4A7C15L, blocks);
+                    addresses[i] = block * blockSize + random.nextInt(blockSize);
+                }
+                break;
+        }
+        return addresses;
+    }
+    private static double[] zipfCdf(int n) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+    private static int rank(double[] cdf, double u) {
+        int lo = 0;
+        int hi = cdf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] < u) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,86 @@
+package benchmark;
+
+import model.address.AddressParser;
+import model.cache.CacheSet;
+import model.memory.MainMemory;
+import model.memory.PagedMainMemory;
+import model.replacement.ChooseReplacement;
+import model.replacement.ReplacementPolicyFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// A single CacheSet in isolation: tag search and victim selection plus fill, without the
+// address split and statistics that SimulatorBenchmark also pays for.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class CacheSetBenchmark {
+    static final int ACCESSES = 1 << 14;
+
+    @Param({"LRU", "FIFO", "RANDOM"})
+    public String policy;
+
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int associativity;
+
+    @Param({"SEQUENTIAL", "STRIDED", "RANDOM", "ZIPFIAN"})
+    public AccessPattern pattern;
+
+    @Param({"64"})
+    public int blockSize;
+
+    private CacheSet set;
+    private MainMemory memory;
+    private AddressParser parser;
+    private long[] tags;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ReplacementPolicyFactory factory = ChooseReplacement.create(policy)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid replacement policy: " + policy));
+        set = new CacheSet(0, associativity, blockSize, factory.create(1, associativity));
+        memory = new PagedMainMemory();
+        parser = new AddressParser(blockSize, 1);
+
+        // Twice as many distinct tags as ways, so lookups mix hits and misses
+        long[] addresses = pattern.addresses(ACCESSES, 2L * associativity * blockSize, blockSize, 42);
+        tags = new long[ACCESSES];
+        for (int i = 0; i < ACCESSES; i++) {
+            tags[i] = parser.getTag(addresses[i]);
+        }
+        for (int i = 0; i < associativity; i++) {
+            set.fillWay(set.chooseVictim(), i, 0, 1, memory);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public void findByTag(Blackhole bh) {
+        for (long tag : tags) {
+            bh.consume(set.findByTag(tag));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public void findWay(Blackhole bh) {
+        for (long tag : tags) {
+            bh.consume(set.findWay(tag));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public void chooseAndFill(Blackhole bh) {
+        for (long tag : tags) {
+            int way = set.chooseVictim();
+            set.fillWay(way, tag, 0, 1, memory);
+            bh.consume(way);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package benchmark;
+
+import controller.SimulatorController;
+import model.address.AddressParser;
+import model.cache.CacheStorage;
+import model.cache.CacheStorageType;
+import model.memory.PagedMainMemory;
+import model.statistics.StatisticsTracker;
+import model.write.WriteMissPolicy;
+import model.write.WritePolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// End-to-end cost of SimulatorController.read/write: address split, lookup, policy update,
+// fills and write-backs. Scores are accesses per second; run with -prof gc for allocation rate.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class SimulatorBenchmark {
+    static final int ACCESSES = 1 << 16;
+
+    @Param({"LRU", "FIFO", "RANDOM"})
+    public String policy;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int associativity;
+
+    @Param({"SEQUENTIAL", "STRIDED", "RANDOM", "ZIPFIAN"})
+    public AccessPattern pattern;
+
+    @Param({"OBJECT", "FLAT"})
+    public CacheStorageType storage;
+
+    @Param({"32768"})
+    public int cacheSizeBytes;
+
+    @Param({"64"})
+    public int blockSize;
+
+    private SimulatorController simulator;
+    private long[] addresses;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CacheStorage cache = SimulatorController.createCache(cacheSizeBytes, blockSize, associativity, policy, storage);
+        simulator = new SimulatorController(cache, new PagedMainMemory(), new AddressParser(blockSize, cache.getNumSets()),
+                WritePolicy.WRITE_BACK, new StatisticsTracker());
+        // Four times the cache so every pattern but the zipfian hot set keeps missing
+        addresses = pattern.addresses(ACCESSES, 4L * cacheSizeBytes, blockSize, 42);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public int read() {
+        int sum = 0;
+        for (long address : addresses) {
+            sum += simulator.read(address);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public void write() {
+        for (int i = 0; i < addresses.length; i++) {
+            simulator.write(addresses[i], (byte) i, WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE);
+        }
+    }
+}
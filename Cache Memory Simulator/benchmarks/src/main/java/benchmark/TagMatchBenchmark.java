@@ -0,0 +1,88 @@
+package benchmark;
+
+import model.cache.CacheBlock;
+import model.cache.TagMatcher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Tag lookup in one set: the per-block walk CacheSet used to do (isValid/getTag on each CacheBlock)
+// against a scalar and a Vector API search of a contiguous tag array. VECTOR always runs the vector
+// kernel, whatever TagMatcher.VECTOR_MIN_WAYS says, and fails when the incubator module is missing.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class TagMatchBenchmark {
+    static final int LOOKUPS = 1 << 14;
+
+    public enum Matcher { BLOCKS, SCALAR, VECTOR }
+
+    @Param({"BLOCKS", "SCALAR", "VECTOR"})
+    public Matcher matcher;
+
+    @Param({"4", "8", "16", "32", "64"})
+    public int associativity;
+
+    private List<CacheBlock> blocks;
+    private long[] tags;
+    private long[] lookups;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (matcher == Matcher.VECTOR && !TagMatcher.VECTORIZED) {
+            throw new IllegalStateException("Run with --add-modules jdk.incubator.vector");
+        }
+        blocks = new ArrayList<>(associativity);
+        tags = new long[associativity];
+        for (int way = 0; way < associativity; way++) {
+            CacheBlock block = new CacheBlock(way * 7L, 64);
+            block.setValid(true);
+            blocks.add(block);
+            tags[way] = way * 7L;
+        }
+        // Half hits spread over every way, half misses that scan the whole set
+        long[] addresses = AccessPattern.RANDOM.addresses(LOOKUPS, 2L * associativity, 1, 42);
+        lookups = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            long way = addresses[i];
+            lookups[i] = way < associativity ? way * 7L : way * 7L + 1;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void findWay(Blackhole bh) {
+        switch (matcher) {
+            case BLOCKS -> {
+                for (long tag : lookups) {
+                    bh.consume(blockScan(tag));
+                }
+            }
+            case SCALAR -> {
+                for (long tag : lookups) {
+                    bh.consume(TagMatcher.scalarIndexOf(tags, 0, associativity, tag));
+                }
+            }
+            case VECTOR -> {
+                for (long tag : lookups) {
+                    bh.consume(TagMatcher.vectorIndexOf(tags, 0, associativity, tag));
+                }
+            }
+        }
+    }
+    private int blockScan(long tag) {
+        for (int i = 0; i < blocks.size(); i++) {
+            CacheBlock cb = blocks.get(i);
+            if (cb.isValid() && cb.getTag() == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
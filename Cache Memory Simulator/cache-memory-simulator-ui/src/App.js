@@ -38,6 +38,45 @@ function App() {
         }
     };
 
+    // Applies only the lines changed since the version we hold; falls back to a full reload when the
+    // server no longer knows that version (reconfigured cache, replayed trace).
+    const fetchChanges = async () => {
+        if (!cacheState) {
+            return fetchAllData();
+        }
+        try {
+            const [changesRes, statsRes] = await Promise.all([
+                fetch(`${API_BASE_URL}/state?since=${cacheState.version}`),
+                fetch(`${API_BASE_URL}/stats`),
+            ]);
+
+            if (!changesRes.ok || !statsRes.ok) {
+               throw new Error('API request failed. Check server logs.');
+            }
+
+            const changes = await changesRes.json();
+            const statsData = await statsRes.json();
+
+            if (changes.reset) {
+                return fetchAllData();
+            }
+
+            setCacheState(prevState => {
+                const sets = prevState.sets.slice();
+                changes.lines.forEach(({ setIndex, wayIndex, ...line }) => {
+                    const cacheBlocks = sets[setIndex].cacheBlocks.slice();
+                    cacheBlocks[wayIndex] = line;
+                    sets[setIndex] = { ...sets[setIndex], cacheBlocks };
+                });
+                return { ...prevState, sets, version: changes.version };
+            });
+            setStats(statsData);
+
+        } catch (error) {
+            console.error("Failed to fetch cache changes.", error);
+        }
+    };
+
     const handleAccessResponse = async (data) => {
         setAccessHistory(prevHistory => [
             {
@@ -56,7 +95,7 @@ function App() {
             blockIndex: data.wayIndex 
         });
         
-        await fetchAllData(); 
+        await fetchChanges(); 
     }
 
     useEffect(() => {
@@ -0,0 +1,111 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Collects one session's access events while someone is listening, coalescing bursts between drains.
+public class AccessEventBuffer {
+    private static final byte READ_HIT = 0;
+    private static final byte READ_MISS = 1;
+    private static final byte WRITE_HIT = 2;
+    private static final byte WRITE_MISS = 3;
+    private static final byte EVICT = 4;
+    private static final byte EVICT_DIRTY = 5;
+
+    private final byte[] kinds;
+    private final long[] values;
+    private final int[] sets;
+    private final int[] ways;
+    private int position;
+    private long events;
+
+    private long accesses;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writeBacks;
+
+    private volatile boolean enabled;
+
+    public AccessEventBuffer(int capacity) {
+        this.kinds = new byte[capacity];
+        this.values = new long[capacity];
+        this.sets = new int[capacity];
+        this.ways = new int[capacity];
+    }
+    public boolean isEnabled() {
+        return enabled;
+    }
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    public void recordAccess(boolean write, long address, int setIndex, int way, boolean hit) {
+        if (!enabled) return;
+        synchronized (this) {
+            accesses++;
+            if (hit) hits++;
+            else misses++;
+            append(write ? (hit ? WRITE_HIT : WRITE_MISS) : (hit ? READ_HIT : READ_MISS), address, setIndex, way);
+        }
+    }
+    public void recordEviction(int setIndex, int way, long tag, boolean dirty) {
+        if (!enabled) return;
+        synchronized (this) {
+            evictions++;
+            if (dirty) writeBacks++;
+            append(dirty ? EVICT_DIRTY : EVICT, tag, setIndex, way);
+        }
+    }
+    // everything recorded since the last drain, or null if nothing was
+    public synchronized Map<String, Object> drain() {
+        if (events == 0) {
+            return null;
+        }
+        int kept = (int) Math.min(events, kinds.length);
+        List<Map<String, Object>> batch = new ArrayList<>(kept);
+        for (int i = position - kept; i < position; i++) {
+            batch.add(event(Math.floorMod(i, kinds.length)));
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("accesses", accesses);
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("evictions", evictions);
+        result.put("writeBacks", writeBacks);
+        result.put("dropped", events - kept);
+        result.put("events", batch);
+
+        position = 0;
+        events = 0;
+        accesses = hits = misses = evictions = writeBacks = 0;
+        return result;
+    }
+    private void append(byte kind, long value, int setIndex, int way) {
+        kinds[position] = kind;
+        values[position] = value;
+        sets[position] = setIndex;
+        ways[position] = way;
+        position = position + 1 == kinds.length ? 0 : position + 1;
+        events++;
+    }
+    private Map<String, Object> event(int i) {
+        Map<String, Object> event = new HashMap<>();
+        switch (kinds[i]) {
+            case READ_HIT, READ_MISS, WRITE_HIT, WRITE_MISS:
+                event.put("type", kinds[i] == READ_HIT || kinds[i] == WRITE_HIT ? "hit" : "miss");
+                event.put("operation", kinds[i] >= WRITE_HIT ? "WRITE" : "READ");
+                event.put("address", values[i]);
+                break;
+            default:
+                event.put("type", kinds[i] == EVICT_DIRTY ? "writeBack" : "evict");
+                event.put("tag", values[i]);
+                break;
+        }
+        event.put("setIndex", sets[i]);
+        event.put("wayIndex", ways[i]);
+        return event;
+    }
+}
@@ -0,0 +1,61 @@
+package controller;
+
+import model.write.WriteMissPolicy;
+import model.write.WritePolicy;
+
+public class BatchOperation {
+    private String op;
+    private long address;
+    private int value;
+    private WritePolicy writePolicy = WritePolicy.WRITE_BACK;
+    private WriteMissPolicy missPolicy = WriteMissPolicy.WRITE_ALLOCATE;
+
+    public BatchOperation() {}
+    // the checks running this operation would fail on, so a batch can be rejected before any of it runs
+    public void validate() {
+        isWrite();
+        if (address < 0) throw new IllegalArgumentException("Address must not be negative");
+        if (writePolicy == null || missPolicy == null) throw new IllegalArgumentException("Invalid write policy");
+    }
+    public boolean isWrite() {
+        if (op != null) {
+            switch (op.toUpperCase()) {
+                case "R", "READ":
+                    return false;
+                case "W", "WRITE":
+                    return true;
+            }
+        }
+        throw new IllegalArgumentException("Invalid operation '" + op + "'");
+    }
+    public String getOp() {
+        return op;
+    }
+    public void setOp(String op) {
+        this.op = op;
+    }
+    public long getAddress() {
+        return address;
+    }
+    public void setAddress(long address) {
+        this.address = address;
+    }
+    public int getValue() {
+        return value;
+    }
+    public void setValue(int value) {
+        this.value = value;
+    }
+    public WritePolicy getWritePolicy() {
+        return writePolicy;
+    }
+    public void setWritePolicy(WritePolicy writePolicy) {
+        this.writePolicy = writePolicy;
+    }
+    public WriteMissPolicy getMissPolicy() {
+        return missPolicy;
+    }
+    public void setMissPolicy(WriteMissPolicy missPolicy) {
+        this.missPolicy = missPolicy;
+    }
+}
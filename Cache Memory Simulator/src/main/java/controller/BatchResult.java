@@ -0,0 +1,86 @@
+package controller;
+
+import java.util.Arrays;
+
+// Columnar outcome of a batch; byte columns are serialized as base64.
+public class BatchResult {
+    private final byte[] hits;
+    private final int[] ways;
+    private final byte[] values;
+    private final int[] cycles;
+    private final int[] evictedIndexes;
+    private final long[] evictedTags;
+    private final boolean[] evictedDirty;
+    private int count;
+    private int hitCount;
+    private int evictionCount;
+    private int writeBackCount;
+    private long totalCycles;
+
+    public BatchResult(int operations) {
+        this.hits = new byte[(operations + 7) / 8];
+        this.ways = new int[operations];
+        this.values = new byte[operations];
+        this.cycles = new int[operations];
+        this.evictedIndexes = new int[operations];
+        this.evictedTags = new long[operations];
+        this.evictedDirty = new boolean[operations];
+    }
+    public void record(int index, boolean hit, int way, byte value, int cycles) {
+        if (hit) {
+            hits[index >>> 3] |= (byte) (1 << (index & 7));
+            hitCount++;
+        }
+        ways[index] = way;
+        values[index] = value;
+        this.cycles[index] = cycles;
+        totalCycles += cycles;
+        count = Math.max(count, index + 1);
+    }
+    public void recordEviction(int index, long tag, boolean dirty) {
+        evictedIndexes[evictionCount] = index;
+        evictedTags[evictionCount] = tag;
+        evictedDirty[evictionCount] = dirty;
+        evictionCount++;
+        if (dirty) writeBackCount++;
+    }
+    public int getCount() {
+        return count;
+    }
+    public int getHitCount() {
+        return hitCount;
+    }
+    public int getMissCount() {
+        return count - hitCount;
+    }
+    public int getWriteBackCount() {
+        return writeBackCount;
+    }
+    public long getTotalCycles() {
+        return totalCycles;
+    }
+    public double getAmat() {
+        return count == 0 ? 0.0 : (double) totalCycles / count;
+    }
+    public byte[] getHits() {
+        return count == ways.length ? hits : Arrays.copyOf(hits, (count + 7) / 8);
+    }
+    public int[] getWays() {
+        return count == ways.length ? ways : Arrays.copyOf(ways, count);
+    }
+    public byte[] getValues() {
+        return count == ways.length ? values : Arrays.copyOf(values, count);
+    }
+    public int[] getCycles() {
+        return count == ways.length ? cycles : Arrays.copyOf(cycles, count);
+    }
+    public int[] getEvictedIndexes() {
+        return Arrays.copyOf(evictedIndexes, evictionCount);
+    }
+    public long[] getEvictedTags() {
+        return Arrays.copyOf(evictedTags, evictionCount);
+    }
+    public boolean[] getEvictedDirty() {
+        return Arrays.copyOf(evictedDirty, evictionCount);
+    }
+}
@@ -0,0 +1,268 @@
+package controller;
+
+import model.cache.CacheLevel;
+import model.cache.CacheStorage;
+import model.cache.CacheStorageType;
+import model.cache.InclusionPolicy;
+import model.memory.MainMemory;
+import model.prefetch.PrefetcherType;
+import model.replacement.ChooseReplacement;
+import model.statistics.LatencyModel;
+import model.statistics.StatisticsTracker;
+import model.write.WritePolicy;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+// Binary snapshot of a simulator's configuration, lines, policy state, statistics and memory pages.
+public class Checkpoint {
+    public static final int MAGIC = 0x434B5054; // "CKPT"
+    public static final int VERSION = 1;
+    private static final int BUFFER = 1 << 16;
+
+    private static final int VALID = 1;
+    private static final int DIRTY = 2;
+
+    public static void save(SimulatorController controller, Path file) throws IOException {
+        // a fresh temporary file per save, so concurrent saves under one name never share a half-written file
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER))) {
+            CacheStorage cache = controller.getCache();
+            int blockSize = cache.getBlockSize();
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(cache.getNumSets() * cache.getAssociativity() * blockSize);
+            out.writeInt(blockSize);
+            out.writeInt(cache.getAssociativity());
+            out.writeUTF(ChooseReplacement.nameOf(cache.getReplacement()));
+            out.writeUTF(CacheStorageType.of(cache).name());
+            LatencyModel latency = controller.getLatency();
+            out.writeInt(latency.getHitLatency());
+            out.writeInt(latency.getMissPenalty());
+            out.writeInt(latency.getWriteBackCost());
+            out.writeInt(latency.getWriteThroughCost());
+            out.writeUTF(controller.getPrefetcher().name());
+            out.writeInt(controller.getPrefetchDegree());
+            out.writeInt(controller.getLevels().size());
+            for (LevelConfig level : controller.getLevels()) {
+                out.writeInt(level.getCacheSizeBytes());
+                out.writeInt(level.getAssociativity());
+                out.writeUTF(level.getReplacementPolicy());
+                out.writeUTF(level.getStorage().name());
+                out.writeUTF(level.getInclusion().name());
+                out.writeUTF(level.getWritePolicy().name());
+                out.writeInt(level.getHitLatency());
+            }
+
+            writeLines(out, cache);
+            if (controller.getPrefetchStage() != null) {
+                controller.getPrefetchStage().saveState(out);
+            }
+            for (CacheLevel level : controller.getLowerLevels()) {
+                writeLines(out, level.getCache());
+            }
+
+            StatisticsTracker stats = controller.getStats();
+            out.writeLong(stats.getReads());
+            out.writeLong(stats.getWrites());
+            out.writeLong(stats.getHits());
+            out.writeLong(stats.getMisses());
+            out.writeLong(stats.getEvictions());
+            out.writeLong(stats.getWriteBacks());
+            long[] conflicts = stats.getSetConflicts();
+            writeCounts(out, conflicts);
+            out.writeLong(stats.getCycles());
+            writeCounts(out, stats.getReadLatencies());
+            writeCounts(out, stats.getWriteLatencies());
+            out.writeLong(stats.getPrefetches());
+            out.writeLong(stats.getUsefulPrefetches());
+            out.writeLong(stats.getLatePrefetches());
+            out.writeLong(stats.getUselessPrefetches());
+            out.writeLong(stats.getPrefetchBufferHits());
+            out.writeLong(stats.getPrefetchEvictions());
+            out.writeLong(stats.getPrefetchWriteBacks());
+            for (CacheLevel level : controller.getLowerLevels()) {
+                StatisticsTracker levelStats = level.getStats();
+                out.writeLong(levelStats.getReads());
+                out.writeLong(levelStats.getWrites());
+                out.writeLong(levelStats.getHits());
+                out.writeLong(levelStats.getMisses());
+                out.writeLong(levelStats.getEvictions());
+                out.writeLong(levelStats.getWriteBacks());
+                writeCounts(out, levelStats.getSetConflicts());
+                out.writeLong(level.getBackInvalidations());
+            }
+
+            controller.getMemory().savePages(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    // Returns a controller that shares the given controller's memory. Everything is read and checked
+    // before the memory is replaced, so the caller must hold the lock of the controller being replaced
+    // but a corrupt checkpoint leaves it untouched.
+    public static SimulatorController restore(SimulatorController controller, Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a simulator checkpoint");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported checkpoint version " + version);
+            }
+            int cacheSizeBytes = in.readInt();
+            int blockSize = in.readInt();
+            int associativity = in.readInt();
+            String policy = in.readUTF();
+            CacheStorageType storage = CacheStorageType.valueOf(in.readUTF());
+            LatencyModel latency = new LatencyModel();
+            latency.setHitLatency(in.readInt());
+            latency.setMissPenalty(in.readInt());
+            latency.setWriteBackCost(in.readInt());
+            latency.setWriteThroughCost(in.readInt());
+            PrefetcherType prefetcher = PrefetcherType.valueOf(in.readUTF());
+            int prefetchDegree = in.readInt();
+            List<LevelConfig> levels = readLevels(in);
+
+            SimulatorController restored = controller.reconfigured(cacheSizeBytes, blockSize, associativity, policy, storage,
+                    latency, prefetcher, prefetchDegree, levels);
+            CacheStorage cache = restored.getCache();
+
+            readLines(in, cache);
+            if (restored.getPrefetchStage() != null) {
+                restored.getPrefetchStage().loadState(in);
+            }
+            for (CacheLevel level : restored.getLowerLevels()) {
+                readLines(in, level.getCache());
+            }
+
+            long reads = in.readLong();
+            long writes = in.readLong();
+            long hits = in.readLong();
+            long misses = in.readLong();
+            long evictions = in.readLong();
+            long writeBacks = in.readLong();
+            long[] conflicts = readCounts(in, cache.getNumSets());
+            if (conflicts.length != cache.getNumSets()) {
+                throw new IllegalArgumentException("Corrupt checkpoint");
+            }
+            long cycles = in.readLong();
+            long[] readLatencies = readCounts(in, Integer.SIZE + 1);
+            long[] writeLatencies = readCounts(in, Integer.SIZE + 1);
+            restored.getStats().restore(reads, writes, hits, misses, evictions, writeBacks, conflicts,
+                    cycles, readLatencies, writeLatencies);
+            restored.getStats().restorePrefetches(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                    in.readLong(), in.readLong());
+            for (CacheLevel level : restored.getLowerLevels()) {
+                long levelReads = in.readLong();
+                long levelWrites = in.readLong();
+                long levelHits = in.readLong();
+                long levelMisses = in.readLong();
+                long levelEvictions = in.readLong();
+                long levelWriteBacks = in.readLong();
+                long[] levelConflicts = readCounts(in, level.getCache().getNumSets());
+                if (levelConflicts.length != level.getCache().getNumSets()) {
+                    throw new IllegalArgumentException("Corrupt checkpoint");
+                }
+                level.getStats().restore(levelReads, levelWrites, levelHits, levelMisses, levelEvictions, levelWriteBacks,
+                        levelConflicts, 0, new long[0], new long[0]);
+                level.restoreBackInvalidations(in.readLong());
+            }
+
+            SortedMap<Long, byte[]> pages = readPages(in, restored.getMemory().getSize());
+            restored.getMemory().restorePages(pages);
+            return restored;
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Truncated checkpoint", e);
+        }
+    }
+    // page numbers must be ascending and inside the memory
+    private static SortedMap<Long, byte[]> readPages(DataInputStream in, long memorySize) throws IOException {
+        long pageCount = memorySize / MainMemory.PAGE_SIZE + (memorySize % MainMemory.PAGE_SIZE == 0 ? 0 : 1);
+        SortedMap<Long, byte[]> pages = new TreeMap<>();
+        long previous = -1;
+        for (long pageNumber = in.readLong(); pageNumber != -1; pageNumber = in.readLong()) {
+            if (pageNumber <= previous || pageNumber >= pageCount) {
+                throw new IllegalArgumentException("Corrupt checkpoint");
+            }
+            byte[] page = new byte[MainMemory.PAGE_SIZE];
+            in.readFully(page);
+            pages.put(pageNumber, page);
+            previous = pageNumber;
+        }
+        return pages;
+    }
+    private static List<LevelConfig> readLevels(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > LevelConfig.MAX_LEVELS) {
+            throw new IllegalArgumentException("Corrupt checkpoint");
+        }
+        List<LevelConfig> levels = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LevelConfig level = new LevelConfig();
+            level.setCacheSizeBytes(in.readInt());
+            level.setAssociativity(in.readInt());
+            level.setReplacementPolicy(in.readUTF());
+            level.setStorage(CacheStorageType.valueOf(in.readUTF()));
+            level.setInclusion(InclusionPolicy.valueOf(in.readUTF()));
+            level.setWritePolicy(WritePolicy.valueOf(in.readUTF()));
+            level.setHitLatency(in.readInt());
+            levels.add(level);
+        }
+        return levels;
+    }
+    // tag-only caches have no data to save
+    private static void writeLines(DataOutputStream out, CacheStorage cache) throws IOException {
+        boolean withData = CacheStorageType.of(cache) != CacheStorageType.TAG_ONLY;
+        for (int set = 0; set < cache.getNumSets(); set++) {
+            for (int way = 0; way < cache.getAssociativity(); way++) {
+                boolean valid = cache.isValid(set, way);
+                out.writeByte((valid ? VALID : 0) | (cache.isDirty(set, way) ? DIRTY : 0));
+                out.writeLong(cache.getTag(set, way));
+                if (valid && withData) {
+                    out.write(cache.getData(set, way));
+                }
+            }
+        }
+        cache.getReplacement().saveState(out);
+    }
+    private static void readLines(DataInputStream in, CacheStorage cache) throws IOException {
+        boolean withData = CacheStorageType.of(cache) != CacheStorageType.TAG_ONLY;
+        byte[] data = new byte[cache.getBlockSize()];
+        for (int set = 0; set < cache.getNumSets(); set++) {
+            for (int way = 0; way < cache.getAssociativity(); way++) {
+                int flags = in.readByte();
+                long tag = in.readLong();
+                boolean valid = (flags & VALID) != 0;
+                if (valid && withData) {
+                    in.readFully(data);
+                } else {
+                    Arrays.fill(data, (byte) 0);
+                }
+                cache.restoreLine(set, way, tag, valid, (flags & DIRTY) != 0, data, 0);
+            }
+        }
+        cache.getReplacement().loadState(in);
+    }
+    private static void writeCounts(DataOutputStream out, long[] counts) throws IOException {
+        out.writeInt(counts.length);
+        for (long count : counts) {
+            out.writeLong(count);
+        }
+    }
+    private static long[] readCounts(DataInputStream in, int max) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > max) {
+            throw new IllegalArgumentException("Corrupt checkpoint");
+        }
+        long[] counts = new long[length];
+        for (int i = 0; i < length; i++) {
+            counts[i] = in.readLong();
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,81 @@
+package controller;
+
+import model.cache.CacheStorageType;
+import model.cache.InclusionPolicy;
+import model.replacement.ChooseReplacement;
+import model.statistics.LatencyModel;
+import model.write.WritePolicy;
+
+// One cache level below L1. Levels share L1's block size, so it is not configurable here.
+public class LevelConfig {
+    public static final int MAX_LEVELS = 8;
+
+    private int cacheSizeBytes;
+    private int associativity;
+    private String replacementPolicy = "LRU";
+    private CacheStorageType storage = CacheStorageType.FLAT;
+    private InclusionPolicy inclusion = InclusionPolicy.NON_INCLUSIVE;
+    private WritePolicy writePolicy = WritePolicy.WRITE_BACK;
+    private int hitLatency = 10;
+
+    public LevelConfig() {}
+
+    // l1Storage decides whether data flows through the levels: a tag-only level under a data cache would lose it
+    public void validate(int blockSize, CacheStorageType l1Storage) {
+        if (ChooseReplacement.create(replacementPolicy).isEmpty()) throw new IllegalArgumentException("Invalid replacement policy");
+        // a lower level also sees write-backs and victims, whose next use the trace position does not give
+        if ("OPT".equalsIgnoreCase(replacementPolicy)) throw new IllegalArgumentException("OPT replacement is only supported for L1");
+        if (associativity <= 0 || (cacheSizeBytes / blockSize) / associativity <= 0) {
+            throw new IllegalArgumentException("Invalid cache level configuration");
+        }
+        if (storage == null || inclusion == null || writePolicy == null) throw new IllegalArgumentException("Invalid cache level configuration");
+        if (storage == CacheStorageType.TAG_ONLY && l1Storage != CacheStorageType.TAG_ONLY) {
+            throw new IllegalArgumentException("Levels below a data-carrying L1 cannot be TAG_ONLY");
+        }
+        if (!LatencyModel.inRange(hitLatency)) {
+            throw new IllegalArgumentException("Latencies must be between 0 and " + LatencyModel.MAX_LATENCY + " cycles");
+        }
+    }
+    public int getCacheSizeBytes() {
+        return cacheSizeBytes;
+    }
+    public void setCacheSizeBytes(int cacheSizeBytes) {
+        this.cacheSizeBytes = cacheSizeBytes;
+    }
+    public int getAssociativity() {
+        return associativity;
+    }
+    public void setAssociativity(int associativity) {
+        this.associativity = associativity;
+    }
+    public String getReplacementPolicy() {
+        return replacementPolicy;
+    }
+    public void setReplacementPolicy(String replacementPolicy) {
+        this.replacementPolicy = replacementPolicy;
+    }
+    public CacheStorageType getStorage() {
+        return storage;
+    }
+    public void setStorage(CacheStorageType storage) {
+        this.storage = storage;
+    }
+    public InclusionPolicy getInclusion() {
+        return inclusion;
+    }
+    public void setInclusion(InclusionPolicy inclusion) {
+        this.inclusion = inclusion;
+    }
+    public WritePolicy getWritePolicy() {
+        return writePolicy;
+    }
+    public void setWritePolicy(WritePolicy writePolicy) {
+        this.writePolicy = writePolicy;
+    }
+    public int getHitLatency() {
+        return hitLatency;
+    }
+    public void setHitLatency(int hitLatency) {
+        this.hitLatency = hitLatency;
+    }
+}
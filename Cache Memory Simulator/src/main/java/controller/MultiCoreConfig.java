@@ -0,0 +1,61 @@
+package controller;
+
+import model.cache.CacheStorageType;
+import model.coherence.CoherenceProtocol;
+
+// Geometry shared by every core's private cache.
+public class MultiCoreConfig {
+    public static final int MAX_CORES = 64;
+
+    private int cores = 2;
+    private int cacheSizeBytes;
+    private int blockSize;
+    private int associativity;
+    private String replacementPolicy = "LRU";
+    private CacheStorageType storage = CacheStorageType.FLAT;
+    private CoherenceProtocol protocol = CoherenceProtocol.MESI;
+
+    public MultiCoreConfig() {}
+    public int getCores() {
+        return cores;
+    }
+    public void setCores(int cores) {
+        this.cores = cores;
+    }
+    public int getCacheSizeBytes() {
+        return cacheSizeBytes;
+    }
+    public void setCacheSizeBytes(int cacheSizeBytes) {
+        this.cacheSizeBytes = cacheSizeBytes;
+    }
+    public int getBlockSize() {
+        return blockSize;
+    }
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+    public int getAssociativity() {
+        return associativity;
+    }
+    public void setAssociativity(int associativity) {
+        this.associativity = associativity;
+    }
+    public String getReplacementPolicy() {
+        return replacementPolicy;
+    }
+    public void setReplacementPolicy(String replacementPolicy) {
+        this.replacementPolicy = replacementPolicy;
+    }
+    public CacheStorageType getStorage() {
+        return storage;
+    }
+    public void setStorage(CacheStorageType storage) {
+        this.storage = storage;
+    }
+    public CoherenceProtocol getProtocol() {
+        return protocol;
+    }
+    public void setProtocol(CoherenceProtocol protocol) {
+        this.protocol = protocol;
+    }
+}
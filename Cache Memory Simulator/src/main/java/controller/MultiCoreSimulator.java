@@ -0,0 +1,168 @@
+package controller;
+
+import model.address.AddressParser;
+import model.cache.CacheStorage;
+import model.coherence.CoherenceState;
+import model.coherence.CoreCache;
+import model.coherence.SnoopingBus;
+import model.memory.PagedMainMemory;
+import model.statistics.StatisticsTracker;
+import model.trace.TraceSource;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Replays a core-tagged trace against one private cache per core on a snooping bus.
+public class MultiCoreSimulator {
+    private static final int SET_ALIGNMENT = 64;
+    private static final int QUEUE_CAPACITY = 1 << 14;
+
+    private final SnoopingBus bus;
+    private final AddressParser parser;
+    private final int nrSets;
+
+    public MultiCoreSimulator(MultiCoreConfig config) {
+        if (config.getCores() < 1 || config.getCores() > MultiCoreConfig.MAX_CORES) {
+            throw new IllegalArgumentException("Core count must be between 1 and " + MultiCoreConfig.MAX_CORES);
+        }
+        if (config.getProtocol() == null) throw new IllegalArgumentException("Invalid coherence protocol");
+        if ("OPT".equalsIgnoreCase(config.getReplacementPolicy())) throw new IllegalArgumentException("OPT replacement needs a single-core replay");
+        CoreCache[] cores = new CoreCache[config.getCores()];
+        for (int i = 0; i < cores.length; i++) {
+            cores[i] = new CoreCache(SimulatorController.createCache(config.getCacheSizeBytes(), config.getBlockSize(),
+                    config.getAssociativity(), config.getReplacementPolicy(), config.getStorage()));
+        }
+        this.nrSets = cores[0].getCache().getNumSets();
+        this.parser = new AddressParser(config.getBlockSize(), nrSets);
+        this.bus = new SnoopingBus(cores, new PagedMainMemory(), parser, config.getProtocol());
+    }
+    public Map<String, Object> replay(TraceSource trace, int shards) throws IOException {
+        long start = System.nanoTime();
+        int perShard = (nrSets + Math.max(1, shards) - 1) / Math.max(1, shards);
+        perShard = (perShard + SET_ALIGNMENT - 1) / SET_ALIGNMENT * SET_ALIGNMENT;
+        int workers = (nrSets + perShard - 1) / perShard;
+
+        long accesses = workers > 1 ? replaySharded(trace, perShard, workers) : replaySequential(trace);
+
+        Map<String, Object> result = report();
+        result.put("shards", workers);
+        result.put("accesses", accesses);
+        result.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private long replaySequential(TraceSource trace) throws IOException {
+        long accesses = 0;
+        while (trace.next()) {
+            int core = checkCore(trace.getCore());
+            if (trace.isWrite()) {
+                bus.write(core, trace.getAddress(), trace.getValue());
+            } else {
+                bus.read(core, trace.getAddress());
+            }
+            accesses++;
+        }
+        return accesses;
+    }
+    private long replaySharded(TraceSource trace, int setsPerShard, int shards) throws IOException {
+        SpscRingBuffer[] queues = new SpscRingBuffer[shards];
+        Thread[] workers = new Thread[shards];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        for (int i = 0; i < shards; i++) {
+            SpscRingBuffer queue = new SpscRingBuffer(QUEUE_CAPACITY);
+            queues[i] = queue;
+            workers[i] = new Thread(() -> {
+                try {
+                    while (queue.take()) {
+                        if (queue.isWrite()) {
+                            bus.write(queue.getCore(), queue.getAddress(), queue.getValue());
+                        } else {
+                            bus.read(queue.getCore(), queue.getAddress());
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                    while (queue.take()) {}
+                }
+            }, "coherence-shard-" + i);
+            workers[i].start();
+        }
+
+        long accesses = 0;
+        try {
+            while (trace.next() && failure.get() == null) {
+                long address = trace.getAddress();
+                queues[parser.getSetIndex(address) / setsPerShard].put(trace.isWrite(), address, trace.getValue(), checkCore(trace.getCore()));
+                accesses++;
+            }
+        } finally {
+            for (SpscRingBuffer queue : queues) {
+                queue.close();
+            }
+            ShardedSimulator.join(workers);
+        }
+
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return accesses;
+    }
+    private int checkCore(int core) {
+        if (core < 0 || core >= bus.getCores().length) {
+            throw new IllegalArgumentException("Trace names core " + core + " but only " + bus.getCores().length + " cores are configured");
+        }
+        return core;
+    }
+    private Map<String, Object> report() {
+        List<Map<String, Object>> cores = new ArrayList<>();
+        long hits = 0;
+        long total = 0;
+        CoreCache[] caches = bus.getCores();
+        for (int i = 0; i < caches.length; i++) {
+            StatisticsTracker stats = caches[i].getStats();
+            Map<String, Object> core = new HashMap<>();
+            core.put("core", i);
+            core.put("reads", stats.getReads());
+            core.put("writes", stats.getWrites());
+            core.put("hits", stats.getHits());
+            core.put("misses", stats.getMisses());
+            core.put("hitRate", stats.hitRate());
+            core.put("evictions", stats.getEvictions());
+            core.put("writeBacks", stats.getWriteBacks());
+            core.put("coherenceMisses", caches[i].getCoherenceMisses());
+            core.put("invalidationsReceived", caches[i].getInvalidationsReceived());
+            long[] counts = caches[i].countStates();
+            Map<String, Long> lines = new LinkedHashMap<>();
+            for (CoherenceState state : CoherenceState.values()) {
+                lines.put(state.toString(), counts[state.ordinal()]);
+            }
+            core.put("lines", lines);
+            cores.add(core);
+            hits += stats.getHits();
+            total += stats.getReads() + stats.getWrites();
+        }
+
+        Map<String, Object> busStats = new HashMap<>();
+        busStats.put("busReads", bus.getBusReads());
+        busStats.put("busReadExclusives", bus.getBusReadExclusives());
+        busStats.put("busUpgrades", bus.getBusUpgrades());
+        busStats.put("memoryWriteBacks", bus.getMemoryWriteBacks());
+        busStats.put("transactions", bus.getTransactions());
+        busStats.put("invalidations", bus.getInvalidations());
+        busStats.put("cacheToCacheTransfers", bus.getCacheTransfers());
+
+        CacheStorage cache = caches[0].getCache();
+        Map<String, Object> result = new HashMap<>();
+        result.put("protocol", bus.getProtocol().toString());
+        result.put("cacheSizeBytes", cache.getNumSets() * cache.getAssociativity() * cache.getBlockSize());
+        result.put("cores", cores);
+        result.put("bus", busStats);
+        result.put("hitRate", total == 0 ? 0.0 : (double) hits / total);
+        return result;
+    }
+}
@@ -0,0 +1,165 @@
+package controller;
+
+import model.memory.MainMemory;
+import model.prefetch.Prefetcher;
+import model.prefetch.PrefetcherType;
+import model.statistics.StatisticsTracker;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Timing and bookkeeping around a Prefetcher, including the prefetch buffer of buffered prefetchers.
+class PrefetchStage {
+    private static final long NONE = -1;
+
+    private final Prefetcher prefetcher;
+    private final int degree;
+    private final StatisticsTracker stats;
+    private final LongConsumer issue;
+    private final long[] readyAt;
+    private final long[] bufferBlocks;
+    private final long[] bufferReady;
+    private final byte[][] bufferData;
+    private final int blockSize;
+    private int buffered;
+    private long clock;
+    private boolean usedPrefetch;
+
+    PrefetchStage(Prefetcher prefetcher, int degree, int lines, int blockSize, StatisticsTracker stats, LongConsumer issue) {
+        this.prefetcher = prefetcher;
+        this.degree = degree;
+        this.stats = stats;
+        this.issue = issue;
+        this.readyAt = new long[lines];
+        Arrays.fill(readyAt, NONE);
+        this.bufferBlocks = new long[prefetcher.isBuffered() ? degree : 0];
+        this.bufferReady = new long[bufferBlocks.length];
+        this.bufferData = new byte[bufferBlocks.length][blockSize];
+        this.blockSize = blockSize;
+    }
+    PrefetcherType getType() {
+        return PrefetcherType.of(prefetcher);
+    }
+    int getDegree() {
+        return degree;
+    }
+    // demand hit on a cache line; returns the cycles still to wait if a prefetch brought it in
+    int use(int line) {
+        if (readyAt[line] == NONE) return 0;
+        int wait = (int) Math.max(0, readyAt[line] - clock);
+        readyAt[line] = NONE;
+        usedPrefetch = true;
+        stats.recordPrefetchUse(wait > 0, false);
+        return wait;
+    }
+    // demand miss; returns the cycles to wait for the block and copies it to dst if the prefetch
+    // buffer holds it, else -1
+    int take(long block, byte[] dst) {
+        for (int i = 0; i < buffered; i++) {
+            if (bufferBlocks[i] == block) {
+                int wait = (int) Math.max(0, bufferReady[i] - clock);
+                System.arraycopy(bufferData[i], 0, dst, 0, blockSize);
+                remove(i);
+                usedPrefetch = true;
+                stats.recordPrefetchUse(wait > 0, true);
+                return wait;
+            }
+        }
+        return -1;
+    }
+    // a line is about to be refilled
+    void replaced(int line) {
+        if (readyAt[line] != NONE) {
+            readyAt[line] = NONE;
+            stats.recordUselessPrefetch();
+        }
+    }
+    // a prefetch filled this line
+    void filled(int line, int missPenalty) {
+        readyAt[line] = clock + missPenalty;
+        stats.recordPrefetch();
+    }
+    // queues a prefetched block, read from below, in the buffer, dropping the oldest entry when it
+    // is full; false when the prefetcher fills the cache instead
+    boolean buffer(long block, int missPenalty, MainMemory below) {
+        if (bufferBlocks.length == 0) return false;
+        for (int i = 0; i < buffered; i++) {
+            if (bufferBlocks[i] == block) return true;
+        }
+        if (buffered == bufferBlocks.length) {
+            remove(0);
+            stats.recordUselessPrefetch();
+        }
+        below.readBlock(block * blockSize, bufferData[buffered], 0, blockSize);
+        bufferBlocks[buffered] = block;
+        bufferReady[buffered] = clock + missPenalty;
+        buffered++;
+        stats.recordPrefetch();
+        return true;
+    }
+    // a store went around the cache to memory; a buffered copy of its block must see it too
+    void written(long address, byte value) {
+        for (int i = 0; i < buffered; i++) {
+            if (bufferBlocks[i] == address / blockSize) {
+                bufferData[i][(int) (address % blockSize)] = value;
+            }
+        }
+    }
+    // called once a demand access has completed
+    void train(long block, boolean hit, int cycles) {
+        clock += cycles;
+        boolean used = usedPrefetch;
+        usedPrefetch = false;
+        prefetcher.onAccess(block, hit, used, issue);
+    }
+    private void remove(int index) {
+        buffered--;
+        byte[] data = bufferData[index];
+        System.arraycopy(bufferBlocks, index + 1, bufferBlocks, index, buffered - index);
+        System.arraycopy(bufferReady, index + 1, bufferReady, index, buffered - index);
+        System.arraycopy(bufferData, index + 1, bufferData, index, buffered - index);
+        bufferData[buffered] = data;
+    }
+    void saveState(DataOutput out) throws IOException {
+        out.writeLong(clock);
+        int tagged = 0;
+        for (long ready : readyAt) {
+            if (ready != NONE) tagged++;
+        }
+        out.writeInt(tagged);
+        for (int line = 0; line < readyAt.length; line++) {
+            if (readyAt[line] != NONE) {
+                out.writeInt(line);
+                out.writeLong(readyAt[line]);
+            }
+        }
+        out.writeInt(buffered);
+        for (int i = 0; i < buffered; i++) {
+            out.writeLong(bufferBlocks[i]);
+            out.writeLong(bufferReady[i]);
+            out.write(bufferData[i]);
+        }
+        prefetcher.saveState(out);
+    }
+    void loadState(DataInput in) throws IOException {
+        clock = in.readLong();
+        int tagged = in.readInt();
+        if (tagged < 0 || tagged > readyAt.length) throw new IllegalArgumentException("Corrupt checkpoint");
+        for (int i = 0; i < tagged; i++) {
+            int line = in.readInt();
+            if (line < 0 || line >= readyAt.length) throw new IllegalArgumentException("Corrupt checkpoint");
+            readyAt[line] = in.readLong();
+        }
+        buffered = in.readInt();
+        if (buffered < 0 || buffered > bufferBlocks.length) throw new IllegalArgumentException("Corrupt checkpoint");
+        for (int i = 0; i < buffered; i++) {
+            bufferBlocks[i] = in.readLong();
+            bufferReady[i] = in.readLong();
+            in.readFully(bufferData[i]);
+        }
+        prefetcher.loadState(in);
+    }
+}
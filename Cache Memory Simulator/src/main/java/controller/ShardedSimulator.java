@@ -0,0 +1,112 @@
+package controller;
+
+import model.address.AddressParser;
+import model.cache.CacheStorage;
+import model.memory.MainMemory;
+import model.statistics.LatencyModel;
+import model.statistics.StatisticsTracker;
+import model.trace.TraceSource;
+import model.write.*;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Splits one cache into shards of consecutive sets replayed on worker threads.
+public class ShardedSimulator {
+    // shard boundaries fall on multiples of 64 sets so no two shards share a word of FlatCache's bitsets
+    private static final int SET_ALIGNMENT = 64;
+    private static final int QUEUE_CAPACITY = 1 << 14;
+
+    private final CacheStorage cache;
+    private final MainMemory memory;
+    private final AddressParser parser;
+    private final LatencyModel latency;
+    private final int setsPerShard;
+    private final int shards;
+
+    public ShardedSimulator(CacheStorage cache, MainMemory memory, AddressParser parser, LatencyModel latency, int requestedShards) {
+        this.cache = cache;
+        this.memory = memory;
+        this.parser = parser;
+        this.latency = latency;
+
+        int nrSets = cache.getNumSets();
+        int perShard = (nrSets + Math.max(1, requestedShards) - 1) / Math.max(1, requestedShards);
+        perShard = (perShard + SET_ALIGNMENT - 1) / SET_ALIGNMENT * SET_ALIGNMENT;
+        this.setsPerShard = perShard;
+        this.shards = (nrSets + perShard - 1) / perShard;
+    }
+    public int getShards() {
+        return shards;
+    }
+    public StatisticsTracker replay(TraceSource trace, WritePolicy policy, WriteMissPolicy missPolicy) throws IOException {
+        SpscRingBuffer[] queues = new SpscRingBuffer[shards];
+        StatisticsTracker[] shardStats = new StatisticsTracker[shards];
+        Thread[] workers = new Thread[shards];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        for (int i = 0; i < shards; i++) {
+            SpscRingBuffer queue = new SpscRingBuffer(QUEUE_CAPACITY);
+            SimulatorController shard = new SimulatorController(cache, memory, parser, policy, new StatisticsTracker(null, cache.getNumSets()), null);
+            shard.setLatency(latency);
+            queues[i] = queue;
+            shardStats[i] = shard.getStats();
+            workers[i] = new Thread(() -> {
+                try {
+                    while (queue.take()) {
+                        if (queue.isWrite()) {
+                            shard.write(queue.getAddress(), queue.getValue(), policy, missPolicy);
+                        } else {
+                            shard.read(queue.getAddress());
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                    while (queue.take()) {}
+                }
+            }, "cache-shard-" + i);
+            workers[i].start();
+        }
+
+        try {
+            while (trace.next() && failure.get() == null) {
+                long address = trace.getAddress();
+                queues[parser.getSetIndex(address) / setsPerShard].put(trace.isWrite(), address, trace.getValue());
+            }
+        } finally {
+            for (SpscRingBuffer queue : queues) {
+                queue.close();
+            }
+            join(workers);
+        }
+
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        }
+
+        StatisticsTracker merged = new StatisticsTracker(null, cache.getNumSets());
+        for (StatisticsTracker stats : shardStats) {
+            merged.merge(stats);
+        }
+        return merged;
+    }
+    static void join(Thread[] workers) {
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (true) {
+                try {
+                    worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
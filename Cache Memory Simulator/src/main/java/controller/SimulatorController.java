@@ -3,152 +3,506 @@ package controller;
 import model.address.AddressParser;
 import model.cache.*;
 import model.memory.MainMemory;
+import model.memory.NullMainMemory;
+import model.prefetch.Prefetcher;
+import model.prefetch.PrefetcherType;
+import model.statistics.LatencyModel;
+import model.statistics.StackDistanceAnalyzer;
 import model.statistics.StatisticsTracker;
 import model.replacement.*;
+import model.trace.NextUseIndex;
+import model.trace.TraceOpener;
+import model.trace.TraceSource;
 import model.write.*;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.*;
 
 public class SimulatorController {
-    private Cache cache;
+    private CacheStorage cache;
     private MainMemory memory;
     private AddressParser parser;
     private WritePolicy writePolicy;
     private StatisticsTracker stats;
-
-    public SimulatorController(Cache cache, MainMemory memory, AddressParser parser, WritePolicy writePolicy, StatisticsTracker stats) {
+    private ChangeTracker changes;
+    private AccessEventBuffer events;
+    private LatencyModel latency = new LatencyModel();
+    private PrefetchStage prefetch;
+    // the block a demand miss took from the prefetch buffer
+    private byte[] prefetched;
+    // the levels below L1; below is the top one, or main memory when L1 is the only level
+    private CacheLevel lower;
+    private MainMemory below;
+    private List<LevelConfig> levels = List.of();
+
+    public SimulatorController(CacheStorage cache, MainMemory memory, AddressParser parser, WritePolicy writePolicy, StatisticsTracker stats) {
+        this(cache, memory, parser, writePolicy, stats, new ChangeTracker(cache.getNumSets() * cache.getAssociativity(), 0));
+    }
+    // changes is null for controllers nobody polls for changes, such as the shards of a sharded replay
+    SimulatorController(CacheStorage cache, MainMemory memory, AddressParser parser, WritePolicy writePolicy, StatisticsTracker stats,
+                        ChangeTracker changes) {
         this.cache = cache;
         this.memory = memory;
+        this.below = isTagOnly() ? new NullMainMemory() : memory;
         this.parser = parser;
         this.writePolicy = writePolicy;
         this.stats = stats;
+        this.changes = changes;
     }
     public byte read(long address) {
         long tag = parser.getTag(address);
         int setIndex = parser.getSetIndex(address);
         int offset = (int) parser.getBlockOffset(address);
 
-        CacheSet cacheSet = cache.getSet(setIndex);
-        Optional<CacheBlock> blockOpt = cacheSet.findByTag(tag);
+        int way = cache.findWay(setIndex, tag);
+        boolean hit = way >= 0;
+        int cycles = latency.getHitLatency();
 
-        if (blockOpt.isPresent()) {
-            CacheBlock block = blockOpt.get();
-            cacheSet.getReplacement().onAccess(block);
+        if (hit) {
+            cache.touch(setIndex, way);
             stats.recordReads(true);
-            return block.getData()[offset];
+            if (prefetch != null) cycles += prefetch.use(line(setIndex, way));
+            if (events != null) events.recordAccess(false, address, setIndex, way, true);
         } else {
             stats.recordReads(false);
-            CacheSet.CacheAllocationResult allocResult = cacheSet.allocateBlock(tag, setIndex, cache.getNumSets(), memory, parser);
-
-            CacheBlock newBlock = allocResult.getAllocatedBlock();
-            CacheBlock evictedBlock = allocResult.getEvictedBlock();
-
-            return newBlock.getData()[offset];
+            way = cache.chooseVictim(setIndex);
+            cycles += demandFill(setIndex, way, tag, address);
+            if (events != null) events.recordAccess(false, address, setIndex, way, false);
         }
+        byte value = cache.readByte(setIndex, way, offset);
+        charge(false, address, hit, cycles);
+        return value;
     }
     public void write(long address, byte value, WritePolicy policy, WriteMissPolicy missPolicy) {
         long tag = parser.getTag(address);
         int setIndex = parser.getSetIndex(address);
         int offset = (int) parser.getBlockOffset(address);
 
-        CacheSet set = cache.getSet(setIndex);
-        Optional<CacheBlock> blockOpt = set.findByTag(tag);
+        int way = cache.findWay(setIndex, tag);
+        boolean hit = way >= 0;
+        int cycles = latency.getHitLatency();
 
-        if (blockOpt.isPresent()) {
-            CacheBlock block = blockOpt.get();
-            set.getReplacement().onAccess(block);
-            block.getData()[offset] = value;
-
-            if (policy == WritePolicy.WRITE_BACK) {
-                block.setDirty(true);
-            } else {
-                memory.write(address, value);
-            }
+        if (hit) {
+            cache.touch(setIndex, way);
             stats.recordWrites(true);
+            if (prefetch != null) cycles += prefetch.use(line(setIndex, way));
+            if (events != null) events.recordAccess(true, address, setIndex, way, true);
         } else {
             stats.recordWrites(false);
-            if (missPolicy == WriteMissPolicy.WRITE_ALLOCATE) {
-                CacheSet.CacheAllocationResult allocResult = set.allocateBlock(tag, setIndex, cache.getNumSets(), memory, parser);
-                CacheBlock block = allocResult.getAllocatedBlock();
-                CacheBlock evictedBlock = allocResult.getEvictedBlock();
+            if (missPolicy != WriteMissPolicy.WRITE_ALLOCATE) {
+                writeAround(address, value);
+                if (events != null) events.recordAccess(true, address, setIndex, -1, false);
+                charge(true, address, false, cycles + latency.getWriteThroughCost());
+                return;
+            }
+            way = cache.chooseVictim(setIndex);
+            cycles += demandFill(setIndex, way, tag, address);
+            if (events != null) events.recordAccess(true, address, setIndex, way, false);
+        }
+        cycles += store(setIndex, way, offset, address, value, policy);
+        charge(true, address, hit, cycles);
+    }
+    public BatchResult batch(List<BatchOperation> operations) {
+        requireFuture();
+        // reject a malformed batch before any of it runs
+        for (BatchOperation op : operations) {
+            if (op == null) throw new IllegalArgumentException("Invalid operation 'null'");
+            op.validate();
+        }
+
+        BatchResult result = new BatchResult(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation op = operations.get(i);
+            access(result, i, op.isWrite(), op.getAddress(), (byte) op.getValue(), op.getWritePolicy(), op.getMissPolicy());
+        }
+        return result;
+    }
+    // runs the first `limit` accesses of a trace that can be opened again; an OPT cache first reads it once
+    public BatchResult batch(TraceOpener traces, int limit, WritePolicy policy, WriteMissPolicy missPolicy) throws IOException {
+        if (!(cache.getReplacement() instanceof OptReplacement)) {
+            TraceSource trace = traces.open();
+            try {
+                return batch(trace, limit, policy, missPolicy);
+            } finally {
+                close(trace);
+            }
+        }
+        if (prefetch != null) throw new IllegalArgumentException("OPT replacement cannot be combined with prefetching");
+
+        NextUseIndex future;
+        TraceSource first = traces.open();
+        try {
+            future = NextUseIndex.build(first, cache.getBlockSize());
+        } finally {
+            close(first);
+        }
+        OptReplacement opt = (OptReplacement) cache.getReplacement();
+        TraceSource trace = traces.open();
+        try {
+            NextUseIndex.Cursor cursor = future.cursor(trace);
+            opt.setFuture(cursor);
+            return batch(cursor, limit, policy, missPolicy);
+        } finally {
+            opt.setFuture(null);
+            close(trace);
+        }
+    }
+    public BatchResult batch(TraceSource source, int limit, WritePolicy policy, WriteMissPolicy missPolicy) throws IOException {
+        requireFuture();
+        BatchResult result = new BatchResult(limit);
+        for (int i = 0; i < limit && source.next(); i++) {
+            access(result, i, source.isWrite(), source.getAddress(), source.getValue(), policy, missPolicy);
+        }
+        return result;
+    }
+    private void access(BatchResult result, int i, boolean write, long address, byte value, WritePolicy policy, WriteMissPolicy missPolicy) {
+        long tag = parser.getTag(address);
+        int setIndex = parser.getSetIndex(address);
+        int offset = (int) parser.getBlockOffset(address);
+
+        int way = cache.findWay(setIndex, tag);
+        boolean hit = way >= 0;
+        if (write) stats.recordWrites(hit);
+        else stats.recordReads(hit);
+        int cycles = latency.getHitLatency();
+
+        if (hit) {
+            cache.touch(setIndex, way);
+            if (prefetch != null) cycles += prefetch.use(line(setIndex, way));
+        } else if (write && missPolicy != WriteMissPolicy.WRITE_ALLOCATE) {
+            writeAround(address, value);
+            cycles += latency.getWriteThroughCost();
+            if (events != null) events.recordAccess(true, address, setIndex, -1, false);
+            result.record(i, false, -1, value, cycles);
+            charge(true, address, false, cycles);
+            return;
+        } else {
+            way = cache.chooseVictim(setIndex);
+            if (cache.isValid(setIndex, way)) {
+                result.recordEviction(i, cache.getTag(setIndex, way), cache.isDirty(setIndex, way));
+            }
+            cycles += demandFill(setIndex, way, tag, address);
+        }
+        if (events != null) events.recordAccess(write, address, setIndex, way, hit);
 
-                block.getData()[offset] = value;
+        if (write) {
+            cycles += store(setIndex, way, offset, address, value, policy);
+        } else {
+            value = cache.readByte(setIndex, way, offset);
+        }
+        result.record(i, hit, way, value, cycles);
+        charge(write, address, hit, cycles);
+    }
+    public Map<String, Object> replayTrace(TraceSource trace, WritePolicy policy, WriteMissPolicy missPolicy) throws IOException {
+        return replayTrace(trace, policy, missPolicy, 1);
+    }
+    // replays a trace that can be opened again; an OPT cache first reads it once to learn every access's next use
+    public Map<String, Object> replayTrace(TraceOpener traces, WritePolicy policy, WriteMissPolicy missPolicy, int shards) throws IOException {
+        NextUseIndex future = null;
+        if (cache.getReplacement() instanceof OptReplacement) {
+            TraceSource first = traces.open();
+            try {
+                future = NextUseIndex.build(first, cache.getBlockSize());
+            } finally {
+                close(first);
+            }
+        }
+        TraceSource trace = traces.open();
+        try {
+            return future == null ? replayTrace(trace, policy, missPolicy, shards) : replayTrace(trace, future, policy, missPolicy);
+        } finally {
+            close(trace);
+        }
+    }
+    // replays the trace `future` was built from; OPT caches see each access's next use
+    public Map<String, Object> replayTrace(TraceSource trace, NextUseIndex future, WritePolicy policy, WriteMissPolicy missPolicy) throws IOException {
+        if (!(cache.getReplacement() instanceof OptReplacement)) return replayTrace(trace, policy, missPolicy, 1);
+        // prefetched blocks are not the block being accessed, so their next use is unknown
+        if (prefetch != null) throw new IllegalArgumentException("OPT replacement cannot be combined with prefetching");
+
+        OptReplacement opt = (OptReplacement) cache.getReplacement();
+        NextUseIndex.Cursor cursor = future.cursor(trace);
+        opt.setFuture(cursor);
+        try {
+            return replayTrace(cursor, policy, missPolicy, 1);
+        } finally {
+            opt.setFuture(null);
+        }
+    }
+    public Map<String, Object> replayTrace(TraceSource trace, WritePolicy policy, WriteMissPolicy missPolicy, int shards) throws IOException {
+        requireFuture();
+        long reads = stats.getReads();
+        long writes = stats.getWrites();
+        long hits = stats.getHits();
+        long misses = stats.getMisses();
+        long evictions = stats.getEvictions();
+        long writeBacks = stats.getWriteBacks();
+        long cycles = stats.getCycles();
+        long prefetches = stats.getPrefetches();
+        long useful = stats.getUsefulPrefetches();
+        long late = stats.getLatePrefetches();
+        long useless = stats.getUselessPrefetches();
+        long bufferHits = stats.getPrefetchBufferHits();
+        long prefetchEvictions = stats.getPrefetchEvictions();
+        long prefetchWriteBacks = stats.getPrefetchWriteBacks();
+        List<long[]> levelCounts = new ArrayList<>();
+        for (CacheLevel level : getLowerLevels()) {
+            levelCounts.add(levelCounts(level));
+        }
 
-                if (policy == WritePolicy.WRITE_BACK) {
-                    block.setDirty(true);
+        // prefetches and lower levels cross set (and so shard) boundaries, so those caches replay
+        // sequentially, as does OPT, whose future follows the trace order
+        ShardedSimulator sharded = shards > 1 && prefetch == null && lower == null && !(cache.getReplacement() instanceof OptReplacement) ? new ShardedSimulator(cache, below, parser, latency, shards) : null;
+        if (sharded != null && sharded.getShards() > 1) {
+            stats.merge(sharded.replay(trace, policy, missPolicy));
+            // the shards changed lines without going through this controller's tracker
+            changes.reset();
+        } else {
+            while (trace.next()) {
+                if (trace.isWrite()) {
+                    write(trace.getAddress(), trace.getValue(), policy, missPolicy);
                 } else {
-                    memory.write(address, value);
+                    read(trace.getAddress());
                 }
-            } else {
-                memory.write(address, value);
             }
         }
+
+        long accesses = (stats.getReads() - reads) + (stats.getWrites() - writes);
+        long replayCycles = stats.getCycles() - cycles;
+        Map<String, Object> result = new HashMap<>();
+        result.put("shards", sharded == null ? 1 : sharded.getShards());
+        result.put("accesses", accesses);
+        result.put("reads", stats.getReads() - reads);
+        result.put("writes", stats.getWrites() - writes);
+        result.put("hits", stats.getHits() - hits);
+        result.put("misses", stats.getMisses() - misses);
+        result.put("evictions", stats.getEvictions() - evictions);
+        result.put("writeBacks", stats.getWriteBacks() - writeBacks);
+        result.put("cycles", replayCycles);
+        result.put("amat", accesses == 0 ? 0.0 : (double) replayCycles / accesses);
+        if (prefetch != null) {
+            long replayUseful = stats.getUsefulPrefetches() - useful;
+            long uncovered = (stats.getMisses() - misses) - (stats.getPrefetchBufferHits() - bufferHits);
+            result.put("prefetches", stats.getPrefetches() - prefetches);
+            result.put("usefulPrefetches", replayUseful);
+            result.put("latePrefetches", stats.getLatePrefetches() - late);
+            result.put("uselessPrefetches", stats.getUselessPrefetches() - useless);
+            result.put("prefetchEvictions", stats.getPrefetchEvictions() - prefetchEvictions);
+            result.put("prefetchWriteBacks", stats.getPrefetchWriteBacks() - prefetchWriteBacks);
+            result.put("prefetchCoverage", StatisticsTracker.prefetchCoverage(replayUseful, uncovered));
+            result.put("prefetchAccuracy", StatisticsTracker.ratio(replayUseful, stats.getPrefetches() - prefetches));
+            result.put("prefetchTimeliness", StatisticsTracker.ratio(replayUseful - (stats.getLatePrefetches() - late), replayUseful));
+        }
+        if (lower != null) {
+            List<Map<String, Object>> levelResults = new ArrayList<>();
+            List<CacheLevel> lowerLevels = getLowerLevels();
+            for (int i = 0; i < lowerLevels.size(); i++) {
+                long[] before = levelCounts.get(i);
+                long[] after = levelCounts(lowerLevels.get(i));
+                Map<String, Object> level = new HashMap<>();
+                level.put("level", i + 2);
+                level.put("reads", after[0] - before[0]);
+                level.put("writes", after[1] - before[1]);
+                level.put("hits", after[2] - before[2]);
+                level.put("misses", after[3] - before[3]);
+                level.put("evictions", after[4] - before[4]);
+                level.put("writeBacks", after[5] - before[5]);
+                level.put("backInvalidations", after[6] - before[6]);
+                long levelAccesses = (after[0] - before[0]) + (after[1] - before[1]);
+                level.put("hitRate", levelAccesses == 0 ? 0.0 : (double) (after[2] - before[2]) / levelAccesses);
+                levelResults.add(level);
+            }
+            result.put("levels", levelResults);
+        }
+        result.put("writePolicy", policy.toString());
+        result.put("missPolicy", missPolicy.toString());
+        result.put("stats", stats);
+        return result;
+    }
+    public Map<String, Object> stackDistance(TraceSource trace, int blockSize, long[] cacheSizes) throws IOException {
+        StackDistanceAnalyzer analyzer = new StackDistanceAnalyzer(blockSize <= 0 ? cache.getBlockSize() : blockSize);
+        analyzer.analyze(trace);
+
+        long[] histogram = analyzer.getHistogram();
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        for (long low = 0, high = 1; low < histogram.length; low = high, high *= 2) {
+            long count = 0;
+            for (long d = low; d < Math.min(high, histogram.length); d++) {
+                count += histogram[(int) d];
+            }
+            Map<String, Object> bucket = new HashMap<>();
+            bucket.put("minDistance", low);
+            bucket.put("maxDistance", high - 1);
+            bucket.put("count", count);
+            buckets.add(bucket);
+        }
+
+        List<Map<String, Object>> curve = new ArrayList<>();
+        if (cacheSizes == null || cacheSizes.length == 0) {
+            for (long lines = 1; lines <= Math.max(1, histogram.length); lines *= 2) {
+                curve.add(curvePoint(analyzer, lines));
+            }
+            if (Long.bitCount(histogram.length) != 1 && histogram.length > 1) {
+                curve.add(curvePoint(analyzer, histogram.length));
+            }
+        } else {
+            for (long size : cacheSizes) {
+                curve.add(curvePoint(analyzer, size / analyzer.getBlockSize()));
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("accesses", analyzer.getAccesses());
+        result.put("blockSize", analyzer.getBlockSize());
+        result.put("distinctBlocks", analyzer.getDistinctBlocks());
+        result.put("coldMisses", analyzer.getColdMisses());
+        result.put("histogram", buckets);
+        result.put("missRatioCurve", curve);
+        return result;
     }
-    private int findBlockIndexInSet(CacheSet set, long tag) {
-        List<CacheBlock> blocks = set.getCacheBlocks();
-        for (int i = 0; i < blocks.size(); i++) {
-            CacheBlock block = blocks.get(i);
-            if (block.isValid() && block.getTag() == tag) {
-                return i;
+    private Map<String, Object> curvePoint(StackDistanceAnalyzer analyzer, long lines) {
+        Map<String, Object> point = new HashMap<>();
+        point.put("lines", lines);
+        point.put("cacheSizeBytes", lines * analyzer.getBlockSize());
+        point.put("hitRatio", analyzer.hitRatio(lines));
+        point.put("missRatio", analyzer.getAccesses() == 0 ? 0.0 : 1.0 - analyzer.hitRatio(lines));
+        return point;
+    }
+    // demandFill, fill and store return the cycles they add on top of the hit latency
+    private int demandFill(int setIndex, int way, long tag, long address) {
+        int wait = prefetch == null ? -1 : prefetch.take(address / cache.getBlockSize(), prefetched);
+        // a block taken from the prefetch buffer was read from below when it was prefetched
+        int writeBack = fill(setIndex, way, tag, wait < 0 ? null : prefetched, true);
+        return (wait < 0 ? fetchCycles() : wait) + writeBack;
+    }
+    // cycles the last fill spent below L1
+    private int fetchCycles() {
+        return lower == null ? latency.getMissPenalty() : lower.getLastReadCycles();
+    }
+    // data is the block's contents, or null to read it from below; victims of prefetch fills are
+    // counted apart from demand evictions
+    private int fill(int setIndex, int way, long tag, byte[] data, boolean demand) {
+        boolean dirty = false;
+        if (cache.isValid(setIndex, way)) {
+            dirty = cache.isDirty(setIndex, way);
+            if (demand) stats.recordEviction(setIndex, dirty);
+            else stats.recordPrefetchEviction(dirty);
+            if (events != null) events.recordEviction(setIndex, way, cache.getTag(setIndex, way), dirty);
+            if (!dirty && lower != null && lower.getInclusion() == InclusionPolicy.EXCLUSIVE) {
+                lower.insertVictim(blockAddress(setIndex, cache.getTag(setIndex, way)), cache.getData(setIndex, way), 0);
             }
         }
-        return -1;
+        if (prefetch != null) prefetch.replaced(line(setIndex, way));
+        if (data == null) {
+            cache.fillWay(setIndex, way, tag, below);
+        } else {
+            cache.writeBack(setIndex, way, below);
+            cache.installWay(setIndex, way, tag, data, 0);
+        }
+        mark(line(setIndex, way));
+        return dirty ? latency.getWriteBackCost() : 0;
+    }
+    private int store(int setIndex, int way, int offset, long address, byte value, WritePolicy policy) {
+        cache.writeByte(setIndex, way, offset, value);
+        mark(line(setIndex, way));
+
+        if (policy == WritePolicy.WRITE_BACK) {
+            cache.setDirty(setIndex, way, true);
+            return 0;
+        }
+        below.write(address, value);
+        return latency.getWriteThroughCost();
+    }
+    // a write miss that does not allocate goes straight to the level below
+    private void writeAround(long address, byte value) {
+        below.write(address, value);
+        if (prefetch != null) prefetch.written(address, value);
     }
-    private boolean isHit(long address) {
+    // runs after a demand access has completed, so prefetch fills never displace the line it used
+    private void charge(boolean write, long address, boolean hit, int cycles) {
+        stats.recordLatency(write, cycles);
+        if (prefetch != null) prefetch.train(address / cache.getBlockSize(), hit, cycles);
+    }
+    // prefetches run in the background: neither the fill nor a dirty victim's write-back is charged
+    private void prefetchLine(long block) {
+        long address = block * cache.getBlockSize();
+        if (block < 0 || address / cache.getBlockSize() != block || address > memory.getSize() - cache.getBlockSize()) return;
+        int setIndex = parser.getSetIndex(address);
         long tag = parser.getTag(address);
+        if (cache.findWay(setIndex, tag) >= 0 || prefetch.buffer(block, latency.getMissPenalty(), below)) return;
+
+        int way = cache.chooseVictim(setIndex);
+        fill(setIndex, way, tag, null, false);
+        prefetch.filled(line(setIndex, way), fetchCycles());
+    }
+    // an inclusive level below is evicting the block; a dirty copy goes down into its victim line
+    private void backInvalidate(long address) {
         int setIndex = parser.getSetIndex(address);
-        return cache.getSet(setIndex).findByTag(tag).isPresent();
+        int way = cache.findWay(setIndex, parser.getTag(address));
+        if (way < 0) return;
+
+        if (events != null) events.recordEviction(setIndex, way, cache.getTag(setIndex, way), cache.isDirty(setIndex, way));
+        cache.writeBack(setIndex, way, below);
+        if (prefetch != null) prefetch.replaced(line(setIndex, way));
+        cache.invalidate(setIndex, way);
+        mark(line(setIndex, way));
+    }
+    private long blockAddress(int setIndex, long tag) {
+        return (tag * cache.getNumSets() + setIndex) * cache.getBlockSize();
+    }
+    private int fillAndReport(int setIndex, int way, long tag, long address, Map<String, Object> result) {
+        if (cache.isValid(setIndex, way)) {
+            result.put("evicted", true);
+            result.put("evictedTag", cache.getTag(setIndex, way));
+            result.put("evictedDirty", cache.isDirty(setIndex, way));
+        } else {
+            result.put("evicted", false);
+        }
+        return demandFill(setIndex, way, tag, address);
     }
     public Map<String, Object> readStats(long address) {
+        checkAddress(address);
+        requireFuture();
         long tag = parser.getTag(address);
         int setIndex = parser.getSetIndex(address);
         int offset = (int) parser.getBlockOffset(address);
-        CacheSet cacheSet = cache.getSet(setIndex);
 
-        Optional<CacheBlock> blockOpt = cacheSet.findByTag(tag);
-        boolean hit = blockOpt.isPresent();
+        int way = cache.findWay(setIndex, tag);
+        boolean hit = way >= 0;
 
         Map<String, Object> result = getAccessDetails(address, "READ");
         result.put("hit", hit);
         result.put("stats", stats);
 
+        int cycles = latency.getHitLatency();
         if (hit) {
-            CacheBlock block = blockOpt.get();
-            cacheSet.getReplacement().onAccess(block);
+            cache.touch(setIndex, way);
             stats.recordReads(true);
-
-            result.put("value", block.getData()[offset]);
-            result.put("wayIndex", findBlockIndexInSet(cacheSet, tag));
+            if (prefetch != null) cycles += prefetch.use(line(setIndex, way));
             result.put("evicted", false);
         } else {
             stats.recordReads(false);
-
-            CacheSet.CacheAllocationResult allocResult = cacheSet.allocateBlock(tag, setIndex, cache.getNumSets(), memory, parser);
-            CacheBlock newBlock = allocResult.getAllocatedBlock();
-            CacheBlock evictedBlock = allocResult.getEvictedBlock();
-
-            result.put("value", newBlock.getData()[offset]);
-            result.put("wayIndex", findBlockIndexInSet(cacheSet, tag));
-
-            if (evictedBlock != null) {
-                result.put("evicted", true);
-                result.put("evictedTag", evictedBlock.getTag());
-                result.put("evictedDirty", evictedBlock.isDirty());
-            } else {
-                result.put("evicted", false);
-            }
+            way = cache.chooseVictim(setIndex);
+            cycles += fillAndReport(setIndex, way, tag, address, result);
         }
+        if (events != null) events.recordAccess(false, address, setIndex, way, hit);
 
+        result.put("cycles", cycles);
+        result.put("value", cache.readByte(setIndex, way, offset));
+        result.put("wayIndex", way);
+        charge(false, address, hit, cycles);
         return result;
     }
     public Map<String, Object> writeStats(long address, byte value, WritePolicy policy, WriteMissPolicy missPolicy) {
+        checkAddress(address);
+        requireFuture();
         long tag = parser.getTag(address);
         int setIndex = parser.getSetIndex(address);
         int offset = (int) parser.getBlockOffset(address);
-        CacheSet cacheSet = cache.getSet(setIndex);
 
-        Optional<CacheBlock> blockOpt = cacheSet.findByTag(tag);
-        boolean hit = blockOpt.isPresent();
+        int way = cache.findWay(setIndex, tag);
+        boolean hit = way >= 0;
 
         Map<String, Object> result = getAccessDetails(address, "WRITE");
         result.put("hit", hit);
@@ -157,71 +511,213 @@ public class SimulatorController {
         result.put("stats", stats);
         result.put("value", value);
 
+        int cycles = latency.getHitLatency();
         if (hit) {
-            CacheBlock block = blockOpt.get();
-            cacheSet.getReplacement().onAccess(block);
-            block.getData()[offset] = value;
-            if (policy == WritePolicy.WRITE_BACK) block.setDirty(true);
-            else memory.write(address, value);
-
+            cache.touch(setIndex, way);
             stats.recordWrites(true);
-            result.put("wayIndex", findBlockIndexInSet(cacheSet, tag));
+            if (prefetch != null) cycles += prefetch.use(line(setIndex, way));
             result.put("evicted", false);
         } else {
             stats.recordWrites(false);
 
-            if (missPolicy == WriteMissPolicy.WRITE_ALLOCATE) {
-                CacheSet.CacheAllocationResult allocResult = cacheSet.allocateBlock(tag, setIndex, cache.getNumSets(), memory, parser);
-                CacheBlock block = allocResult.getAllocatedBlock();
-                CacheBlock evictedBlock = allocResult.getEvictedBlock();
-
-                block.getData()[offset] = value;
-                if (policy == WritePolicy.WRITE_BACK) block.setDirty(true);
-                else memory.write(address, value);
-
-                result.put("wayIndex", findBlockIndexInSet(cacheSet, tag));
-
-                if (evictedBlock != null) {
-                    result.put("evicted", true);
-                    result.put("evictedTag", evictedBlock.getTag());
-                    result.put("evictedDirty", evictedBlock.isDirty());
-                } else {
-                    result.put("evicted", false);
-                }
-            } else {
-                memory.write(address, value);
+            if (missPolicy != WriteMissPolicy.WRITE_ALLOCATE) {
+                writeAround(address, value);
+                cycles += latency.getWriteThroughCost();
+                if (events != null) events.recordAccess(true, address, setIndex, -1, false);
+                result.put("cycles", cycles);
                 result.put("wayIndex", -1);
                 result.put("evicted", false);
+                charge(true, address, false, cycles);
+                return result;
             }
+            way = cache.chooseVictim(setIndex);
+            cycles += fillAndReport(setIndex, way, tag, address, result);
         }
+        if (events != null) events.recordAccess(true, address, setIndex, way, hit);
+
+        cycles += store(setIndex, way, offset, address, value, policy);
+        result.put("cycles", cycles);
+        result.put("wayIndex", way);
+        charge(true, address, hit, cycles);
         return result;
     }
     public void flush() {
         for (int i = 0; i < cache.getNumSets(); i++) {
-            for (CacheBlock block : cache.getSet(i).getCacheBlocks()) {
-                if (block.isValid() && block.isDirty()) {
-                    for (int j = 0; j < cache.getBlockSize(); j++) {
-                        long address = (block.getTag() * cache.getNumSets() + i) * cache.getBlockSize() + j;
-                        memory.write(address, block.getData()[j]);
-                    }
-                    block.setDirty(false);
+            for (int way = 0; way < cache.getAssociativity(); way++) {
+                if (cache.isValid(i, way) && cache.isDirty(i, way)) {
+                    cache.writeBack(i, way, below);
+                    mark(line(i, way));
                 }
             }
         }
+        if (lower != null) lower.flush();
     }
     public void reconfigure(int cacheSizeBytes, int blockSize, int associativity, String policyName) {
-        Optional<ReplacementPolicy> policyOpt = ChooseReplacement.create(policyName);
-        if (policyOpt.isEmpty()) throw new IllegalArgumentException("Invalid replacement policy");
+        reconfigure(cacheSizeBytes, blockSize, associativity, policyName, CacheStorageType.OBJECT);
+    }
+    public void reconfigure(int cacheSizeBytes, int blockSize, int associativity, String policyName, CacheStorageType storage) {
+        SimulatorController next = reconfigured(cacheSizeBytes, blockSize, associativity, policyName, storage);
+
+        this.cache = next.cache;
+        this.parser = next.parser;
+        this.stats = next.stats;
+        this.changes = next.changes;
+        setPrefetcher(next.getPrefetcher(), next.getPrefetchDegree());
+        setLevels(next.levels);
+    }
+    public SimulatorController reconfigured(int cacheSizeBytes, int blockSize, int associativity, String policyName, CacheStorageType storage,
+                                           LatencyModel latency, PrefetcherType prefetcher, int prefetchDegree, List<LevelConfig> levels) {
+        SimulatorController next = reconfigured(cacheSizeBytes, blockSize, associativity, policyName, storage);
+        next.setLatency(latency);
+        next.setPrefetcher(prefetcher, prefetchDegree);
+        next.setLevels(levels);
+        return next;
+    }
+    public SimulatorController reconfigured(int cacheSizeBytes, int blockSize, int associativity, String policyName, CacheStorageType storage) {
+        CacheStorage newCache = createCache(cacheSizeBytes, blockSize, associativity, policyName, storage);
+        // continue the version sequence so clients holding an old version are told to resync
+        SimulatorController next = new SimulatorController(newCache, memory, new AddressParser(blockSize, newCache.getNumSets()), writePolicy,
+                stats.renew(newCache.getNumSets()), new ChangeTracker(newCache.getNumSets() * newCache.getAssociativity(), changes.getVersion() + 1));
+        next.latency = latency;
+        next.setPrefetcher(getPrefetcher(), getPrefetchDegree());
+        next.setLevels(levels);
+        return next;
+    }
+    public static CacheStorage createCache(int cacheSizeBytes, int blockSize, int associativity, String policyName, CacheStorageType storage) {
+        validateCache(cacheSizeBytes, blockSize, associativity, policyName, storage);
+        return storage.create(cacheSizeBytes, blockSize, associativity, ChooseReplacement.create(policyName).get());
+    }
+    public static void validateCache(int cacheSizeBytes, int blockSize, int associativity, String policyName, CacheStorageType storage) {
+        if (ChooseReplacement.create(policyName).isEmpty()) throw new IllegalArgumentException("Invalid replacement policy");
 
+        if (blockSize <= 0 || associativity <= 0 || storage == null) throw new IllegalArgumentException("Invalid cache configuration");
         int nrSets = (cacheSizeBytes / blockSize) / associativity;
         if (nrSets <= 0) throw new IllegalArgumentException("Invalid cache configuration");
-
-        this.cache = new Cache(cacheSizeBytes, blockSize, associativity, policyOpt.get());
-        this.parser = new AddressParser(blockSize, nrSets);
-        this.stats = new StatisticsTracker();
+        storage.validate(nrSets, blockSize, associativity);
     }
-    public Cache getCache() { return cache; }
+    public CacheStorage getCache() { return cache; }
     public StatisticsTracker getStats() { return stats; }
+    public MainMemory getMemory() { return memory; }
+    public long getVersion() { return changes.getVersion(); }
+    public LatencyModel getLatency() { return latency; }
+    public void setLatency(LatencyModel latency) {
+        this.latency = latency.validate();
+        if (lower != null) lower.setMemoryLatency(latency.getMissPenalty());
+    }
+    public PrefetcherType getPrefetcher() { return prefetch == null ? PrefetcherType.NONE : prefetch.getType(); }
+    public int getPrefetchDegree() { return prefetch == null ? 1 : prefetch.getDegree(); }
+    PrefetchStage getPrefetchStage() { return prefetch; }
+    // starts an untrained prefetcher; NONE turns prefetching off
+    public void setPrefetcher(PrefetcherType type, int degree) {
+        Prefetcher prefetcher = type.create(cache.getBlockSize(), degree);
+        this.prefetch = prefetcher == null ? null
+                : new PrefetchStage(prefetcher, degree, cache.getNumSets() * cache.getAssociativity(), cache.getBlockSize(), stats, this::prefetchLine);
+        this.prefetched = prefetcher == null ? null : new byte[cache.getBlockSize()];
+    }
+    public List<LevelConfig> getLevels() { return levels; }
+    // a cold tag-only cache with this one's geometry, policy, latencies, prefetcher and levels, for
+    // one-off hit-rate runs that leave this controller untouched
+    public SimulatorController tagOnlyCopy() {
+        int cacheSizeBytes = cache.getNumSets() * cache.getAssociativity() * cache.getBlockSize();
+        return reconfigured(cacheSizeBytes, cache.getBlockSize(), cache.getAssociativity(), ChooseReplacement.nameOf(cache.getReplacement()),
+                CacheStorageType.TAG_ONLY, latency, getPrefetcher(), getPrefetchDegree(), levels);
+    }
+    public boolean isTagOnly() { return CacheStorageType.of(cache) == CacheStorageType.TAG_ONLY; }
+    public List<CacheLevel> getLowerLevels() {
+        List<CacheLevel> result = new ArrayList<>();
+        for (MainMemory level = lower; level instanceof CacheLevel; level = ((CacheLevel) level).getNext()) {
+            result.add((CacheLevel) level);
+        }
+        return result;
+    }
+    // replaces the levels below L1 (L2 first) with cold ones; an empty list leaves L1 in front of memory
+    public void setLevels(List<LevelConfig> levels) {
+        List<LevelConfig> configs = levels == null ? List.of() : List.copyOf(levels);
+        if (configs.size() > LevelConfig.MAX_LEVELS) throw new IllegalArgumentException("At most " + LevelConfig.MAX_LEVELS + " cache levels below L1");
+        for (LevelConfig config : configs) {
+            config.validate(cache.getBlockSize(), CacheStorageType.of(cache));
+        }
+
+        // below a tag-only L1 no level has data to pass on, so they are all tag-only too
+        MainMemory next = isTagOnly() ? new NullMainMemory() : memory;
+        for (int i = configs.size() - 1; i >= 0; i--) {
+            LevelConfig config = configs.get(i);
+            CacheStorage storage = createCache(config.getCacheSizeBytes(), cache.getBlockSize(), config.getAssociativity(),
+                    config.getReplacementPolicy(), isTagOnly() ? CacheStorageType.TAG_ONLY : config.getStorage());
+            next = new CacheLevel(storage, next, config.getInclusion(), config.getWritePolicy(), config.getHitLatency(), latency.getMissPenalty());
+        }
+        this.levels = configs;
+        this.lower = next instanceof CacheLevel ? (CacheLevel) next : null;
+        this.below = next;
+
+        BlockInvalidator upper = this::backInvalidate;
+        for (CacheLevel level : getLowerLevels()) {
+            level.setUpper(upper);
+            upper = level;
+        }
+    }
+    // per-level configuration and counters, L1 first, and the AMAT of the whole hierarchy
+    public Map<String, Object> getHierarchy() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        // L1's write policy is chosen per write, so it has none to report
+        result.add(levelInfo(1, cache, stats, latency.getHitLatency()));
+        for (CacheLevel level : getLowerLevels()) {
+            Map<String, Object> info = levelInfo(result.size() + 1, level.getCache(), level.getStats(), level.getHitLatency());
+            info.put("inclusion", level.getInclusion().toString());
+            info.put("writePolicy", level.getWritePolicy().toString());
+            info.put("backInvalidations", level.getBackInvalidations());
+            result.add(info);
+        }
+
+        Map<String, Object> hierarchy = new HashMap<>();
+        hierarchy.put("levels", result);
+        hierarchy.put("memoryLatency", latency.getMissPenalty());
+        hierarchy.put("cycles", stats.getCycles());
+        hierarchy.put("amat", stats.amat());
+        return hierarchy;
+    }
+    private static long[] levelCounts(CacheLevel level) {
+        StatisticsTracker levelStats = level.getStats();
+        return new long[] { levelStats.getReads(), levelStats.getWrites(), levelStats.getHits(), levelStats.getMisses(),
+                levelStats.getEvictions(), levelStats.getWriteBacks(), level.getBackInvalidations() };
+    }
+    private static Map<String, Object> levelInfo(int level, CacheStorage cache, StatisticsTracker stats, int hitLatency) {
+        Map<String, Object> info = new HashMap<>();
+        info.put("level", level);
+        info.put("cacheSizeBytes", cache.getNumSets() * cache.getAssociativity() * cache.getBlockSize());
+        info.put("associativity", cache.getAssociativity());
+        info.put("replacementPolicy", ChooseReplacement.nameOf(cache.getReplacement()));
+        info.put("hitLatency", hitLatency);
+        info.put("reads", stats.getReads());
+        info.put("writes", stats.getWrites());
+        info.put("hits", stats.getHits());
+        info.put("misses", stats.getMisses());
+        info.put("evictions", stats.getEvictions());
+        info.put("writeBacks", stats.getWriteBacks());
+        info.put("hitRate", stats.hitRate());
+        return info;
+    }
+    // evictions are reported before the miss that caused them
+    public void setEvents(AccessEventBuffer events) { this.events = events; }
+    private int line(int setIndex, int way) {
+        return setIndex * cache.getAssociativity() + way;
+    }
+    private void mark(int line) {
+        if (changes != null) changes.mark(line);
+    }
+    // traces and workloads only produce non-negative addresses; single accesses and batches are checked here
+    private static void checkAddress(long address) {
+        if (address < 0) throw new IllegalArgumentException("Address must not be negative");
+    }
+    // without a future every OPT stamp is NEVER, so its choices would be arbitrary
+    private void requireFuture() {
+        if (cache.getReplacement() instanceof OptReplacement && !((OptReplacement) cache.getReplacement()).hasFuture()) {
+            throw new IllegalArgumentException("OPT replacement needs a stored trace or a workload");
+        }
+    }
+    private static void close(TraceSource trace) throws IOException {
+        if (trace instanceof Closeable) ((Closeable) trace).close();
+    }
     private Map<String, Object> getAccessDetails(long address, String op) {
         Map<String, Object> details = new HashMap<>();
         details.put("address", address);
@@ -234,19 +730,19 @@ public class SimulatorController {
         return details;
     }
     public Map<String, Object> getCacheState() {
-        Map<String, Object> state = new HashMap<>();
-        CacheSet[] sets = cache.getSets();
+        return getCacheState(0, cache.getNumSets());
+    }
+    public Map<String, Object> getCacheState(int fromSet, int limit) {
+        if (fromSet < 0 || limit < 0) throw new IllegalArgumentException("Invalid set range");
+        int toSet = (int) Math.min(cache.getNumSets(), (long) fromSet + limit);
+
+        Map<String, Object> state = getGeometry();
         List<Map<String, Object>> setsData = new ArrayList<>();
 
-        for (CacheSet set : sets) {
+        for (int i = fromSet; i < toSet; i++) {
             List<Map<String, Object>> blocksData = new ArrayList<>();
-            for (CacheBlock block : set.getCacheBlocks()) {
-                Map<String, Object> blockInfo = new HashMap<>();
-                blockInfo.put("valid", block.isValid());
-                blockInfo.put("dirty", block.isDirty());
-                blockInfo.put("tag", block.getTag());
-                blockInfo.put("data", block.getData());
-                blocksData.add(blockInfo);
+            for (int way = 0; way < cache.getAssociativity(); way++) {
+                blocksData.add(getLineInfo(i, way));
             }
             Map<String, Object> setInfo = new HashMap<>();
             setInfo.put("cacheBlocks", blocksData);
@@ -254,10 +750,49 @@ public class SimulatorController {
         }
 
         state.put("sets", setsData);
+        state.put("fromSet", fromSet);
+        state.put("nextSet", toSet < cache.getNumSets() ? toSet : null);
+        return state;
+    }
+    public Map<String, Object> getCacheChanges(long since) {
+        Map<String, Object> state = getGeometry();
+        state.put("since", since);
+
+        if (!changes.isCurrent(since)) {
+            state.put("reset", true);
+            state.put("lines", List.of());
+            return state;
+        }
+
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (int line : changes.changedSince(since)) {
+            int setIndex = line / cache.getAssociativity();
+            int way = line % cache.getAssociativity();
+            Map<String, Object> lineInfo = getLineInfo(setIndex, way);
+            lineInfo.put("setIndex", setIndex);
+            lineInfo.put("wayIndex", way);
+            lines.add(lineInfo);
+        }
+        state.put("reset", false);
+        state.put("lines", lines);
+        return state;
+    }
+    private Map<String, Object> getGeometry() {
+        Map<String, Object> state = new HashMap<>();
+        state.put("version", changes.getVersion());
         state.put("numSets", cache.getNumSets());
         state.put("blockSize", cache.getBlockSize());
         state.put("associativity", cache.getAssociativity());
-
+        state.put("storage", CacheStorageType.of(cache).toString());
+        state.put("prefetcher", getPrefetcher().toString());
         return state;
     }
+    private Map<String, Object> getLineInfo(int setIndex, int way) {
+        Map<String, Object> blockInfo = new HashMap<>();
+        blockInfo.put("valid", cache.isValid(setIndex, way));
+        blockInfo.put("dirty", cache.isDirty(setIndex, way));
+        blockInfo.put("tag", cache.getTag(setIndex, way));
+        blockInfo.put("data", cache.getData(setIndex, way));
+        return blockInfo;
+    }
 }
@@ -0,0 +1,99 @@
+package controller;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// Hands every client id its own SimulatorSession.
+public class SimulatorRegistry {
+    public static final String DEFAULT_SESSION = "default";
+    private static final Pattern SESSION_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, SimulatorSession> sessions = new ConcurrentHashMap<>();
+    // slots are reserved inside computeIfAbsent, so concurrent first requests cannot overshoot maxSessions
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final SimulatorSession defaultSession;
+    private final Supplier<SimulatorController> factory;
+    private final int maxSessions;
+    private final long idleTimeoutNanos;
+    private volatile long lastSweep = System.nanoTime();
+
+    public SimulatorRegistry(SimulatorController defaultController, Supplier<SimulatorController> factory, int maxSessions, long idleTimeoutMillis) {
+        this.defaultSession = new SimulatorSession(DEFAULT_SESSION, defaultController);
+        this.factory = factory;
+        this.maxSessions = maxSessions;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+    }
+    public SimulatorSession get(String id) {
+        if (isDefault(id)) {
+            return defaultSession;
+        }
+        checkId(id);
+
+        long now = System.nanoTime();
+        if (now - lastSweep > SWEEP_INTERVAL_NANOS) {
+            lastSweep = now;
+            evictIdle(now);
+        }
+
+        SimulatorSession session = sessions.get(id);
+        if (session != null) {
+            return session;
+        }
+        if (reserved.get() >= maxSessions) {
+            evictIdle(now);
+        }
+        return sessions.computeIfAbsent(id, key -> {
+            if (reserved.incrementAndGet() > maxSessions) {
+                reserved.decrementAndGet();
+                throw new IllegalStateException("Too many simulator sessions");
+            }
+            try {
+                return new SimulatorSession(key, factory.get());
+            } catch (RuntimeException | Error e) {
+                reserved.decrementAndGet();
+                throw e;
+            }
+        });
+    }
+    // an existing session, or null; never creates one
+    public SimulatorSession find(String id) {
+        if (isDefault(id)) {
+            return defaultSession;
+        }
+        checkId(id);
+        return sessions.get(id);
+    }
+    // the removed session, or null if there was none
+    public SimulatorSession remove(String id) {
+        SimulatorSession removed = sessions.remove(id);
+        if (removed != null) {
+            reserved.decrementAndGet();
+        }
+        return removed;
+    }
+    public int size() {
+        return sessions.size() + 1;
+    }
+    // sessions with /events subscribers count as active
+    private void evictIdle(long now) {
+        for (SimulatorSession session : sessions.values()) {
+            if (!session.isBusy() && !session.getEvents().isEnabled() && now - session.getLastAccess() > idleTimeoutNanos
+                    && sessions.remove(session.getId(), session)) {
+                reserved.decrementAndGet();
+            }
+        }
+    }
+    private static boolean isDefault(String id) {
+        return id == null || id.isEmpty() || id.equals(DEFAULT_SESSION);
+    }
+    private static void checkId(String id) {
+        if (!SESSION_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid session id");
+        }
+    }
+}
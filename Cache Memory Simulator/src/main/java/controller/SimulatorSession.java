@@ -0,0 +1,105 @@
+package controller;
+
+import model.cache.CacheStorageType;
+import model.prefetch.PrefetcherType;
+import model.statistics.LatencyModel;
+import model.statistics.StatisticsTracker;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// One client's simulator; operations run under the lock of the current epoch.
+public class SimulatorSession {
+    // newest access events kept per batch for /events subscribers
+    private static final int EVENT_BATCH = 256;
+
+    private final String id;
+    private final AtomicReference<Epoch> epoch;
+    private final AccessEventBuffer events = new AccessEventBuffer(EVENT_BATCH);
+    private volatile long lastAccess;
+
+    public SimulatorSession(String id, SimulatorController controller) {
+        this.id = id;
+        controller.setEvents(events);
+        this.epoch = new AtomicReference<>(new Epoch(controller, 0));
+        this.lastAccess = System.nanoTime();
+    }
+    public <T> T execute(Operation<T> operation) throws IOException {
+        lastAccess = System.nanoTime();
+        Epoch current = lockCurrent();
+        try {
+            return operation.apply(current.controller);
+        } finally {
+            current.lock.unlock();
+            lastAccess = System.nanoTime();
+        }
+    }
+    public long reconfigure(int cacheSizeBytes, int blockSize, int associativity, String policyName, CacheStorageType storage,
+                            LatencyModel latency, PrefetcherType prefetcher, int prefetchDegree, List<LevelConfig> levels) throws IOException {
+        return replace(c -> c.reconfigured(cacheSizeBytes, blockSize, associativity, policyName, storage, latency,
+                prefetcher, prefetchDegree, levels));
+    }
+    // builds the next controller under the current epoch's lock, e.g. when it rewrites shared memory
+    public long replace(Operation<SimulatorController> builder) throws IOException {
+        lastAccess = System.nanoTime();
+        Epoch current = lockCurrent();
+        try {
+            SimulatorController next = builder.apply(current.controller);
+            next.setEvents(events);
+            Epoch replacement = new Epoch(next, current.number + 1);
+            // only the holder of the current epoch's lock swaps, so this cannot fail
+            if (!epoch.compareAndSet(current, replacement)) throw new IllegalStateException("Concurrent epoch change");
+            return replacement.number;
+        } finally {
+            current.lock.unlock();
+            lastAccess = System.nanoTime();
+        }
+    }
+    public String getId() {
+        return id;
+    }
+    public long getEpoch() {
+        return epoch.get().number;
+    }
+    public AccessEventBuffer getEvents() {
+        return events;
+    }
+    // the counters are safe to read while an operation is running, so this does not wait for the lock
+    public StatisticsTracker getStats() {
+        return epoch.get().controller.getStats();
+    }
+    public long getLastAccess() {
+        return lastAccess;
+    }
+    public boolean isBusy() {
+        return epoch.get().lock.isLocked();
+    }
+
+    // locks the current epoch, retrying if it was replaced while this thread waited for the lock
+    private Epoch lockCurrent() {
+        while (true) {
+            Epoch current = epoch.get();
+            current.lock.lock();
+            if (epoch.get() == current) return current;
+            current.lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Operation<T> {
+        T apply(SimulatorController controller) throws IOException;
+    }
+
+    private static final class Epoch {
+        private final SimulatorController controller;
+        private final long number;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Epoch(SimulatorController controller, long number) {
+            this.controller = controller;
+            this.number = number;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded single-producer/single-consumer queue of trace records. Each side keeps its own index
+// and a cached copy of the other side's, so the atomics are only read when the cache runs out.
+public class SpscRingBuffer {
+    private final long[] addresses;
+    private final byte[] values;
+    private final boolean[] writes;
+    private final int[] cores;
+    private final int mask;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private volatile boolean closed = false;
+
+    private long writeIndex = 0;
+    private long cachedConsumed = 0;
+
+    private long readIndex = 0;
+    private long cachedPublished = 0;
+    private boolean write;
+    private long address;
+    private byte value;
+    private int core;
+
+    public SpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.addresses = new long[size];
+        this.values = new byte[size];
+        this.writes = new boolean[size];
+        this.cores = new int[size];
+        this.mask = size - 1;
+    }
+    public boolean offer(boolean write, long address, byte value) {
+        return offer(write, address, value, 0);
+    }
+    public boolean offer(boolean write, long address, byte value, int core) {
+        if (writeIndex - cachedConsumed > mask) {
+            cachedConsumed = consumed.get();
+            if (writeIndex - cachedConsumed > mask) {
+                return false;
+            }
+        }
+        int slot = (int) writeIndex & mask;
+        writes[slot] = write;
+        addresses[slot] = address;
+        values[slot] = value;
+        cores[slot] = core;
+        published.lazySet(++writeIndex);
+        return true;
+    }
+    public void put(boolean write, long address, byte value) {
+        put(write, address, value, 0);
+    }
+    public void put(boolean write, long address, byte value, int core) {
+        int spins = 0;
+        while (!offer(write, address, value, core)) {
+            spins = backOff(spins);
+        }
+    }
+    public boolean poll() {
+        if (readIndex == cachedPublished) {
+            cachedPublished = published.get();
+            if (readIndex == cachedPublished) {
+                return false;
+            }
+        }
+        int slot = (int) readIndex & mask;
+        write = writes[slot];
+        address = addresses[slot];
+        value = values[slot];
+        core = cores[slot];
+        consumed.lazySet(++readIndex);
+        return true;
+    }
+    // Blocks until a record is available; returns false once the producer closed and the queue drained.
+    public boolean take() {
+        int spins = 0;
+        while (!poll()) {
+            if (closed && published.get() == readIndex) {
+                return false;
+            }
+            spins = backOff(spins);
+        }
+        return true;
+    }
+    public void close() {
+        closed = true;
+    }
+    public boolean isWrite() {
+        return write;
+    }
+    public long getAddress() {
+        return address;
+    }
+    public byte getValue() {
+        return value;
+    }
+    public int getCore() {
+        return core;
+    }
+    private static int backOff(int spins) {
+        if (spins < 100) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+        return spins + 1;
+    }
+}
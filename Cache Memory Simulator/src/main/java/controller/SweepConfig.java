@@ -0,0 +1,86 @@
+package controller;
+
+import model.cache.CacheStorageType;
+import model.prefetch.PrefetcherType;
+
+import java.util.List;
+
+public class SweepConfig {
+    private int cacheSizeBytes;
+    private int blockSize;
+    private int associativity;
+    private String replacementPolicy = "LRU";
+    private CacheStorageType storage = CacheStorageType.FLAT;
+    private PrefetcherType prefetcher = PrefetcherType.NONE;
+    private int prefetchDegree = 1;
+    private List<LevelConfig> levels = List.of();
+
+    public SweepConfig() {}
+    // the checks building this configuration would fail on, without allocating its cache
+    public void validate() {
+        SimulatorController.validateCache(cacheSizeBytes, blockSize, associativity, replacementPolicy, storage);
+        if (prefetcher == null) throw new IllegalArgumentException("Invalid prefetcher");
+        prefetcher.validate(prefetchDegree);
+        if (levels.size() > LevelConfig.MAX_LEVELS) {
+            throw new IllegalArgumentException("At most " + LevelConfig.MAX_LEVELS + " cache levels below L1");
+        }
+        for (LevelConfig level : levels) {
+            if (level == null) throw new IllegalArgumentException("Invalid cache level");
+            level.validate(blockSize, storage);
+        }
+        if (isOpt() && prefetcher != PrefetcherType.NONE) {
+            throw new IllegalArgumentException("OPT replacement cannot be combined with prefetching");
+        }
+    }
+    boolean isOpt() {
+        return "OPT".equalsIgnoreCase(replacementPolicy);
+    }
+    public int getCacheSizeBytes() {
+        return cacheSizeBytes;
+    }
+    public void setCacheSizeBytes(int cacheSizeBytes) {
+        this.cacheSizeBytes = cacheSizeBytes;
+    }
+    public int getBlockSize() {
+        return blockSize;
+    }
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+    public int getAssociativity() {
+        return associativity;
+    }
+    public void setAssociativity(int associativity) {
+        this.associativity = associativity;
+    }
+    public String getReplacementPolicy() {
+        return replacementPolicy;
+    }
+    public void setReplacementPolicy(String replacementPolicy) {
+        this.replacementPolicy = replacementPolicy;
+    }
+    public CacheStorageType getStorage() {
+        return storage;
+    }
+    public void setStorage(CacheStorageType storage) {
+        this.storage = storage;
+    }
+    public PrefetcherType getPrefetcher() {
+        return prefetcher;
+    }
+    public void setPrefetcher(PrefetcherType prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+    public int getPrefetchDegree() {
+        return prefetchDegree;
+    }
+    public void setPrefetchDegree(int prefetchDegree) {
+        this.prefetchDegree = prefetchDegree;
+    }
+    public List<LevelConfig> getLevels() {
+        return levels;
+    }
+    public void setLevels(List<LevelConfig> levels) {
+        this.levels = levels == null ? List.of() : levels;
+    }
+}
@@ -0,0 +1,109 @@
+package controller;
+
+import model.address.AddressParser;
+import model.cache.CacheStorage;
+import model.memory.PagedMainMemory;
+import model.statistics.LatencyModel;
+import model.statistics.StatisticsTracker;
+import model.trace.NextUseIndex;
+import model.trace.TraceBuffer;
+import model.trace.TraceSource;
+import model.write.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+// Replays one decoded trace against many cache configurations in parallel.
+public class SweepEngine implements AutoCloseable {
+    private final ForkJoinPool pool;
+    private final int maxConfigs;
+
+    public SweepEngine(int parallelism, int maxConfigs) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.maxConfigs = maxConfigs;
+    }
+    public List<Map<String, Object>> run(TraceBuffer trace, List<SweepConfig> configs, WritePolicy policy, WriteMissPolicy missPolicy, LatencyModel latency) {
+        return run(trace::cursor, configs, policy, missPolicy, latency);
+    }
+    public List<Map<String, Object>> run(Supplier<TraceSource> traces, List<SweepConfig> configs, WritePolicy policy, WriteMissPolicy missPolicy, LatencyModel latency) {
+        latency.validate();
+        if (configs.size() > maxConfigs) throw new IllegalArgumentException("Sweep exceeds " + maxConfigs + " configurations");
+        // caches are only allocated inside the tasks, so at most `parallelism` of them exist at once
+        for (SweepConfig config : configs) {
+            if (config == null) throw new IllegalArgumentException("Invalid sweep configuration");
+            config.validate();
+        }
+
+        Map<Integer, NextUseIndex> futures = new HashMap<>();
+        List<Callable<Map<String, Object>>> tasks = new ArrayList<>(configs.size());
+        for (SweepConfig config : configs) {
+            NextUseIndex future = null;
+            if (config.isOpt()) {
+                future = futures.get(config.getBlockSize());
+                if (future == null) {
+                    future = nextUses(traces.get(), config.getBlockSize());
+                    futures.put(config.getBlockSize(), future);
+                }
+            }
+            NextUseIndex nextUses = future;
+            tasks.add(() -> simulate(traces.get(), nextUses, config, policy, missPolicy, latency));
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<Map<String, Object>> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Sweep interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Sweep failed", e.getCause());
+        }
+        return results;
+    }
+    private static NextUseIndex nextUses(TraceSource trace, int blockSize) {
+        try {
+            return NextUseIndex.build(trace, blockSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    private static Map<String, Object> simulate(TraceSource trace, NextUseIndex future, SweepConfig config, WritePolicy policy,
+                                                WriteMissPolicy missPolicy, LatencyModel latency) throws IOException {
+        long start = System.nanoTime();
+        CacheStorage cache = SimulatorController.createCache(config.getCacheSizeBytes(), config.getBlockSize(),
+                config.getAssociativity(), config.getReplacementPolicy(), config.getStorage());
+        SimulatorController controller = new SimulatorController(cache, new PagedMainMemory(),
+                new AddressParser(cache.getBlockSize(), cache.getNumSets()), policy, new StatisticsTracker());
+        controller.setLatency(latency);
+        controller.setPrefetcher(config.getPrefetcher(), config.getPrefetchDegree());
+        controller.setLevels(config.getLevels());
+        Map<String, Object> result = future == null ? controller.replayTrace(trace, policy, missPolicy)
+                : controller.replayTrace(trace, future, policy, missPolicy);
+
+        result.remove("stats");
+        result.remove("writePolicy");
+        result.remove("missPolicy");
+        result.put("cacheSizeBytes", config.getCacheSizeBytes());
+        result.put("blockSize", config.getBlockSize());
+        result.put("associativity", config.getAssociativity());
+        result.put("replacementPolicy", config.getReplacementPolicy().toUpperCase());
+        result.put("storage", config.getStorage().toString());
+        result.put("prefetcher", config.getPrefetcher().toString());
+        result.put("prefetchDegree", config.getPrefetchDegree());
+        result.put("hitRate", controller.getStats().hitRate());
+        result.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,8 @@
+package model.cache;
+
+// Removes a block from a cache level and every level above it. Dirty copies are written back to
+// the level below first, so the data survives in the level that is evicting the block.
+@FunctionalInterface
+public interface BlockInvalidator {
+    void invalidate(long address);
+}
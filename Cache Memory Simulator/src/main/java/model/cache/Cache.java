@@ -1,35 +1,106 @@
 package model.cache;
 
+import model.memory.MainMemory;
 import model.replacement.ReplacementPolicy;
+import model.replacement.ReplacementPolicyFactory;
 
-public class Cache {
+public class Cache implements CacheStorage {
     private final int blockSize;
     private final int nrSets;
     private final int associativity;
     private final CacheSet[] sets;
+    private final ReplacementPolicy replacement;
 
-    public Cache(int cacheSizeBytes, int blockSize, int associativity, ReplacementPolicy policy) {
+    public Cache(int cacheSizeBytes, int blockSize, int associativity, ReplacementPolicyFactory policy) {
         this.blockSize = blockSize;
         this.associativity = associativity;
         this.nrSets = (cacheSizeBytes / blockSize) / associativity;
+        this.replacement = policy.create(nrSets, associativity);
         this.sets = new CacheSet[nrSets];
         for (int i=0;i<nrSets;i++){
-            sets[i] = new CacheSet(associativity, blockSize, policy);
+            sets[i] = new CacheSet(i, associativity, blockSize, replacement);
         }
     }
     public CacheSet getSet(int index) {
         return sets[index];
     }
+    @Override
     public int getBlockSize() {
         return blockSize;
     }
+    @Override
     public int getNumSets() {
         return nrSets;
     }
+    @Override
     public int getAssociativity() {
         return associativity;
     }
+    @Override
+    public ReplacementPolicy getReplacement() {
+        return replacement;
+    }
     public CacheSet[] getSets() {
         return sets;
     }
+    @Override
+    public int findWay(int setIndex, long tag) {
+        return sets[setIndex].findWay(tag);
+    }
+    @Override
+    public int chooseVictim(int setIndex) {
+        return sets[setIndex].chooseVictim();
+    }
+    @Override
+    public void fillWay(int setIndex, int way, long tag, MainMemory memory) {
+        sets[setIndex].fillWay(way, tag, setIndex, nrSets, memory);
+    }
+    @Override
+    public void installWay(int setIndex, int way, long tag, byte[] src, int offset) {
+        sets[setIndex].installWay(way, tag, src, offset);
+    }
+    @Override
+    public void invalidate(int setIndex, int way) {
+        sets[setIndex].invalidate(way);
+    }
+    @Override
+    public void touch(int setIndex, int way) {
+        replacement.onAccess(setIndex, way);
+    }
+    @Override
+    public void writeBack(int setIndex, int way, MainMemory memory) {
+        sets[setIndex].writeBack(way, setIndex, nrSets, memory);
+    }
+    @Override
+    public boolean isValid(int setIndex, int way) {
+        return sets[setIndex].getBlock(way).isValid();
+    }
+    @Override
+    public boolean isDirty(int setIndex, int way) {
+        return sets[setIndex].getBlock(way).isDirty();
+    }
+    @Override
+    public void setDirty(int setIndex, int way, boolean dirty) {
+        sets[setIndex].getBlock(way).setDirty(dirty);
+    }
+    @Override
+    public long getTag(int setIndex, int way) {
+        return sets[setIndex].getBlock(way).getTag();
+    }
+    @Override
+    public byte readByte(int setIndex, int way, int offset) {
+        return sets[setIndex].getBlock(way).getData()[offset];
+    }
+    @Override
+    public void writeByte(int setIndex, int way, int offset, byte value) {
+        sets[setIndex].getBlock(way).getData()[offset] = value;
+    }
+    @Override
+    public byte[] getData(int setIndex, int way) {
+        return sets[setIndex].getBlock(way).getData().clone();
+    }
+    @Override
+    public void restoreLine(int setIndex, int way, long tag, boolean valid, boolean dirty, byte[] src, int offset) {
+        sets[setIndex].restoreWay(way, tag, valid, dirty, src, offset);
+    }
 }
@@ -0,0 +1,225 @@
+package model.cache;
+
+import model.address.AddressParser;
+import model.memory.MainMemory;
+import model.statistics.StatisticsTracker;
+import model.write.WritePolicy;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.SortedMap;
+
+// A cache level below L1, which the level above sees as its memory.
+public class CacheLevel implements MainMemory, BlockInvalidator {
+    private final CacheStorage cache;
+    private final AddressParser parser;
+    private final MainMemory next;
+    private final InclusionPolicy inclusion;
+    private final WritePolicy writePolicy;
+    private final int hitLatency;
+    private final StatisticsTracker stats;
+    private final int blockSize;
+    private BlockInvalidator upper;
+    private int memoryLatency;
+    private int lastReadCycles;
+    private long backInvalidations;
+
+    public CacheLevel(CacheStorage cache, MainMemory next, InclusionPolicy inclusion, WritePolicy writePolicy, int hitLatency, int memoryLatency) {
+        this.cache = cache;
+        this.parser = new AddressParser(cache.getBlockSize(), cache.getNumSets());
+        this.next = next;
+        this.inclusion = inclusion;
+        this.writePolicy = writePolicy;
+        this.hitLatency = hitLatency;
+        this.memoryLatency = memoryLatency;
+        this.stats = new StatisticsTracker(null, cache.getNumSets());
+        this.blockSize = cache.getBlockSize();
+    }
+    // the level above, which an inclusive level back-invalidates
+    public void setUpper(BlockInvalidator upper) {
+        this.upper = upper;
+    }
+    public void setMemoryLatency(int memoryLatency) {
+        this.memoryLatency = memoryLatency;
+        if (next instanceof CacheLevel) ((CacheLevel) next).setMemoryLatency(memoryLatency);
+    }
+    public CacheStorage getCache() {
+        return cache;
+    }
+    public MainMemory getNext() {
+        return next;
+    }
+    public InclusionPolicy getInclusion() {
+        return inclusion;
+    }
+    public WritePolicy getWritePolicy() {
+        return writePolicy;
+    }
+    public int getHitLatency() {
+        return hitLatency;
+    }
+    public StatisticsTracker getStats() {
+        return stats;
+    }
+    public long getBackInvalidations() {
+        return backInvalidations;
+    }
+    public void restoreBackInvalidations(long backInvalidations) {
+        this.backInvalidations = backInvalidations;
+    }
+    // cycles the most recent block read spent in this level and the ones below it
+    public int getLastReadCycles() {
+        return lastReadCycles;
+    }
+
+    @Override
+    public void readBlock(long address, byte[] dst, int offset, int length) {
+        int setIndex = parser.getSetIndex(address);
+        long tag = parser.getTag(address);
+        int way = cache.findWay(setIndex, tag);
+        stats.recordReads(way >= 0);
+
+        if (way >= 0) {
+            lastReadCycles = hitLatency;
+            copyOut(setIndex, way, dst, offset, length);
+            if (inclusion == InclusionPolicy.EXCLUSIVE) {
+                // the block moves up; a dirty copy goes down first since it will come back clean
+                cache.writeBack(setIndex, way, next);
+                cache.invalidate(setIndex, way);
+            } else {
+                cache.touch(setIndex, way);
+            }
+            return;
+        }
+
+        if (inclusion == InclusionPolicy.EXCLUSIVE) {
+            next.readBlock(address, dst, offset, length);
+        } else {
+            way = cache.chooseVictim(setIndex);
+            evict(setIndex, way);
+            cache.fillWay(setIndex, way, tag, next);
+            copyOut(setIndex, way, dst, offset, length);
+        }
+        lastReadCycles = hitLatency + nextReadCycles();
+    }
+    @Override
+    public void writeBlock(long address, byte[] src, int offset, int length) {
+        int setIndex = parser.getSetIndex(address);
+        long tag = parser.getTag(address);
+        int way = cache.findWay(setIndex, tag);
+        stats.recordWrites(way >= 0);
+
+        if (way < 0) {
+            way = cache.chooseVictim(setIndex);
+            evict(setIndex, way);
+            cache.installWay(setIndex, way, tag, src, offset);
+        } else {
+            cache.touch(setIndex, way);
+            for (int i = 0; i < length; i++) {
+                cache.writeByte(setIndex, way, i, src[offset + i]);
+            }
+        }
+        if (writePolicy == WritePolicy.WRITE_BACK) {
+            cache.setDirty(setIndex, way, true);
+        } else {
+            next.writeBlock(address, src, offset, length);
+        }
+    }
+    // a clean block leaving the level above; only an exclusive level keeps it
+    public void insertVictim(long address, byte[] src, int offset) {
+        if (inclusion != InclusionPolicy.EXCLUSIVE) return;
+        int setIndex = parser.getSetIndex(address);
+        long tag = parser.getTag(address);
+        int way = cache.findWay(setIndex, tag);
+        stats.recordWrites(way >= 0);
+        if (way >= 0) {
+            cache.touch(setIndex, way);
+            return;
+        }
+        way = cache.chooseVictim(setIndex);
+        evict(setIndex, way);
+        cache.installWay(setIndex, way, tag, src, offset);
+    }
+    @Override
+    public byte read(long address) {
+        int setIndex = parser.getSetIndex(address);
+        int way = cache.findWay(setIndex, parser.getTag(address));
+        return way >= 0 ? cache.readByte(setIndex, way, (int) parser.getBlockOffset(address)) : next.read(address);
+    }
+    @Override
+    public void write(long address, byte value) {
+        int setIndex = parser.getSetIndex(address);
+        int way = cache.findWay(setIndex, parser.getTag(address));
+        stats.recordWrites(way >= 0);
+
+        if (way >= 0) {
+            cache.touch(setIndex, way);
+            cache.writeByte(setIndex, way, (int) parser.getBlockOffset(address), value);
+            if (writePolicy == WritePolicy.WRITE_BACK) {
+                cache.setDirty(setIndex, way, true);
+                return;
+            }
+        }
+        next.write(address, value);
+    }
+    @Override
+    public void invalidate(long address) {
+        // upper levels go first: their dirty copies may land in this level on the way down
+        if (upper != null) upper.invalidate(address);
+        int setIndex = parser.getSetIndex(address);
+        int way = cache.findWay(setIndex, parser.getTag(address));
+        if (way >= 0) {
+            cache.writeBack(setIndex, way, next);
+            cache.invalidate(setIndex, way);
+        }
+    }
+    // writes every dirty line of this level and the ones below back to memory
+    public void flush() {
+        for (int set = 0; set < cache.getNumSets(); set++) {
+            for (int way = 0; way < cache.getAssociativity(); way++) {
+                cache.writeBack(set, way, next);
+            }
+        }
+        if (next instanceof CacheLevel) ((CacheLevel) next).flush();
+    }
+    @Override
+    public long getSize() {
+        return next.getSize();
+    }
+    // checkpoints save the levels themselves; the pages are main memory's
+    @Override
+    public void savePages(DataOutput out) throws IOException {
+        next.savePages(out);
+    }
+    @Override
+    public void restorePages(SortedMap<Long, byte[]> pages) {
+        next.restorePages(pages);
+    }
+
+    private void evict(int setIndex, int way) {
+        if (!cache.isValid(setIndex, way)) return;
+        long address = (cache.getTag(setIndex, way) * cache.getNumSets() + setIndex) * blockSize;
+
+        if (inclusion == InclusionPolicy.INCLUSIVE && upper != null) {
+            // dirty upper copies land in this line, which then goes down with it
+            upper.invalidate(address);
+            backInvalidations++;
+        }
+        boolean dirty = cache.isDirty(setIndex, way);
+        stats.recordEviction(setIndex, dirty);
+        if (dirty) {
+            cache.writeBack(setIndex, way, next);
+        } else if (next instanceof CacheLevel && ((CacheLevel) next).inclusion == InclusionPolicy.EXCLUSIVE) {
+            ((CacheLevel) next).insertVictim(address, cache.getData(setIndex, way), 0);
+        }
+        cache.invalidate(setIndex, way);
+    }
+    private void copyOut(int setIndex, int way, byte[] dst, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = cache.readByte(setIndex, way, i);
+        }
+    }
+    private int nextReadCycles() {
+        return next instanceof CacheLevel ? ((CacheLevel) next).lastReadCycles : memoryLatency;
+    }
+}
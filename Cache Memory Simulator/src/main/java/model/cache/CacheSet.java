@@ -2,19 +2,31 @@ package model.cache;
 
 import model.replacement.ReplacementPolicy;
 import model.memory.MainMemory;
-import model.address.AddressParser;
 
 import java.util.*;
 
 public class CacheSet {
+    // tags[way] mirrors the block's tag while it is valid and holds INVALID otherwise, so a lookup
+    // is one search of a contiguous array instead of a walk over the blocks; a match on INVALID
+    // itself still has to be checked against the block
+    private static final long INVALID = -1;
+
     private final List<CacheBlock> cacheBlocks;
+    private final long[] tags;
+    // sets of TagIndex.MIN_WAYS or more also index tags, so fully-associative caches stay O(1) per lookup
+    private final TagIndex tagIndex;
     private final ReplacementPolicy replacement;
+    private final int index;
     private final int blockSize;
 
-    public CacheSet(int associativity, int blockSize, ReplacementPolicy replacement) {
+    public CacheSet(int index, int associativity, int blockSize, ReplacementPolicy replacement) {
         this.cacheBlocks = new ArrayList<>(associativity);
+        this.index = index;
         this.blockSize = blockSize;
         this.replacement = replacement;
+        this.tags = new long[associativity];
+        Arrays.fill(tags, INVALID);
+        this.tagIndex = TagIndex.wanted(associativity) ? new TagIndex(associativity) : null;
 
         for (int i = 0; i < associativity; i++) {
             CacheBlock cb = new CacheBlock(-1, blockSize);
@@ -24,42 +36,88 @@ public class CacheSet {
     }
 
     public Optional<CacheBlock> findByTag(long tag) {
-        for (CacheBlock cb : cacheBlocks) {
-            if (cb.isValid() && cb.getTag() == tag) {
-                return Optional.of(cb);
-            }
+        int way = findWay(tag);
+        return way < 0 ? Optional.empty() : Optional.of(cacheBlocks.get(way));
+    }
+    public int findWay(long tag) {
+        if (tagIndex != null) return tagIndex.find(tag);
+        int way = TagMatcher.indexOf(tags, 0, tags.length, tag);
+        if (tag != INVALID) return way;
+        for (; way >= 0; way = TagMatcher.indexOf(tags, way + 1, tags.length, tag)) {
+            if (cacheBlocks.get(way).isValid()) return way;
         }
-        return Optional.empty();
+        return -1;
     }
-    public CacheAllocationResult allocateBlock(long tag, int setIndex, int nrSets, MainMemory memory, AddressParser parser) {
-        Optional<CacheBlock> result = replacement.choose(cacheBlocks);
-        CacheBlock block = result.orElse(cacheBlocks.get(0));
-
-        replacement.onRemove(block);
-
-        CacheBlock evictedBlock = null;
+    public CacheBlock getBlock(int way) {
+        return cacheBlocks.get(way);
+    }
+    public int chooseVictim() {
+        int way = tagIndex != null ? tagIndex.firstFree() : TagMatcher.indexOf(tags, 0, tags.length, INVALID);
+        return way >= 0 ? way : replacement.choose(index);
+    }
+    public void fillWay(int way, long tag, int setIndex, int nrSets, MainMemory memory) {
+        CacheBlock block = cacheBlocks.get(way);
 
-        if (block.isValid() && block.isDirty()) {
-            evictedBlock = block;
-            long oldTag = block.getTag();
-            for (int i = 0; i < blockSize; i++) {
-                long memAddress = (oldTag * nrSets + setIndex) * blockSize + i;
-                memory.write(memAddress, block.getData()[i]);
-            }
+        if (block.isValid()) {
+            replacement.onRemove(index, way);
         }
+        writeBack(way, setIndex, nrSets, memory);
 
         block.setTag(tag);
         block.setValid(true);
         block.setDirty(false);
+        setTag(way, tag);
+
+        memory.readBlock((tag * nrSets + setIndex) * blockSize, block.getData(), 0, blockSize);
 
-        for (int i = 0; i < blockSize; i++) {
-            long memAddress = (tag * nrSets + setIndex) * blockSize + i;
-            block.getData()[i] = memory.read(memAddress);
+        replacement.onInsert(index, way);
+    }
+    public void installWay(int way, long tag, byte[] src, int offset) {
+        CacheBlock block = cacheBlocks.get(way);
+
+        if (block.isValid()) {
+            replacement.onRemove(index, way);
         }
+        block.setTag(tag);
+        block.setValid(true);
+        block.setDirty(false);
+        setTag(way, tag);
+        System.arraycopy(src, offset, block.getData(), 0, blockSize);
 
-        replacement.onInsert(block);
+        replacement.onInsert(index, way);
+    }
+    public void invalidate(int way) {
+        CacheBlock block = cacheBlocks.get(way);
 
-        return new CacheAllocationResult(block, evictedBlock);
+        if (block.isValid()) {
+            replacement.onRemove(index, way);
+        }
+        block.setValid(false);
+        block.setDirty(false);
+        setTag(way, INVALID);
+    }
+    // sets a line as read from a checkpoint, bypassing memory and the replacement policy
+    public void restoreWay(int way, long tag, boolean valid, boolean dirty, byte[] src, int offset) {
+        CacheBlock block = cacheBlocks.get(way);
+        block.setTag(tag);
+        block.setValid(valid);
+        block.setDirty(dirty);
+        setTag(way, valid ? tag : INVALID);
+        System.arraycopy(src, offset, block.getData(), 0, blockSize);
+    }
+    private void setTag(int way, long tag) {
+        if (tagIndex != null) {
+            if (tags[way] != INVALID) tagIndex.remove(way, tags[way]);
+            if (tag != INVALID) tagIndex.insert(way, tag);
+        }
+        tags[way] = tag;
+    }
+    public void writeBack(int way, int setIndex, int nrSets, MainMemory memory) {
+        CacheBlock block = cacheBlocks.get(way);
+        if (block.isValid() && block.isDirty()) {
+            memory.writeBlock((block.getTag() * nrSets + setIndex) * blockSize, block.getData(), 0, blockSize);
+            block.setDirty(false);
+        }
     }
     public List<CacheBlock> getCacheBlocks() {
         return cacheBlocks;
@@ -67,21 +125,7 @@ public class CacheSet {
     public ReplacementPolicy getReplacement() {
         return replacement;
     }
-    public static class CacheAllocationResult {
-        private final CacheBlock allocatedBlock;
-        private final CacheBlock evictedBlock;
-
-        public CacheAllocationResult(CacheBlock allocatedBlock, CacheBlock evictedBlock) {
-            this.allocatedBlock = allocatedBlock;
-            this.evictedBlock = evictedBlock;
-        }
-
-        public CacheBlock getAllocatedBlock() {
-            return allocatedBlock;
-        }
-
-        public CacheBlock getEvictedBlock() {
-            return evictedBlock;
-        }
+    public int getIndex() {
+        return index;
     }
 }
@@ -0,0 +1,31 @@
+package model.cache;
+
+import model.memory.MainMemory;
+import model.replacement.ReplacementPolicy;
+
+public interface CacheStorage {
+    int getBlockSize();
+    int getNumSets();
+    int getAssociativity();
+    ReplacementPolicy getReplacement();
+
+    int findWay(int setIndex, long tag);
+    int chooseVictim(int setIndex);
+    void fillWay(int setIndex, int way, long tag, MainMemory memory);
+    void touch(int setIndex, int way);
+    void writeBack(int setIndex, int way, MainMemory memory);
+    // fills a line with a whole block the caller already holds; a valid victim must be evicted first
+    void installWay(int setIndex, int way, long tag, byte[] src, int offset);
+    // drops a line without writing it back
+    void invalidate(int setIndex, int way);
+
+    boolean isValid(int setIndex, int way);
+    boolean isDirty(int setIndex, int way);
+    void setDirty(int setIndex, int way, boolean dirty);
+    long getTag(int setIndex, int way);
+    byte readByte(int setIndex, int way, int offset);
+    void writeByte(int setIndex, int way, int offset, byte value);
+    byte[] getData(int setIndex, int way);
+    // sets a line as read from a checkpoint, bypassing memory and the replacement policy
+    void restoreLine(int setIndex, int way, long tag, boolean valid, boolean dirty, byte[] src, int offset);
+}
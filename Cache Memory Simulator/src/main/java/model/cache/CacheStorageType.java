@@ -0,0 +1,34 @@
+package model.cache;
+
+import model.replacement.ReplacementPolicyFactory;
+
+public enum CacheStorageType {
+    OBJECT,
+    FLAT,
+    // flat tags and state only, for hit-rate studies: no block data, no memory traffic, reads return 0
+    TAG_ONLY;
+
+    public CacheStorage create(int cacheSizeBytes, int blockSize, int associativity, ReplacementPolicyFactory policy) {
+        switch (this) {
+            case FLAT:
+                return new FlatCache(cacheSizeBytes, blockSize, associativity, policy);
+            case TAG_ONLY:
+                return new FlatCache(cacheSizeBytes, blockSize, associativity, policy, true);
+            default:
+                return new Cache(cacheSizeBytes, blockSize, associativity, policy);
+        }
+    }
+    // the checks create() would fail on, without allocating anything
+    public void validate(int nrSets, int blockSize, int associativity) {
+        long lines = (long) nrSets * associativity;
+        if (this != OBJECT && (this == TAG_ONLY ? lines : lines * blockSize) > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Cache too large for flat storage");
+        }
+    }
+    public static CacheStorageType of(CacheStorage storage) {
+        if (storage instanceof FlatCache) {
+            return ((FlatCache) storage).isTagOnly() ? TAG_ONLY : FLAT;
+        }
+        return OBJECT;
+    }
+}
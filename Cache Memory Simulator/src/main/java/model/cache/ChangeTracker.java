@@ -0,0 +1,71 @@
+package model.cache;
+
+// Versions the lines of one cache so the lines changed since a version are found without a scan.
+public class ChangeTracker {
+    private static final int NONE = -1;
+
+    private final long[] lineVersion;
+    private final int[] prev;
+    private final int[] next;
+    private int tail = NONE;
+    private long version;
+    // clients holding a version older than this must take a full snapshot
+    private long baseVersion;
+
+    public ChangeTracker(int lines, long startVersion) {
+        this.lineVersion = new long[lines];
+        this.prev = new int[lines];
+        this.next = new int[lines];
+        this.version = startVersion;
+        this.baseVersion = startVersion;
+    }
+    public long getVersion() {
+        return version;
+    }
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+    public boolean isCurrent(long since) {
+        return since >= baseVersion && since <= version;
+    }
+    public void mark(int line) {
+        long v = ++version;
+        if (lineVersion[line] != 0) {
+            unlink(line);
+        }
+        lineVersion[line] = v;
+
+        prev[line] = tail;
+        next[line] = NONE;
+        if (tail != NONE) {
+            next[tail] = line;
+        }
+        tail = line;
+    }
+    // invalidates every outstanding version, e.g. after the cache was changed behind the tracker's back
+    public void reset() {
+        baseVersion = ++version;
+    }
+    // lines changed after since, oldest change first
+    public int[] changedSince(long since) {
+        int count = 0;
+        for (int line = tail; line != NONE && lineVersion[line] > since; line = prev[line]) {
+            count++;
+        }
+        int[] lines = new int[count];
+        for (int line = tail; count > 0; line = prev[line]) {
+            lines[--count] = line;
+        }
+        return lines;
+    }
+    private void unlink(int line) {
+        if (prev[line] != NONE) {
+            next[prev[line]] = next[line];
+        }
+        if (next[line] != NONE) {
+            prev[next[line]] = prev[line];
+        } else {
+            tail = prev[line];
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package model.cache;
+
+import model.memory.MainMemory;
+import model.replacement.ReplacementPolicy;
+import model.replacement.ReplacementPolicyFactory;
+
+import java.util.Arrays;
+
+// Stores every line in shared primitive arrays indexed by setIndex * associativity + way.
+public class FlatCache implements CacheStorage {
+    private static final byte[] NO_DATA = new byte[0];
+
+    private final int blockSize;
+    private final int nrSets;
+    private final int associativity;
+    private final ReplacementPolicy replacement;
+
+    private final long[] tags;
+    private final long[] valid;
+    private final long[] dirty;
+    private final byte[] data;
+    private final TagIndex[] indexes;
+
+    public FlatCache(int cacheSizeBytes, int blockSize, int associativity, ReplacementPolicyFactory policy) {
+        this(cacheSizeBytes, blockSize, associativity, policy, false);
+    }
+    public FlatCache(int cacheSizeBytes, int blockSize, int associativity, ReplacementPolicyFactory policy, boolean tagOnly) {
+        this.blockSize = blockSize;
+        this.associativity = associativity;
+        this.nrSets = (cacheSizeBytes / blockSize) / associativity;
+
+        long lines = (long) nrSets * associativity;
+        if ((tagOnly ? lines : lines * blockSize) > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Cache too large for flat storage");
+        }
+        this.tags = new long[(int) lines];
+        this.valid = new long[(int) ((lines + 63) >>> 6)];
+        this.dirty = new long[valid.length];
+        this.data = tagOnly ? null : new byte[(int) lines * blockSize];
+        Arrays.fill(tags, -1);
+        this.replacement = policy.create(nrSets, associativity);
+        this.indexes = TagIndex.wanted(associativity) ? new TagIndex[nrSets] : null;
+        for (int set = 0; indexes != null && set < nrSets; set++) {
+            indexes[set] = new TagIndex(associativity);
+        }
+    }
+    @Override
+    public int getBlockSize() {
+        return blockSize;
+    }
+    @Override
+    public int getNumSets() {
+        return nrSets;
+    }
+    @Override
+    public int getAssociativity() {
+        return associativity;
+    }
+    public boolean isTagOnly() {
+        return data == null;
+    }
+    @Override
+    public ReplacementPolicy getReplacement() {
+        return replacement;
+    }
+    @Override
+    public int findWay(int setIndex, long tag) {
+        if (indexes != null) return indexes[setIndex].find(tag);
+        int base = setIndex * associativity;
+        int end = base + associativity;
+        // invalid lines keep their old tag, so a match still has to be valid
+        for (int line = TagMatcher.indexOf(tags, base, end, tag); line >= 0; line = TagMatcher.indexOf(tags, line + 1, end, tag)) {
+            if (bit(valid, line)) {
+                return line - base;
+            }
+        }
+        return -1;
+    }
+    @Override
+    public int chooseVictim(int setIndex) {
+        if (indexes != null) {
+            int way = indexes[setIndex].firstFree();
+            return way >= 0 ? way : replacement.choose(setIndex);
+        }
+        int base = setIndex * associativity;
+        for (int way = 0; way < associativity; way++) {
+            if (!bit(valid, base + way)) {
+                return way;
+            }
+        }
+        return replacement.choose(setIndex);
+    }
+    @Override
+    public void fillWay(int setIndex, int way, long tag, MainMemory memory) {
+        int line = setIndex * associativity + way;
+
+        if (bit(valid, line)) {
+            replacement.onRemove(setIndex, way);
+        }
+        writeBack(setIndex, way, memory);
+        unindex(setIndex, way, line);
+
+        tags[line] = tag;
+        if (indexes != null) indexes[setIndex].insert(way, tag);
+        set(valid, line, true);
+        set(dirty, line, false);
+
+        if (data != null) {
+            memory.readBlock((tag * nrSets + setIndex) * blockSize, data, line * blockSize, blockSize);
+        } else {
+            // moves no bytes, but a cache level below still sees the fetch
+            memory.readBlock((tag * nrSets + setIndex) * blockSize, NO_DATA, 0, 0);
+        }
+
+        replacement.onInsert(setIndex, way);
+    }
+    @Override
+    public void installWay(int setIndex, int way, long tag, byte[] src, int offset) {
+        int line = setIndex * associativity + way;
+        if (bit(valid, line)) {
+            replacement.onRemove(setIndex, way);
+        }
+        unindex(setIndex, way, line);
+        tags[line] = tag;
+        if (indexes != null) indexes[setIndex].insert(way, tag);
+        set(valid, line, true);
+        set(dirty, line, false);
+        if (data != null) System.arraycopy(src, offset, data, line * blockSize, blockSize);
+        replacement.onInsert(setIndex, way);
+    }
+    @Override
+    public void invalidate(int setIndex, int way) {
+        int line = setIndex * associativity + way;
+        if (bit(valid, line)) {
+            replacement.onRemove(setIndex, way);
+        }
+        unindex(setIndex, way, line);
+        set(valid, line, false);
+        set(dirty, line, false);
+    }
+    @Override
+    public void touch(int setIndex, int way) {
+        replacement.onAccess(setIndex, way);
+    }
+    @Override
+    public void writeBack(int setIndex, int way, MainMemory memory) {
+        int line = setIndex * associativity + way;
+        if (bit(valid, line) && bit(dirty, line)) {
+            if (data != null) {
+                memory.writeBlock((tags[line] * nrSets + setIndex) * blockSize, data, line * blockSize, blockSize);
+            } else {
+                memory.writeBlock((tags[line] * nrSets + setIndex) * blockSize, NO_DATA, 0, 0);
+            }
+            set(dirty, line, false);
+        }
+    }
+    @Override
+    public boolean isValid(int setIndex, int way) {
+        return bit(valid, setIndex * associativity + way);
+    }
+    @Override
+    public boolean isDirty(int setIndex, int way) {
+        return bit(dirty, setIndex * associativity + way);
+    }
+    @Override
+    public void setDirty(int setIndex, int way, boolean value) {
+        set(dirty, setIndex * associativity + way, value);
+    }
+    @Override
+    public long getTag(int setIndex, int way) {
+        return tags[setIndex * associativity + way];
+    }
+    @Override
+    public byte readByte(int setIndex, int way, int offset) {
+        if (data == null) return 0;
+        return data[(setIndex * associativity + way) * blockSize + offset];
+    }
+    @Override
+    public void writeByte(int setIndex, int way, int offset, byte value) {
+        if (data == null) return;
+        data[(setIndex * associativity + way) * blockSize + offset] = value;
+    }
+    @Override
+    public byte[] getData(int setIndex, int way) {
+        if (data == null) return new byte[blockSize];
+        int start = (setIndex * associativity + way) * blockSize;
+        return Arrays.copyOfRange(data, start, start + blockSize);
+    }
+    @Override
+    public void restoreLine(int setIndex, int way, long tag, boolean validLine, boolean dirtyLine, byte[] src, int offset) {
+        int line = setIndex * associativity + way;
+        unindex(setIndex, way, line);
+        tags[line] = tag;
+        if (indexes != null && validLine) indexes[setIndex].insert(way, tag);
+        set(valid, line, validLine);
+        set(dirty, line, dirtyLine);
+        if (data != null) System.arraycopy(src, offset, data, line * blockSize, blockSize);
+    }
+
+    private void unindex(int setIndex, int way, int line) {
+        if (indexes != null && bit(valid, line)) {
+            indexes[setIndex].remove(way, tags[line]);
+        }
+    }
+    private static boolean bit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+    private static void set(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package model.cache;
+
+// How a lower cache level relates to the levels above it.
+public enum InclusionPolicy {
+    INCLUSIVE,
+    EXCLUSIVE,
+    NON_INCLUSIVE
+}
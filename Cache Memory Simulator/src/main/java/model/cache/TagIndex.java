@@ -0,0 +1,48 @@
+package model.cache;
+
+import model.util.LongIntHashMap;
+
+// Tag-to-way index of one wide set, so lookups do not scan it.
+final class TagIndex {
+    static final int MIN_WAYS = 64;
+
+    private final LongIntHashMap ways;
+    private final long[] used;
+    private final int associativity;
+    private int count;
+    // no way below firstFree is free
+    private int firstFree;
+
+    TagIndex(int associativity) {
+        this.associativity = associativity;
+        this.ways = new LongIntHashMap(associativity, -1);
+        this.used = new long[(associativity + 63) >>> 6];
+    }
+    static boolean wanted(int associativity) {
+        return associativity >= MIN_WAYS;
+    }
+    int find(long tag) {
+        return ways.get(tag);
+    }
+    // the lowest way holding no block, or -1 when the set is full
+    int firstFree() {
+        if (count == associativity) return -1;
+        int way = firstFree;
+        while ((used[way >>> 6] & (1L << way)) != 0) way++;
+        firstFree = way;
+        return way;
+    }
+    // the way must be free
+    void insert(int way, long tag) {
+        ways.put(tag, way);
+        used[way >>> 6] |= 1L << way;
+        count++;
+    }
+    // the way must hold tag
+    void remove(int way, long tag) {
+        ways.remove(tag);
+        used[way >>> 6] &= ~(1L << way);
+        count--;
+        firstFree = Math.min(firstFree, way);
+    }
+}
@@ -0,0 +1,34 @@
+package model.cache;
+
+// Finds a tag in a slice of a tag array, with the Vector API for slices of VECTOR_MIN_WAYS or more
+// when jdk.incubator.vector is present (TagMatchBenchmark sets the threshold).
+public final class TagMatcher {
+    public static final int VECTOR_MIN_WAYS = 32;
+
+    public static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && Boolean.parseBoolean(System.getProperty("simulator.vectorTags", "true"))
+            && VectorTagMatcher.LANES > 1;
+
+    private TagMatcher() {}
+
+    // index of the first element of tags[from, to) equal to tag, or -1
+    public static int indexOf(long[] tags, int from, int to, long tag) {
+        if (VECTORIZED && to - from >= VECTOR_MIN_WAYS) {
+            return VectorTagMatcher.indexOf(tags, from, to, tag);
+        }
+        return scalarIndexOf(tags, from, to, tag);
+    }
+    // the Vector API search at any width, for measuring it against the scan
+    public static int vectorIndexOf(long[] tags, int from, int to, long tag) {
+        if (!VECTORIZED) throw new IllegalStateException("Vector tag search is not available");
+        return VectorTagMatcher.indexOf(tags, from, to, tag);
+    }
+    public static int scalarIndexOf(long[] tags, int from, int to, long tag) {
+        for (int i = from; i < to; i++) {
+            if (tags[i] == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
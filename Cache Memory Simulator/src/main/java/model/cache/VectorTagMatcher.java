@@ -0,0 +1,28 @@
+package model.cache;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// Only loaded once TagMatcher has found the incubator module, so the simulator still runs without it.
+final class VectorTagMatcher {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    static final int LANES = SPECIES.length();
+
+    private VectorTagMatcher() {}
+
+    static int indexOf(long[] tags, int from, int to, long tag) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            long equal = LongVector.fromArray(SPECIES, tags, i).eq(tag).toLong();
+            if (equal != 0) {
+                return i + Long.numberOfTrailingZeros(equal);
+            }
+        }
+        for (; i < to; i++) {
+            if (tags[i] == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,8 @@
+package model.coherence;
+
+// MOESI adds OWNED: a modified block read by another core stays dirty in its owner, which keeps
+// supplying it, instead of being written back to memory as MESI does.
+public enum CoherenceProtocol {
+    MESI,
+    MOESI
+}
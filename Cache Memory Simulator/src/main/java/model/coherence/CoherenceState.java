@@ -0,0 +1,18 @@
+package model.coherence;
+
+public enum CoherenceState {
+    MODIFIED,
+    OWNED,
+    EXCLUSIVE,
+    SHARED,
+    INVALID;
+
+    private static final CoherenceState[] VALUES = values();
+
+    public static CoherenceState of(int ordinal) {
+        return VALUES[ordinal];
+    }
+    public boolean isDirty() {
+        return this == MODIFIED || this == OWNED;
+    }
+}
@@ -0,0 +1,73 @@
+package model.coherence;
+
+import model.cache.CacheStorage;
+import model.statistics.StatisticsTracker;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// One core's private cache and the coherence state of its lines.
+public class CoreCache {
+    private static final long NONE = -1;
+
+    private final CacheStorage cache;
+    private final StatisticsTracker stats;
+    private final byte[] states;
+    private final long[] lostTags;
+    private final LongAdder coherenceMisses = new LongAdder();
+    private final LongAdder invalidationsReceived = new LongAdder();
+
+    public CoreCache(CacheStorage cache) {
+        this.cache = cache;
+        this.stats = new StatisticsTracker(null, cache.getNumSets());
+        int lines = cache.getNumSets() * cache.getAssociativity();
+        this.states = new byte[lines];
+        this.lostTags = new long[lines];
+        Arrays.fill(states, (byte) CoherenceState.INVALID.ordinal());
+        Arrays.fill(lostTags, NONE);
+    }
+    public CacheStorage getCache() {
+        return cache;
+    }
+    public StatisticsTracker getStats() {
+        return stats;
+    }
+    public long getCoherenceMisses() {
+        return coherenceMisses.sum();
+    }
+    public long getInvalidationsReceived() {
+        return invalidationsReceived.sum();
+    }
+    public CoherenceState getState(int setIndex, int way) {
+        return CoherenceState.of(states[setIndex * cache.getAssociativity() + way]);
+    }
+    public void setState(int setIndex, int way, CoherenceState state) {
+        states[setIndex * cache.getAssociativity() + way] = (byte) state.ordinal();
+    }
+    // number of lines in each state, indexed by ordinal
+    public long[] countStates() {
+        long[] counts = new long[CoherenceState.values().length];
+        for (byte state : states) {
+            counts[state]++;
+        }
+        return counts;
+    }
+    // another core's write takes the block away
+    void snoopInvalidate(int setIndex, int way) {
+        lostTags[setIndex * cache.getAssociativity() + way] = cache.getTag(setIndex, way);
+        cache.invalidate(setIndex, way);
+        setState(setIndex, way, CoherenceState.INVALID);
+        invalidationsReceived.increment();
+    }
+    // a miss on the block, which is a coherence miss when a snoop invalidated it here earlier
+    void recordMiss(int setIndex, long tag) {
+        int first = setIndex * cache.getAssociativity();
+        for (int line = first; line < first + cache.getAssociativity(); line++) {
+            if (lostTags[line] == tag) {
+                lostTags[line] = NONE;
+                coherenceMisses.increment();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package model.coherence;
+
+import model.address.AddressParser;
+import model.cache.CacheStorage;
+import model.memory.MainMemory;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Private write-back caches kept coherent by snooping one shared bus (MESI or MOESI).
+public class SnoopingBus {
+    private final CoreCache[] cores;
+    private final MainMemory memory;
+    private final AddressParser parser;
+    private final CoherenceProtocol protocol;
+
+    private final LongAdder busReads = new LongAdder();
+    private final LongAdder busReadExclusives = new LongAdder();
+    private final LongAdder busUpgrades = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder cacheTransfers = new LongAdder();
+    private final LongAdder memoryWriteBacks = new LongAdder();
+
+    public SnoopingBus(CoreCache[] cores, MainMemory memory, AddressParser parser, CoherenceProtocol protocol) {
+        this.cores = cores;
+        this.memory = memory;
+        this.parser = parser;
+        this.protocol = protocol;
+    }
+    public CoreCache[] getCores() {
+        return cores;
+    }
+    public CoherenceProtocol getProtocol() {
+        return protocol;
+    }
+    public long getBusReads() {
+        return busReads.sum();
+    }
+    public long getBusReadExclusives() {
+        return busReadExclusives.sum();
+    }
+    public long getBusUpgrades() {
+        return busUpgrades.sum();
+    }
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+    public long getCacheTransfers() {
+        return cacheTransfers.sum();
+    }
+    public long getMemoryWriteBacks() {
+        return memoryWriteBacks.sum();
+    }
+    public long getTransactions() {
+        return getBusReads() + getBusReadExclusives() + getBusUpgrades() + getMemoryWriteBacks();
+    }
+
+    public byte read(int core, long address) {
+        CoreCache requester = cores[core];
+        CacheStorage cache = requester.getCache();
+        int setIndex = parser.getSetIndex(address);
+        long tag = parser.getTag(address);
+        int offset = (int) parser.getBlockOffset(address);
+        int way = cache.findWay(setIndex, tag);
+        requester.getStats().recordReads(way >= 0);
+
+        if (way >= 0) {
+            cache.touch(setIndex, way);
+            return cache.readByte(setIndex, way, offset);
+        }
+
+        busReads.increment();
+        requester.recordMiss(setIndex, tag);
+        way = allocate(requester, setIndex);
+        boolean shared = false;
+        byte[] supplied = null;
+        for (CoreCache other : cores) {
+            if (other == requester) continue;
+            int otherWay = other.getCache().findWay(setIndex, tag);
+            if (otherWay < 0) continue;
+
+            shared = true;
+            CoherenceState state = other.getState(setIndex, otherWay);
+            if (state.isDirty()) {
+                supplied = other.getCache().getData(setIndex, otherWay);
+                cacheTransfers.increment();
+                if (protocol == CoherenceProtocol.MOESI) {
+                    other.setState(setIndex, otherWay, CoherenceState.OWNED);
+                } else {
+                    other.getCache().writeBack(setIndex, otherWay, memory);
+                    memoryWriteBacks.increment();
+                    other.setState(setIndex, otherWay, CoherenceState.SHARED);
+                }
+            } else if (state == CoherenceState.EXCLUSIVE) {
+                other.setState(setIndex, otherWay, CoherenceState.SHARED);
+            }
+        }
+        fill(requester, setIndex, way, tag, supplied);
+        requester.setState(setIndex, way, shared ? CoherenceState.SHARED : CoherenceState.EXCLUSIVE);
+        return cache.readByte(setIndex, way, offset);
+    }
+    public void write(int core, long address, byte value) {
+        CoreCache requester = cores[core];
+        CacheStorage cache = requester.getCache();
+        int setIndex = parser.getSetIndex(address);
+        long tag = parser.getTag(address);
+        int way = cache.findWay(setIndex, tag);
+        requester.getStats().recordWrites(way >= 0);
+
+        if (way >= 0) {
+            cache.touch(setIndex, way);
+            CoherenceState state = requester.getState(setIndex, way);
+            if (state == CoherenceState.SHARED || state == CoherenceState.OWNED) {
+                // every other copy matches this one, so no data moves
+                busUpgrades.increment();
+                invalidateOthers(requester, setIndex, tag);
+            }
+        } else {
+            busReadExclusives.increment();
+            requester.recordMiss(setIndex, tag);
+            way = allocate(requester, setIndex);
+            fill(requester, setIndex, way, tag, invalidateOthers(requester, setIndex, tag));
+        }
+        cache.writeByte(setIndex, way, (int) parser.getBlockOffset(address), value);
+        cache.setDirty(setIndex, way, true);
+        requester.setState(setIndex, way, CoherenceState.MODIFIED);
+    }
+
+    // drops every other copy of the block; returns the data of a dirty one, which the requester takes over
+    private byte[] invalidateOthers(CoreCache requester, int setIndex, long tag) {
+        byte[] supplied = null;
+        for (CoreCache other : cores) {
+            if (other == requester) continue;
+            int otherWay = other.getCache().findWay(setIndex, tag);
+            if (otherWay < 0) continue;
+
+            if (other.getState(setIndex, otherWay).isDirty()) {
+                supplied = other.getCache().getData(setIndex, otherWay);
+                cacheTransfers.increment();
+            }
+            other.snoopInvalidate(setIndex, otherWay);
+            invalidations.increment();
+        }
+        return supplied;
+    }
+    private int allocate(CoreCache requester, int setIndex) {
+        CacheStorage cache = requester.getCache();
+        int way = cache.chooseVictim(setIndex);
+        if (cache.isValid(setIndex, way)) {
+            boolean dirty = requester.getState(setIndex, way).isDirty();
+            requester.getStats().recordEviction(setIndex, dirty);
+            if (dirty) {
+                cache.writeBack(setIndex, way, memory);
+                memoryWriteBacks.increment();
+            }
+            cache.invalidate(setIndex, way);
+            requester.setState(setIndex, way, CoherenceState.INVALID);
+        }
+        return way;
+    }
+    private void fill(CoreCache requester, int setIndex, int way, long tag, byte[] supplied) {
+        if (supplied != null) {
+            requester.getCache().installWay(setIndex, way, tag, supplied, 0);
+        } else {
+            requester.getCache().fillWay(setIndex, way, tag, memory);
+        }
+    }
+}
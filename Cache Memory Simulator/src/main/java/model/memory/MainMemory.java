@@ -1,27 +1,22 @@
 package model.memory;
 
-import java.util.*;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.SortedMap;
 
-public class MainMemory {
-    private final Map<Long, Byte> memory = new HashMap<>();
+public interface MainMemory {
+    // checkpoints hold the pages that are not all zero as (page number, PAGE_SIZE bytes), ended by -1
+    int PAGE_SIZE = 4096;
 
-    public MainMemory() {
-        Random rand = new Random();
-
-        for (long i = 0; i < 4096; i++) {
-            byte randomValue = (byte) rand.nextInt(256);
-            memory.put(i, randomValue);
-        }
-
-        memory.put(0L, (byte) 0xAA);
-    }
-    public byte read(long address) {
-        if (memory.containsKey(address)) {
-            return memory.get(address);
-        }
-        return 0;
-    }
-    public void write(long address, byte value) {
-        memory.put(address, value);
+    byte read(long address);
+    void write(long address, byte value);
+    void readBlock(long address, byte[] dst, int offset, int length);
+    void writeBlock(long address, byte[] src, int offset, int length);
+    void savePages(DataOutput out) throws IOException;
+    // replaces the whole contents with fully read, in-range pages; any other page reads as zero afterwards
+    void restorePages(SortedMap<Long, byte[]> pages);
+    // addresses at or above the size are invalid; prefetches that would reach them are dropped
+    default long getSize() {
+        return Long.MAX_VALUE;
     }
-}
\ No newline at end of file
+}
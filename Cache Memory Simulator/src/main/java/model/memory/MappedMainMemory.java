@@ -0,0 +1,187 @@
+package model.memory;
+
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Off-heap memory image mapped from a sparse file, tracking written pages for checkpoints.
+public class MappedMainMemory implements MainMemory, Closeable {
+    private static final int WINDOW_BITS = 30;
+    private static final long WINDOW_SIZE = 1L << WINDOW_BITS;
+    private static final long WINDOW_MASK = WINDOW_SIZE - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] windows;
+    private final long size;
+    private final AtomicLongArray touched;
+    // a reopened image may hold data anywhere until it has been scanned once
+    private boolean scanned;
+
+    public MappedMainMemory(Path file, long size, boolean reopen) throws IOException {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Memory size must be positive");
+        }
+        this.size = size;
+        long pages = (size - 1) / PAGE_SIZE + 1;
+        if ((pages - 1) / Long.SIZE + 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Memory size " + size + " is too large to map");
+        }
+        this.touched = new AtomicLongArray((int) ((pages - 1) / Long.SIZE + 1));
+
+        this.scanned = !reopen || !Files.exists(file);
+        if (scanned) {
+            try (FileChannel created = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SPARSE)) {
+                created.write(ByteBuffer.allocate(1), size - 1);
+            }
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < size) {
+                channel.write(ByteBuffer.allocate(1), size - 1);
+            }
+            this.windows = new MappedByteBuffer[(int) ((size + WINDOW_SIZE - 1) >>> WINDOW_BITS)];
+            for (int i = 0; i < windows.length; i++) {
+                long start = (long) i << WINDOW_BITS;
+                windows[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(WINDOW_SIZE, size - start));
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    @Override
+    public byte read(long address) {
+        checkBounds(address, 1);
+        return windows[(int) (address >>> WINDOW_BITS)].get((int) (address & WINDOW_MASK));
+    }
+    @Override
+    public void write(long address, byte value) {
+        checkBounds(address, 1);
+        windows[(int) (address >>> WINDOW_BITS)].put((int) (address & WINDOW_MASK), value);
+        touch(address / PAGE_SIZE);
+    }
+    @Override
+    public void readBlock(long address, byte[] dst, int offset, int length) {
+        checkBounds(address, length);
+        while (length > 0) {
+            int windowOffset = (int) (address & WINDOW_MASK);
+            int chunk = (int) Math.min(length, WINDOW_SIZE - windowOffset);
+            windows[(int) (address >>> WINDOW_BITS)].get(windowOffset, dst, offset, chunk);
+            address += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+    @Override
+    public void writeBlock(long address, byte[] src, int offset, int length) {
+        checkBounds(address, length);
+        for (long page = address / PAGE_SIZE; page <= (address + length - 1) / PAGE_SIZE; page++) {
+            touch(page);
+        }
+        while (length > 0) {
+            int windowOffset = (int) (address & WINDOW_MASK);
+            int chunk = (int) Math.min(length, WINDOW_SIZE - windowOffset);
+            windows[(int) (address >>> WINDOW_BITS)].put(windowOffset, src, offset, chunk);
+            address += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+    @Override
+    public synchronized void savePages(DataOutput out) throws IOException {
+        scan();
+        byte[] page = new byte[PAGE_SIZE];
+        byte[] zero = new byte[PAGE_SIZE];
+        for (long pageNumber = nextTouched(0); pageNumber >= 0; pageNumber = nextTouched(pageNumber + 1)) {
+            long address = pageNumber * PAGE_SIZE;
+            int length = pageLength(address);
+            readBlock(address, page, 0, length);
+            if (!Arrays.equals(page, 0, length, zero, 0, length)) {
+                out.writeLong(pageNumber);
+                out.write(page, 0, PAGE_SIZE);
+            }
+        }
+        out.writeLong(-1);
+    }
+    @Override
+    public synchronized void restorePages(SortedMap<Long, byte[]> pages) {
+        scan();
+        byte[] zero = new byte[PAGE_SIZE];
+        for (long pageNumber = nextTouched(0); pageNumber >= 0; pageNumber = nextTouched(pageNumber + 1)) {
+            if (!pages.containsKey(pageNumber)) {
+                long address = pageNumber * PAGE_SIZE;
+                writeBlock(address, zero, 0, pageLength(address));
+            }
+        }
+        for (int i = 0; i < touched.length(); i++) {
+            touched.set(i, 0);
+        }
+        for (Map.Entry<Long, byte[]> page : pages.entrySet()) {
+            long address = page.getKey() * PAGE_SIZE;
+            writeBlock(address, page.getValue(), 0, pageLength(address));
+        }
+    }
+    @Override
+    public long getSize() {
+        return size;
+    }
+    public void force() {
+        for (MappedByteBuffer window : windows) {
+            window.force();
+        }
+    }
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+    // marks every page of a reopened image that holds data, once
+    private void scan() {
+        if (scanned) {
+            return;
+        }
+        byte[] page = new byte[PAGE_SIZE];
+        byte[] zero = new byte[PAGE_SIZE];
+        for (long address = 0; address < size; address += PAGE_SIZE) {
+            int length = pageLength(address);
+            readBlock(address, page, 0, length);
+            if (!Arrays.equals(page, 0, length, zero, 0, length)) {
+                touch(address / PAGE_SIZE);
+            }
+        }
+        scanned = true;
+    }
+    private void touch(long pageNumber) {
+        int index = (int) (pageNumber / Long.SIZE);
+        long bit = 1L << pageNumber;
+        if ((touched.get(index) & bit) == 0) {
+            touched.getAndAccumulate(index, bit, (bits, mask) -> bits | mask);
+        }
+    }
+    private long nextTouched(long from) {
+        for (int index = (int) (from / Long.SIZE); index < touched.length(); index++) {
+            long bits = touched.get(index) & (-1L << from);
+            if (bits != 0) {
+                return (long) index * Long.SIZE + Long.numberOfTrailingZeros(bits);
+            }
+            from = 0;
+        }
+        return -1;
+    }
+    private int pageLength(long address) {
+        return (int) Math.min(PAGE_SIZE, size - address);
+    }
+    private void checkBounds(long address, int length) {
+        if (address < 0 || length < 0 || address > size - length) {
+            throw new IllegalArgumentException("Address " + address + " is outside simulated memory of " + size + " bytes");
+        }
+    }
+}
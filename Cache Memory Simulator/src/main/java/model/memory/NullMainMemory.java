@@ -0,0 +1,30 @@
+package model.memory;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.SortedMap;
+
+// Reads zeros and drops every write. Tag-only simulations put it under the cache so no value, and
+// no page, ever reaches the real memory.
+public class NullMainMemory implements MainMemory {
+    @Override
+    public byte read(long address) {
+        return 0;
+    }
+    @Override
+    public void write(long address, byte value) {}
+    @Override
+    public void readBlock(long address, byte[] dst, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = 0;
+        }
+    }
+    @Override
+    public void writeBlock(long address, byte[] src, int offset, int length) {}
+    @Override
+    public void savePages(DataOutput out) throws IOException {
+        out.writeLong(-1);
+    }
+    @Override
+    public void restorePages(SortedMap<Long, byte[]> pages) {}
+}
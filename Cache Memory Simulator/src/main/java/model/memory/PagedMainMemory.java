@@ -0,0 +1,131 @@
+package model.memory;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sparse memory of fixed-size pages allocated on first write; unwritten addresses read as zero.
+public class PagedMainMemory implements MainMemory {
+    public static final int PAGE_BITS = 12;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final Map<Long, byte[]> pages = new ConcurrentHashMap<>();
+    private final int maxPages;
+    private final AtomicInteger allocated = new AtomicInteger();
+    // the page touched last, swapped as one immutable pair so sharded replays never see a torn entry
+    private volatile LastPage last;
+
+    public PagedMainMemory() {
+        this(Integer.MAX_VALUE);
+    }
+    // writes that would allocate more than maxPages pages fail; reads of unwritten pages never allocate
+    public PagedMainMemory(int maxPages) {
+        if (maxPages <= 0) {
+            throw new IllegalArgumentException("Memory page limit must be positive");
+        }
+        this.maxPages = maxPages;
+        Random rand = new Random();
+
+        byte[] first = page(0, true);
+        rand.nextBytes(first);
+        first[0] = (byte) 0xAA;
+    }
+    @Override
+    public byte read(long address) {
+        byte[] page = page(address >>> PAGE_BITS, false);
+        return page == null ? 0 : page[(int) (address & PAGE_MASK)];
+    }
+    @Override
+    public void write(long address, byte value) {
+        page(address >>> PAGE_BITS, true)[(int) (address & PAGE_MASK)] = value;
+    }
+    @Override
+    public void readBlock(long address, byte[] dst, int offset, int length) {
+        while (length > 0) {
+            int pageOffset = (int) (address & PAGE_MASK);
+            int chunk = Math.min(length, PAGE_SIZE - pageOffset);
+            byte[] page = page(address >>> PAGE_BITS, false);
+            if (page == null) {
+                Arrays.fill(dst, offset, offset + chunk, (byte) 0);
+            } else {
+                System.arraycopy(page, pageOffset, dst, offset, chunk);
+            }
+            address += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+    @Override
+    public void writeBlock(long address, byte[] src, int offset, int length) {
+        while (length > 0) {
+            int pageOffset = (int) (address & PAGE_MASK);
+            int chunk = Math.min(length, PAGE_SIZE - pageOffset);
+            System.arraycopy(src, offset, page(address >>> PAGE_BITS, true), pageOffset, chunk);
+            address += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+    @Override
+    public void savePages(DataOutput out) throws IOException {
+        byte[] zero = new byte[PAGE_SIZE];
+        for (Map.Entry<Long, byte[]> page : new TreeMap<>(pages).entrySet()) {
+            if (!Arrays.equals(page.getValue(), zero)) {
+                out.writeLong(page.getKey());
+                out.write(page.getValue());
+            }
+        }
+        out.writeLong(-1);
+    }
+    @Override
+    public void restorePages(SortedMap<Long, byte[]> restored) {
+        if (restored.size() > maxPages) {
+            throw new IllegalArgumentException("Memory limit of " + maxPages + " pages exceeded");
+        }
+        last = null;
+        pages.clear();
+        pages.putAll(restored);
+        allocated.set(restored.size());
+    }
+    public int getPageCount() {
+        return pages.size();
+    }
+    public int getMaxPages() {
+        return maxPages;
+    }
+    public long getAllocatedBytes() {
+        return (long) pages.size() * PAGE_SIZE;
+    }
+    private byte[] page(long pageNumber, boolean allocate) {
+        LastPage cached = last;
+        if (cached != null && cached.number == pageNumber) {
+            return cached.page;
+        }
+        byte[] page = pages.get(pageNumber);
+        if (page == null && allocate) {
+            page = pages.computeIfAbsent(pageNumber, n -> {
+                if (allocated.incrementAndGet() > maxPages) {
+                    allocated.decrementAndGet();
+                    throw new IllegalArgumentException("Memory limit of " + maxPages + " pages exceeded");
+                }
+                return new byte[PAGE_SIZE];
+            });
+        }
+        if (page != null) {
+            last = new LastPage(pageNumber, page);
+        }
+        return page;
+    }
+
+    private static final class LastPage {
+        final long number;
+        final byte[] page;
+
+        LastPage(long number, byte[] page) {
+            this.number = number;
+            this.page = page;
+        }
+    }
+}
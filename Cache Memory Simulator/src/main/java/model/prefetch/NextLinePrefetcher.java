@@ -0,0 +1,20 @@
+package model.prefetch;
+
+import java.util.function.LongConsumer;
+
+// Tagged next-line prefetching: a miss, or the first use of a prefetched line, fetches the
+// following `degree` blocks.
+public class NextLinePrefetcher implements Prefetcher {
+    private final int degree;
+
+    public NextLinePrefetcher(int degree) {
+        this.degree = degree;
+    }
+    @Override
+    public void onAccess(long block, boolean hit, boolean usedPrefetch, LongConsumer issue) {
+        if (hit && !usedPrefetch) return;
+        for (int i = 1; i <= degree; i++) {
+            issue.accept(block + i);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package model.prefetch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.LongConsumer;
+
+// Decides which blocks (address / blockSize) to fetch ahead of demand.
+public interface Prefetcher {
+    void onAccess(long block, boolean hit, boolean usedPrefetch, LongConsumer issue);
+    // buffered prefetchers keep their lines in a prefetch buffer instead of filling the cache
+    default boolean isBuffered() {
+        return false;
+    }
+    // prefetcher training state for checkpoints
+    default void saveState(DataOutput out) throws IOException {}
+    default void loadState(DataInput in) throws IOException {}
+}
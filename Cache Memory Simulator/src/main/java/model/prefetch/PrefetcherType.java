@@ -0,0 +1,37 @@
+package model.prefetch;
+
+public enum PrefetcherType {
+    NONE,
+    NEXT_LINE,
+    STRIDE,
+    STREAM_BUFFER;
+
+    // every prefetch issues up to `degree` fills, and the stream buffer holds `degree` lines
+    public static final int MAX_DEGREE = 64;
+
+    // degree is the number of blocks fetched ahead (the buffer depth for STREAM_BUFFER); NONE has no prefetcher
+    public Prefetcher create(int blockSize, int degree) {
+        validate(degree);
+        switch (this) {
+            case NEXT_LINE:
+                return new NextLinePrefetcher(degree);
+            case STRIDE:
+                return new StridePrefetcher(blockSize, degree);
+            case STREAM_BUFFER:
+                return new StreamBufferPrefetcher(degree);
+            default:
+                return null;
+        }
+    }
+    public void validate(int degree) {
+        if (degree <= 0 || degree > MAX_DEGREE) {
+            throw new IllegalArgumentException("Prefetch degree must be between 1 and " + MAX_DEGREE);
+        }
+    }
+    public static PrefetcherType of(Prefetcher prefetcher) {
+        if (prefetcher instanceof NextLinePrefetcher) return NEXT_LINE;
+        if (prefetcher instanceof StridePrefetcher) return STRIDE;
+        if (prefetcher instanceof StreamBufferPrefetcher) return STREAM_BUFFER;
+        return NONE;
+    }
+}
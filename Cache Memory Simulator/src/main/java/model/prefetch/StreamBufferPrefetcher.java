@@ -0,0 +1,26 @@
+package model.prefetch;
+
+import java.util.function.LongConsumer;
+
+// Jouppi-style stream buffer: lines wait in the prefetch buffer instead of the cache.
+public class StreamBufferPrefetcher implements Prefetcher {
+    private final int depth;
+
+    public StreamBufferPrefetcher(int depth) {
+        this.depth = depth;
+    }
+    @Override
+    public void onAccess(long block, boolean hit, boolean usedPrefetch, LongConsumer issue) {
+        if (usedPrefetch) {
+            issue.accept(block + depth);
+        } else if (!hit) {
+            for (int i = 1; i <= depth; i++) {
+                issue.accept(block + i);
+            }
+        }
+    }
+    @Override
+    public boolean isBuffered() {
+        return true;
+    }
+}
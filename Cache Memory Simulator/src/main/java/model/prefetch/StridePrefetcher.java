@@ -0,0 +1,77 @@
+package model.prefetch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Reference-prediction table keyed by memory region, since traces carry no PC.
+public class StridePrefetcher implements Prefetcher {
+    private static final int REGION_BYTES = 4096;
+    private static final int ENTRIES = 64;
+    private static final int MAX_CONFIDENCE = 3;
+    private static final int THRESHOLD = 2;
+
+    private final int degree;
+    private final long regionBlocks;
+    private final long[] regions = new long[ENTRIES];
+    private final long[] lastBlocks = new long[ENTRIES];
+    private final long[] strides = new long[ENTRIES];
+    private final int[] confidence = new int[ENTRIES];
+
+    public StridePrefetcher(int blockSize, int degree) {
+        this.degree = degree;
+        this.regionBlocks = Math.max(1, REGION_BYTES / blockSize);
+        Arrays.fill(regions, -1);
+    }
+    @Override
+    public void onAccess(long block, boolean hit, boolean usedPrefetch, LongConsumer issue) {
+        long region = block / regionBlocks;
+        int entry = (int) ((region * 0x9E3779B97F4A7C15L) >>> 58);
+        if (regions[entry] != region) {
+            regions[entry] = region;
+            lastBlocks[entry] = block;
+            strides[entry] = 0;
+            confidence[entry] = 0;
+            return;
+        }
+
+        long stride = block - lastBlocks[entry];
+        if (stride == 0) return;
+        lastBlocks[entry] = block;
+        if (stride == strides[entry]) {
+            confidence[entry] = Math.min(MAX_CONFIDENCE, confidence[entry] + 1);
+        } else if (confidence[entry] > 0) {
+            confidence[entry]--;
+            return;
+        } else {
+            strides[entry] = stride;
+            return;
+        }
+
+        if (confidence[entry] >= THRESHOLD) {
+            for (int i = 1; i <= degree; i++) {
+                issue.accept(block + stride * i);
+            }
+        }
+    }
+    @Override
+    public void saveState(DataOutput out) throws IOException {
+        for (int i = 0; i < ENTRIES; i++) {
+            out.writeLong(regions[i]);
+            out.writeLong(lastBlocks[i]);
+            out.writeLong(strides[i]);
+            out.writeByte(confidence[i]);
+        }
+    }
+    @Override
+    public void loadState(DataInput in) throws IOException {
+        for (int i = 0; i < ENTRIES; i++) {
+            regions[i] = in.readLong();
+            lastBlocks[i] = in.readLong();
+            strides[i] = in.readLong();
+            confidence[i] = Math.min(MAX_CONFIDENCE, Math.max(0, in.readByte()));
+        }
+    }
+}
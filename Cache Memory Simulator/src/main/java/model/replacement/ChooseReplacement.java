@@ -3,19 +3,28 @@ package model.replacement;
 import java.util.*;
 
 public class ChooseReplacement {
-    public static Optional<ReplacementPolicy> create(String replacement) {
+    public static Optional<ReplacementPolicyFactory> create(String replacement) {
         if(replacement == null)
             return Optional.empty();
 
         switch (replacement.toUpperCase()) {
             case "LRU" :
-                return Optional.of(new LRUReplacement());
+                return Optional.of(LRUReplacement::new);
             case "FIFO" :
-                return Optional.of(new FIFOReplacement());
+                return Optional.of(FIFOReplacement::new);
             case "RANDOM" :
-                return Optional.of(new RandomReplacement());
+                return Optional.of(RandomReplacement::new);
+            case "OPT" :
+                return Optional.of(OptReplacement::new);
             default :
                 return Optional.empty();
         }
     }
+    public static String nameOf(ReplacementPolicy policy) {
+        if (policy instanceof LRUReplacement) return "LRU";
+        if (policy instanceof FIFOReplacement) return "FIFO";
+        if (policy instanceof RandomReplacement) return "RANDOM";
+        if (policy instanceof OptReplacement) return "OPT";
+        throw new IllegalArgumentException("Unknown replacement policy " + policy.getClass().getSimpleName());
+    }
 }
@@ -1,40 +1,103 @@
 package model.replacement;
 
-import model.cache.CacheBlock;
-
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
+// Each set links its valid ways in fill order; the victim is the head. Invalidations leave holes
+// that are refilled out of way order, so the order is tracked rather than implied by the way.
 public class FIFOReplacement implements ReplacementPolicy {
-    private final Queue<CacheBlock> queue = new ArrayDeque<>();
+    private static final int NONE = -1;
+
+    private final int associativity;
+    // per line, the next and previous way of the same set; per set, the oldest and newest way
+    private final int[] next;
+    private final int[] previous;
+    private final int[] heads;
+    private final int[] tails;
+
+    public FIFOReplacement(int nrSets, int associativity) {
+        this.associativity = associativity;
+        this.next = new int[nrSets * associativity];
+        this.previous = new int[nrSets * associativity];
+        this.heads = new int[nrSets];
+        this.tails = new int[nrSets];
+        clear();
+    }
 
     @Override
-    public void onAccess(CacheBlock cacheBlock) {}
+    public void onAccess(int set, int way) {}
 
     @Override
-    public Optional<CacheBlock> choose(List<CacheBlock> cacheBlocks) {
-        for (CacheBlock cb : cacheBlocks) {
-            if (!cb.isValid()) {
-                return Optional.of(cb);
-            }
-        }
-        CacheBlock opt = queue.poll();
-        return opt != null ? Optional.of(opt) : (cacheBlocks.isEmpty() ? Optional.empty() : Optional.of(cacheBlocks.get(0)));
+    public int choose(int set) {
+        return heads[set] == NONE ? 0 : heads[set];
     }
 
     @Override
-    public void onInsert(CacheBlock cacheBlock) {
-        if (cacheBlock != null)
-            queue.add(cacheBlock);
+    public void onInsert(int set, int way) {
+        onRemove(set, way);
+        int base = set * associativity;
+        int tail = tails[set];
+        previous[base + way] = tail;
+        next[base + way] = NONE;
+        if (tail == NONE) {
+            heads[set] = way;
+        } else {
+            next[base + tail] = way;
+        }
+        tails[set] = way;
     }
 
     @Override
-    public void onRemove(CacheBlock cacheBlock) {
-        if (cacheBlock != null)
-            queue.remove(cacheBlock);
+    public void onRemove(int set, int way) {
+        int base = set * associativity;
+        int before = previous[base + way];
+        int after = next[base + way];
+        if (before == NONE && heads[set] != way) return;
+        if (before == NONE) {
+            heads[set] = after;
+        } else {
+            next[base + before] = after;
+        }
+        if (after == NONE) {
+            tails[set] = before;
+        } else {
+            previous[base + after] = before;
+        }
+        previous[base + way] = NONE;
+        next[base + way] = NONE;
     }
 
     @Override
     public void clear() {
-        queue.clear();
+        Arrays.fill(next, NONE);
+        Arrays.fill(previous, NONE);
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+    }
+
+    @Override
+    public void saveState(DataOutput out) throws IOException {
+        for (int set = 0; set < heads.length; set++) {
+            int count = 0;
+            for (int way = heads[set]; way != NONE; way = next[set * associativity + way]) count++;
+            out.writeInt(count);
+            for (int way = heads[set]; way != NONE; way = next[set * associativity + way]) out.writeInt(way);
+        }
+    }
+
+    @Override
+    public void loadState(DataInput in) throws IOException {
+        clear();
+        for (int set = 0; set < heads.length; set++) {
+            int count = in.readInt();
+            if (count < 0 || count > associativity) throw new IllegalArgumentException("Corrupt checkpoint");
+            for (int i = 0; i < count; i++) {
+                int way = in.readInt();
+                if (way < 0 || way >= associativity) throw new IllegalArgumentException("Corrupt checkpoint");
+                onInsert(set, way);
+            }
+        }
     }
 }
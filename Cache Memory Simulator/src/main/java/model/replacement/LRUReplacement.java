@@ -1,39 +1,66 @@
 package model.replacement;
 
-import model.cache.CacheBlock;
-
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
+// Each set has its own access clock; a line's stamp is the clock value of its last use.
 public class LRUReplacement implements ReplacementPolicy {
-    private final LinkedHashSet<CacheBlock> order = new LinkedHashSet<>();
+    private final int associativity;
+    private final long[] clocks;
+    private final long[] stamps;
+
+    public LRUReplacement(int nrSets, int associativity) {
+        this.associativity = associativity;
+        this.clocks = new long[nrSets];
+        this.stamps = new long[nrSets * associativity];
+    }
 
     @Override
-    public void onAccess(CacheBlock cb) {
-        if (cb == null || !cb.isValid()) return;
-        order.remove(cb);
-        order.add(cb);
+    public void onAccess(int set, int way) {
+        stamps[set * associativity + way] = ++clocks[set];
     }
 
     @Override
-    public Optional<CacheBlock> choose(List<CacheBlock> blocks) {
-        for (CacheBlock cb : blocks) {
-            if (!cb.isValid()) return Optional.of(cb);
+    public int choose(int set) {
+        int base = set * associativity;
+        int victim = 0;
+        long oldest = stamps[base];
+        for (int way = 1; way < associativity; way++) {
+            if (stamps[base + way] < oldest) {
+                oldest = stamps[base + way];
+                victim = way;
+            }
         }
-        return order.stream().findFirst();
+        return victim;
     }
 
     @Override
-    public void onInsert(CacheBlock cb) {
-        order.add(cb);
+    public void onInsert(int set, int way) {
+        stamps[set * associativity + way] = ++clocks[set];
     }
 
     @Override
-    public void onRemove(CacheBlock cb) {
-        order.remove(cb);
+    public void onRemove(int set, int way) {
+        stamps[set * associativity + way] = 0;
     }
 
     @Override
     public void clear() {
-        order.clear();
+        Arrays.fill(clocks, 0);
+        Arrays.fill(stamps, 0);
+    }
+
+    @Override
+    public void saveState(DataOutput out) throws IOException {
+        for (long clock : clocks) out.writeLong(clock);
+        for (long stamp : stamps) out.writeLong(stamp);
+    }
+
+    @Override
+    public void loadState(DataInput in) throws IOException {
+        for (int i = 0; i < clocks.length; i++) clocks[i] = in.readLong();
+        for (int i = 0; i < stamps.length; i++) stamps[i] = in.readLong();
     }
 }
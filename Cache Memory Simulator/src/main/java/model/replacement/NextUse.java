@@ -0,0 +1,9 @@
+package model.replacement;
+
+// Where the replay stands in an offline trace: the position of the next access to the block being
+// accessed right now, or NEVER when the trace does not touch it again.
+public interface NextUse {
+    int NEVER = Integer.MAX_VALUE;
+
+    int nextUse();
+}
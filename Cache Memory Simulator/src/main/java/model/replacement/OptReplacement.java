@@ -0,0 +1,144 @@
+package model.replacement;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+// Belady's OPT: evicts the line whose block is next used farthest in the future, kept per set in a
+// max-heap of next-use stamps.
+public class OptReplacement implements ReplacementPolicy {
+    private final int associativity;
+    private final int[] stamps;
+    // heap[set * associativity + i] is a way; slots[line] is its index in the heap, -1 when invalid
+    private final int[] heap;
+    private final int[] slots;
+    private final int[] sizes;
+    private NextUse future;
+
+    public OptReplacement(int nrSets, int associativity) {
+        this.associativity = associativity;
+        this.stamps = new int[nrSets * associativity];
+        this.heap = new int[nrSets * associativity];
+        this.slots = new int[nrSets * associativity];
+        this.sizes = new int[nrSets];
+        Arrays.fill(slots, -1);
+    }
+    public void setFuture(NextUse future) {
+        this.future = future;
+        if (future == null) return;
+        // stamps from an earlier trace mean nothing in this one
+        for (int line = 0; line < slots.length; line++) {
+            if (slots[line] >= 0) stamps[line] = NextUse.NEVER;
+        }
+    }
+    public boolean hasFuture() {
+        return future != null;
+    }
+
+    @Override
+    public void onAccess(int set, int way) {
+        stamp(set, way);
+    }
+
+    @Override
+    public int choose(int set) {
+        return sizes[set] == 0 ? 0 : heap[set * associativity];
+    }
+
+    @Override
+    public void onInsert(int set, int way) {
+        stamp(set, way);
+    }
+
+    @Override
+    public void onRemove(int set, int way) {
+        int line = set * associativity + way;
+        int slot = slots[line];
+        if (slot < 0) return;
+        int base = set * associativity;
+        int last = --sizes[set];
+        slots[line] = -1;
+        if (slot == last) return;
+        int moved = heap[base + last];
+        heap[base + slot] = moved;
+        slots[base + moved] = slot;
+        siftDown(base, sizes[set], siftUp(base, slot));
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(stamps, 0);
+        Arrays.fill(slots, -1);
+        Arrays.fill(sizes, 0);
+    }
+
+    @Override
+    public void saveState(DataOutput out) throws IOException {
+        for (int line = 0; line < stamps.length; line++) {
+            out.writeInt(slots[line] >= 0 ? stamps[line] : -1);
+        }
+    }
+
+    @Override
+    public void loadState(DataInput in) throws IOException {
+        clear();
+        for (int line = 0; line < stamps.length; line++) {
+            int stamp = in.readInt();
+            if (stamp < 0) continue;
+            stamps[line] = stamp;
+            add(line / associativity, line % associativity);
+        }
+    }
+
+    private void stamp(int set, int way) {
+        int line = set * associativity + way;
+        stamps[line] = future == null ? NextUse.NEVER : future.nextUse();
+        if (slots[line] < 0) {
+            add(set, way);
+        } else {
+            int base = set * associativity;
+            siftDown(base, sizes[set], siftUp(base, slots[line]));
+        }
+    }
+    private void add(int set, int way) {
+        int base = set * associativity;
+        int slot = sizes[set]++;
+        heap[base + slot] = way;
+        slots[base + way] = slot;
+        siftUp(base, slot);
+    }
+    // both sifts return the slot the way ended up in
+    private int siftUp(int base, int slot) {
+        int way = heap[base + slot];
+        int stamp = stamps[base + way];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            int above = heap[base + parent];
+            if (stamps[base + above] >= stamp) break;
+            heap[base + slot] = above;
+            slots[base + above] = slot;
+            slot = parent;
+        }
+        heap[base + slot] = way;
+        slots[base + way] = slot;
+        return slot;
+    }
+    private int siftDown(int base, int size, int slot) {
+        int way = heap[base + slot];
+        int stamp = stamps[base + way];
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= size) break;
+            if (child + 1 < size && stamps[base + heap[base + child + 1]] > stamps[base + heap[base + child]]) child++;
+            int below = heap[base + child];
+            if (stamps[base + below] <= stamp) break;
+            heap[base + slot] = below;
+            slots[base + below] = slot;
+            slot = child;
+        }
+        heap[base + slot] = way;
+        slots[base + way] = slot;
+        return slot;
+    }
+}
@@ -1,36 +1,63 @@
 package model.replacement;
 
-import model.cache.CacheBlock;
-
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
+// xorshift64 instead of java.util.Random so the generator state can be checkpointed and a
+// restored simulator picks the same victims as the original would have. Every set has its own
+// generator with a fixed seed, so runs are repeatable and shards that own different sets never
+// share state: a sharded replay picks exactly the victims a sequential one does.
 public class RandomReplacement implements ReplacementPolicy {
-    private final Random rand = new Random();
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final int associativity;
+    private final long[] states;
+
+    public RandomReplacement(int nrSets, int associativity) {
+        this.associativity = associativity;
+        this.states = new long[nrSets];
+        clear();
+    }
 
     @Override
-    public void onAccess(CacheBlock cacheBlock) {}
+    public void onAccess(int set, int way) {}
 
     @Override
-    public Optional<CacheBlock> choose(List<CacheBlock> cacheBlocks) {
-        for(CacheBlock cb : cacheBlocks) {
-            if(!cb.isValid()) {
-                return Optional.of(cb);
-            }
-        }
+    public int choose(int set) {
+        long state = states[set];
+        state ^= state << 13;
+        state ^= state >>> 7;
+        state ^= state << 17;
+        states[set] = state;
+        return (int) ((state >>> 1) % associativity);
+    }
 
-        if(cacheBlocks.isEmpty()) {
-            return Optional.empty();
-        }
+    @Override
+    public void onInsert(int set, int way) {}
 
-        return Optional.of(cacheBlocks.get(rand.nextInt(cacheBlocks.size())));
-    }
+    @Override
+    public void onRemove(int set, int way) {}
 
     @Override
-    public void onInsert(CacheBlock cacheBlock) {}
+    public void clear() {
+        for (int set = 0; set < states.length; set++) {
+            // splitmix64 of the set index; never zero, which xorshift could not leave
+            long z = SEED * (set + 1);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            states[set] = (z ^ (z >>> 31)) | 1;
+        }
+    }
 
     @Override
-    public void onRemove(CacheBlock cacheBlock) {}
+    public void saveState(DataOutput out) throws IOException {
+        for (long state : states) out.writeLong(state);
+    }
 
     @Override
-    public void clear() {}
+    public void loadState(DataInput in) throws IOException {
+        for (int i = 0; i < states.length; i++) states[i] = in.readLong();
+    }
 }
@@ -1,13 +1,16 @@
 package model.replacement;
 
-import model.cache.CacheBlock;
-
-import java.util.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public interface ReplacementPolicy {
-    void onAccess(CacheBlock cacheBlock);
-    Optional<CacheBlock> choose(List<CacheBlock> cacheBlocks);
-    void onInsert(CacheBlock cacheBlock);
-    void onRemove(CacheBlock cacheBlock);
+    void onAccess(int set, int way);
+    int choose(int set);
+    void onInsert(int set, int way);
+    void onRemove(int set, int way);
     void clear();
+    // replacement metadata for checkpoints; policies without per-line state keep the defaults
+    default void saveState(DataOutput out) throws IOException {}
+    default void loadState(DataInput in) throws IOException {}
 }
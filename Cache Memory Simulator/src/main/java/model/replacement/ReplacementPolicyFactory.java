@@ -0,0 +1,6 @@
+package model.replacement;
+
+@FunctionalInterface
+public interface ReplacementPolicyFactory {
+    ReplacementPolicy create(int nrSets, int associativity);
+}
@@ -0,0 +1,48 @@
+package model.statistics;
+
+// Cycle costs charged to every access.
+public class LatencyModel {
+    // keeps the cycles of one access, summed over every level, well inside an int
+    public static final int MAX_LATENCY = 1 << 20;
+
+    private int hitLatency = 1;
+    private int missPenalty = 100;
+    private int writeBackCost = 100;
+    private int writeThroughCost = 100;
+
+    public LatencyModel() {}
+
+    public LatencyModel validate() {
+        if (!inRange(hitLatency) || !inRange(missPenalty) || !inRange(writeBackCost) || !inRange(writeThroughCost)) {
+            throw new IllegalArgumentException("Latencies must be between 0 and " + MAX_LATENCY + " cycles");
+        }
+        return this;
+    }
+    public int getHitLatency() {
+        return hitLatency;
+    }
+    public void setHitLatency(int hitLatency) {
+        this.hitLatency = hitLatency;
+    }
+    public int getMissPenalty() {
+        return missPenalty;
+    }
+    public void setMissPenalty(int missPenalty) {
+        this.missPenalty = missPenalty;
+    }
+    public int getWriteBackCost() {
+        return writeBackCost;
+    }
+    public void setWriteBackCost(int writeBackCost) {
+        this.writeBackCost = writeBackCost;
+    }
+    public int getWriteThroughCost() {
+        return writeThroughCost;
+    }
+    public void setWriteThroughCost(int writeThroughCost) {
+        this.writeThroughCost = writeThroughCost;
+    }
+    public static boolean inRange(int cycles) {
+        return cycles >= 0 && cycles <= MAX_LATENCY;
+    }
+}
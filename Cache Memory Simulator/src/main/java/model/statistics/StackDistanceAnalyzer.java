@@ -0,0 +1,142 @@
+package model.statistics;
+
+import model.trace.TraceSource;
+import model.util.LongIntHashMap;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Mattson stack-distance analysis in one pass over a Fenwick tree of last-access times.
+public class StackDistanceAnalyzer {
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final long NONE = -1;
+
+    private final int blockSize;
+    private final LongIntHashMap lastAccess = new LongIntHashMap(INITIAL_CAPACITY, -1);
+    private int[] tree = new int[INITIAL_CAPACITY + 1];
+    private long[] blockAt = new long[INITIAL_CAPACITY];
+    private int time = 0;
+
+    private long[] histogram = new long[64];
+    private int maxDistance = -1;
+    private long accesses = 0;
+    private long coldMisses = 0;
+
+    public StackDistanceAnalyzer(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.blockSize = blockSize;
+        Arrays.fill(blockAt, NONE);
+    }
+    public void analyze(TraceSource trace) throws IOException {
+        while (trace.next()) {
+            access(trace.getAddress());
+        }
+    }
+    public void access(long address) {
+        long block = address / blockSize;
+        if (time == blockAt.length) {
+            compact();
+        }
+        accesses++;
+
+        int previous = lastAccess.put(block, time);
+        if (previous < 0) {
+            coldMisses++;
+        } else {
+            int distance = lastAccess.size() - prefix(previous);
+            record(distance);
+            update(previous, -1);
+            blockAt[previous] = NONE;
+        }
+        update(time, 1);
+        blockAt[time] = block;
+        time++;
+    }
+    public long getAccesses() {
+        return accesses;
+    }
+    public long getColdMisses() {
+        return coldMisses;
+    }
+    public int getDistinctBlocks() {
+        return lastAccess.size();
+    }
+    public int getBlockSize() {
+        return blockSize;
+    }
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+    public long[] getHistogram() {
+        return Arrays.copyOf(histogram, maxDistance + 1);
+    }
+    public long hits(long lines) {
+        long hits = 0;
+        int limit = (int) Math.min(lines, maxDistance + 1L);
+        for (int d = 0; d < limit; d++) {
+            hits += histogram[d];
+        }
+        return hits;
+    }
+    public double hitRatio(long lines) {
+        return accesses == 0 ? 0.0 : (double) hits(lines) / accesses;
+    }
+    // distance 0 means no other block was touched since the previous access to the same block
+    private void record(int distance) {
+        if (distance >= histogram.length) {
+            histogram = Arrays.copyOf(histogram, Math.max(histogram.length * 2, distance + 1));
+        }
+        histogram[distance]++;
+        if (distance > maxDistance) {
+            maxDistance = distance;
+        }
+    }
+    private int prefix(int index) {
+        int sum = 0;
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+    private void update(int index, int delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+    private void compact() {
+        int live = lastAccess.size();
+        int capacity = blockAt.length;
+        if (live > capacity / 2) {
+            if (capacity > (1 << 29)) {
+                throw new IllegalStateException("Too many distinct blocks for stack-distance analysis");
+            }
+            capacity *= 2;
+        }
+
+        long[] compacted = new long[capacity];
+        Arrays.fill(compacted, NONE);
+        int next = 0;
+        for (int t = 0; t < time; t++) {
+            if (blockAt[t] != NONE) {
+                compacted[next] = blockAt[t];
+                lastAccess.put(blockAt[t], next);
+                next++;
+            }
+        }
+
+        blockAt = compacted;
+        tree = new int[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            if (i <= next) {
+                tree[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+        time = next;
+    }
+}
@@ -1,40 +1,245 @@
 package model.statistics;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters are LongAdders so they never wrap and can be read (by /stats or a metrics scrape) while
+// another thread is simulating. A tracker may report into a parent, which then holds the totals
+// of every simulator that shares it.
 public class StatisticsTracker {
-    private int reads = 0;
-    private int writes = 0;
-    private int hits = 0;
-    private int misses = 0;
+    // latency bucket b counts accesses that took [2^(b-1), 2^b) cycles; bucket 0 counts free ones
+    private static final int LATENCY_BUCKETS = 33;
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder writeBacks = new LongAdder();
+    private final LongAdder cycles = new LongAdder();
+    private final AtomicLongArray readLatencies = new AtomicLongArray(LATENCY_BUCKETS);
+    private final AtomicLongArray writeLatencies = new AtomicLongArray(LATENCY_BUCKETS);
+    // prefetches issued, used by a demand access (late if their data had not arrived yet),
+    // evicted or dropped unused, and demand misses served from a prefetch buffer
+    private final LongAdder prefetches = new LongAdder();
+    private final LongAdder usefulPrefetches = new LongAdder();
+    private final LongAdder latePrefetches = new LongAdder();
+    private final LongAdder uselessPrefetches = new LongAdder();
+    private final LongAdder prefetchBufferHits = new LongAdder();
+    // valid lines displaced by prefetch fills, and the dirty ones among them; kept out of the
+    // demand evictions and write-backs
+    private final LongAdder prefetchEvictions = new LongAdder();
+    private final LongAdder prefetchWriteBacks = new LongAdder();
+    // evictions of a valid line, per set
+    private final AtomicLongArray setConflicts;
+    private final StatisticsTracker parent;
 
     public StatisticsTracker() {
-        this.reads = 0;
-        this.writes = 0;
-        this.hits = 0;
-        this.misses = 0;
+        this(null, 0);
+    }
+    public StatisticsTracker(StatisticsTracker parent, int nrSets) {
+        this.parent = parent;
+        this.setConflicts = new AtomicLongArray(nrSets);
+    }
+    // a zeroed tracker for a cache with nrSets sets that reports into the same parent as this one
+    public StatisticsTracker renew(int nrSets) {
+        return new StatisticsTracker(parent, nrSets);
+    }
+    public long getReads() {
+        return reads.sum();
+    }
+    public long getWrites() {
+        return writes.sum();
+    }
+    public long getHits() {
+        return hits.sum();
+    }
+    public long getMisses() {
+        return misses.sum();
+    }
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    public long getWriteBacks() {
+        return writeBacks.sum();
+    }
+    public long getCycles() {
+        return cycles.sum();
+    }
+    public long getPrefetches() {
+        return prefetches.sum();
+    }
+    public long getUsefulPrefetches() {
+        return usefulPrefetches.sum();
+    }
+    public long getLatePrefetches() {
+        return latePrefetches.sum();
+    }
+    public long getUselessPrefetches() {
+        return uselessPrefetches.sum();
+    }
+    public long getPrefetchBufferHits() {
+        return prefetchBufferHits.sum();
+    }
+    public long getPrefetchEvictions() {
+        return prefetchEvictions.sum();
     }
-    public int getReads() {
-        return reads;
+    public long getPrefetchWriteBacks() {
+        return prefetchWriteBacks.sum();
     }
-    public int getWrites() {
-        return writes;
+    // one entry per set, so it is left out of the stats embedded in every access response
+    @JsonIgnore
+    public long[] getSetConflicts() {
+        return toArray(setConflicts, setConflicts.length());
     }
-    public int getHits() {
-        return hits;
+    public long[] getReadLatencies() {
+        return toArray(readLatencies, used(readLatencies));
     }
-    public int getMisses() {
-        return misses;
+    public long[] getWriteLatencies() {
+        return toArray(writeLatencies, used(writeLatencies));
     }
     public void recordReads(boolean hit) {
-        reads++;
-        if(hit) hits++;
-        else misses++;
+        reads.increment();
+        if(hit) hits.increment();
+        else misses.increment();
+        if (parent != null) parent.recordReads(hit);
     }
     public void recordWrites(boolean hit) {
-        writes++;
-        if(hit) hits++;
-        else misses++;
+        writes.increment();
+        if(hit) hits.increment();
+        else misses.increment();
+        if (parent != null) parent.recordWrites(hit);
+    }
+    public void recordLatency(boolean write, int cycles) {
+        this.cycles.add(cycles);
+        (write ? writeLatencies : readLatencies).incrementAndGet(32 - Integer.numberOfLeadingZeros(cycles));
+        if (parent != null) parent.recordLatency(write, cycles);
+    }
+    public void recordPrefetch() {
+        prefetches.increment();
+        if (parent != null) parent.recordPrefetch();
+    }
+    public void recordPrefetchUse(boolean late, boolean buffered) {
+        usefulPrefetches.increment();
+        if (late) latePrefetches.increment();
+        if (buffered) prefetchBufferHits.increment();
+        if (parent != null) parent.recordPrefetchUse(late, buffered);
+    }
+    public void recordUselessPrefetch() {
+        uselessPrefetches.increment();
+        if (parent != null) parent.recordUselessPrefetch();
+    }
+    public void recordPrefetchEviction(boolean dirty) {
+        prefetchEvictions.increment();
+        if (dirty) prefetchWriteBacks.increment();
+        if (parent != null) parent.recordPrefetchEviction(dirty);
+    }
+    public void recordEviction(int setIndex, boolean dirty) {
+        evictions.increment();
+        if(dirty) writeBacks.increment();
+        if (setIndex < setConflicts.length()) setConflicts.incrementAndGet(setIndex);
+        if (parent != null) parent.recordEviction(setIndex, dirty);
+    }
+    public void merge(StatisticsTracker other) {
+        reads.add(other.getReads());
+        writes.add(other.getWrites());
+        hits.add(other.getHits());
+        misses.add(other.getMisses());
+        evictions.add(other.getEvictions());
+        writeBacks.add(other.getWriteBacks());
+        cycles.add(other.getCycles());
+        add(readLatencies, other.readLatencies);
+        add(writeLatencies, other.writeLatencies);
+        prefetches.add(other.getPrefetches());
+        usefulPrefetches.add(other.getUsefulPrefetches());
+        latePrefetches.add(other.getLatePrefetches());
+        uselessPrefetches.add(other.getUselessPrefetches());
+        prefetchBufferHits.add(other.getPrefetchBufferHits());
+        prefetchEvictions.add(other.getPrefetchEvictions());
+        prefetchWriteBacks.add(other.getPrefetchWriteBacks());
+        int sets = Math.min(setConflicts.length(), other.setConflicts.length());
+        for (int i = 0; i < sets; i++) {
+            setConflicts.addAndGet(i, other.setConflicts.get(i));
+        }
+        if (parent != null) parent.merge(other);
+    }
+    // adds counters read from a checkpoint; they were already counted once, so the parent is left alone
+    public void restore(long reads, long writes, long hits, long misses, long evictions, long writeBacks, long[] setConflicts,
+                        long cycles, long[] readLatencies, long[] writeLatencies) {
+        this.reads.add(reads);
+        this.writes.add(writes);
+        this.hits.add(hits);
+        this.misses.add(misses);
+        this.evictions.add(evictions);
+        this.writeBacks.add(writeBacks);
+        for (int i = 0; i < Math.min(setConflicts.length, this.setConflicts.length()); i++) {
+            this.setConflicts.addAndGet(i, setConflicts[i]);
+        }
+        this.cycles.add(cycles);
+        for (int i = 0; i < Math.min(readLatencies.length, LATENCY_BUCKETS); i++) {
+            this.readLatencies.addAndGet(i, readLatencies[i]);
+        }
+        for (int i = 0; i < Math.min(writeLatencies.length, LATENCY_BUCKETS); i++) {
+            this.writeLatencies.addAndGet(i, writeLatencies[i]);
+        }
+    }
+    public void restorePrefetches(long prefetches, long useful, long late, long useless, long bufferHits,
+                                  long evictions, long writeBacks) {
+        this.prefetches.add(prefetches);
+        this.usefulPrefetches.add(useful);
+        this.latePrefetches.add(late);
+        this.uselessPrefetches.add(useless);
+        this.prefetchBufferHits.add(bufferHits);
+        this.prefetchEvictions.add(evictions);
+        this.prefetchWriteBacks.add(writeBacks);
     }
     public double hitRate() {
+        long hits = getHits();
+        long misses = getMisses();
         return (hits + misses) == 0 ? 0.0 : (double) hits / (hits + misses);
     }
+    // average memory access time in cycles
+    public double amat() {
+        long accesses = getReads() + getWrites();
+        return accesses == 0 ? 0.0 : (double) getCycles() / accesses;
+    }
+    // share of the misses a run without prefetching would have taken that prefetches covered;
+    // a miss served from the prefetch buffer is both a cache miss and a useful prefetch
+    public double prefetchCoverage() {
+        return prefetchCoverage(getUsefulPrefetches(), getMisses() - getPrefetchBufferHits());
+    }
+    // share of the issued prefetches a demand access used
+    public double prefetchAccuracy() {
+        return ratio(getUsefulPrefetches(), getPrefetches());
+    }
+    // share of the useful prefetches whose data arrived before it was needed
+    public double prefetchTimeliness() {
+        return ratio(getUsefulPrefetches() - getLatePrefetches(), getUsefulPrefetches());
+    }
+    public static double prefetchCoverage(long useful, long uncoveredMisses) {
+        return ratio(useful, useful + uncoveredMisses);
+    }
+    public static double ratio(long part, long whole) {
+        return whole == 0 ? 0.0 : (double) part / whole;
+    }
+    private static long[] toArray(AtomicLongArray counts, int length) {
+        long[] result = new long[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+    private static int used(AtomicLongArray counts) {
+        int length = counts.length();
+        while (length > 0 && counts.get(length - 1) == 0) length--;
+        return length;
+    }
+    private static void add(AtomicLongArray counts, AtomicLongArray other) {
+        for (int i = 0; i < counts.length(); i++) {
+            long count = other.get(i);
+            if (count != 0) counts.addAndGet(i, count);
+        }
+    }
 }
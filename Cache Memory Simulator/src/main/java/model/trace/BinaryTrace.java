@@ -0,0 +1,67 @@
+package model.trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+// Fixed-width trace layout: a 16 byte header (magic, version, record count) followed by
+// 10 byte records of op (0 = read, 1 = write), 64-bit address and value, all big-endian.
+public final class BinaryTrace {
+    public static final int MAGIC = 0x43545243;
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".trace.bin";
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 10;
+    public static final byte OP_READ = 0;
+    public static final byte OP_WRITE = 1;
+
+    private static final int BUFFER_RECORDS = 1 << 16;
+
+    private BinaryTrace() {}
+
+    // the trace is written next to the target and moved over it only once the whole source has parsed,
+    // so a bad upload never replaces or truncates a stored trace
+    public static long convert(TraceSource source, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        long records;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            records = write(source, channel);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return records;
+    }
+    private static long write(TraceSource source, FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+        long records = 0;
+
+        channel.position(HEADER_SIZE);
+        while (source.next()) {
+            if (!buffer.hasRemaining()) {
+                drain(channel, buffer);
+            }
+            buffer.put(source.isWrite() ? OP_WRITE : OP_READ);
+            buffer.putLong(source.getAddress());
+            buffer.put(source.getValue());
+            records++;
+        }
+        drain(channel, buffer);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(records).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        return records;
+    }
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,96 @@
+package model.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+public class BinaryTraceReader implements TraceSource, Closeable {
+    private static final long WINDOW_RECORDS = 1L << 24;
+
+    private final FileChannel channel;
+    private final long records;
+    private long windowEnd = 0;
+    private long current = -1;
+    private MappedByteBuffer window;
+    private int position;
+
+    private boolean write;
+    private long address;
+    private byte value;
+
+    public BinaryTraceReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(BinaryTrace.HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {}
+            header.flip();
+            if (header.remaining() < BinaryTrace.HEADER_SIZE || header.getInt() != BinaryTrace.MAGIC) {
+                throw new IllegalArgumentException("Not a binary trace file: " + path.getFileName());
+            }
+            int version = header.getInt();
+            if (version != BinaryTrace.VERSION) {
+                throw new IllegalArgumentException("Unsupported binary trace version " + version);
+            }
+            this.records = header.getLong();
+            if (BinaryTrace.HEADER_SIZE + records * BinaryTrace.RECORD_SIZE > channel.size()) {
+                throw new IllegalArgumentException("Truncated binary trace file: " + path.getFileName());
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    @Override
+    public boolean next() throws IOException {
+        if (++current >= records) {
+            current = records;
+            return false;
+        }
+        if (current == windowEnd) {
+            map(current);
+        }
+        MappedByteBuffer buffer = window;
+        int pos = position;
+        byte op = buffer.get(pos);
+        address = buffer.getLong(pos + 1);
+        if ((op != BinaryTrace.OP_READ && op != BinaryTrace.OP_WRITE) || address < 0) {
+            throw new IllegalArgumentException("Corrupt trace record " + current);
+        }
+        write = op == BinaryTrace.OP_WRITE;
+        value = buffer.get(pos + 9);
+        position = pos + BinaryTrace.RECORD_SIZE;
+        return true;
+    }
+    private void map(long first) throws IOException {
+        long count = Math.min(WINDOW_RECORDS, records - first);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, BinaryTrace.HEADER_SIZE + first * BinaryTrace.RECORD_SIZE, count * BinaryTrace.RECORD_SIZE);
+        windowEnd = first + count;
+        position = 0;
+    }
+    @Override
+    public boolean isWrite() {
+        return write;
+    }
+    @Override
+    public long getAddress() {
+        return address;
+    }
+    @Override
+    public byte getValue() {
+        return value;
+    }
+    public long getRecordCount() {
+        return records;
+    }
+    public long getRecordIndex() {
+        return current;
+    }
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,55 @@
+package model.trace;
+
+import java.io.IOException;
+
+// Round-robins over one source per core and tags each access with its source's index. A source
+// that runs out leaves the rotation; the others keep their order.
+public class InterleavedTrace implements TraceSource {
+    private final TraceSource[] sources;
+    private final int[] active;
+    private int remaining;
+    private int cursor;
+    private TraceSource current;
+    private int core;
+
+    public InterleavedTrace(TraceSource[] sources) {
+        this.sources = sources;
+        this.active = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            active[i] = i;
+        }
+        this.remaining = sources.length;
+    }
+    @Override
+    public boolean next() throws IOException {
+        while (remaining > 0) {
+            if (cursor >= remaining) cursor = 0;
+            int index = active[cursor];
+            if (sources[index].next()) {
+                current = sources[index];
+                core = index;
+                cursor++;
+                return true;
+            }
+            remaining--;
+            System.arraycopy(active, cursor + 1, active, cursor, remaining - cursor);
+        }
+        return false;
+    }
+    @Override
+    public boolean isWrite() {
+        return current.isWrite();
+    }
+    @Override
+    public long getAddress() {
+        return current.getAddress();
+    }
+    @Override
+    public byte getValue() {
+        return current.getValue();
+    }
+    @Override
+    public int getCore() {
+        return core;
+    }
+}
@@ -0,0 +1,88 @@
+package model.trace;
+
+import model.replacement.NextUse;
+import model.util.LongIntHashMap;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// For every access of a trace, the position of the next access to the same block, built in one
+// forward pass at four bytes per access.
+public class NextUseIndex {
+    // chunked so the index grows without copying; at most the last chunk is partly unused
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    private final int[][] chunks;
+    private final int size;
+
+    private NextUseIndex(int[][] chunks, int size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+    public static NextUseIndex build(TraceSource source, int blockSize) throws IOException {
+        int[][] chunks = new int[16][];
+        LongIntHashMap last = new LongIntHashMap(1 << 12, -1);
+        int size = 0;
+
+        while (source.next()) {
+            if (size == NextUse.NEVER) {
+                throw new IllegalArgumentException("Trace too long for OPT replacement");
+            }
+            int chunk = size >>> CHUNK_BITS;
+            if (chunk == chunks.length) chunks = Arrays.copyOf(chunks, chunk * 2);
+            if (chunks[chunk] == null) chunks[chunk] = new int[1 << CHUNK_BITS];
+
+            int previous = last.put(source.getAddress() / blockSize, size);
+            if (previous >= 0) chunks[previous >>> CHUNK_BITS][previous & CHUNK_MASK] = size;
+            chunks[chunk][size & CHUNK_MASK] = NextUse.NEVER;
+            size++;
+        }
+        return new NextUseIndex(chunks, size);
+    }
+    public int size() {
+        return size;
+    }
+    public int nextUse(int position) {
+        return position < size ? chunks[position >>> CHUNK_BITS][position & CHUNK_MASK] : NextUse.NEVER;
+    }
+    // replays `trace`, which must be the trace this index was built from, tracking the position
+    public Cursor cursor(TraceSource trace) {
+        return new Cursor(trace);
+    }
+
+    public class Cursor implements TraceSource, NextUse {
+        private final TraceSource trace;
+        private int position = -1;
+
+        private Cursor(TraceSource trace) {
+            this.trace = trace;
+        }
+        @Override
+        public boolean next() throws IOException {
+            if (!trace.next()) return false;
+            position++;
+            return true;
+        }
+        @Override
+        public boolean isWrite() {
+            return trace.isWrite();
+        }
+        @Override
+        public long getAddress() {
+            return trace.getAddress();
+        }
+        @Override
+        public byte getValue() {
+            return trace.getValue();
+        }
+        @Override
+        public int getCore() {
+            return trace.getCore();
+        }
+        @Override
+        public int nextUse() {
+            return NextUseIndex.this.nextUse(position);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package model.trace;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// A fully decoded trace held in primitive arrays. It is never modified after decoding, so any
+// number of threads can replay it at once through their own cursors.
+public class TraceBuffer {
+    private final long[] addresses;
+    private final byte[] values;
+    private final long[] writes;
+    private final int size;
+
+    private TraceBuffer(long[] addresses, byte[] values, long[] writes, int size) {
+        this.addresses = addresses;
+        this.values = values;
+        this.writes = writes;
+        this.size = size;
+    }
+    public static TraceBuffer decode(TraceSource source) throws IOException {
+        long[] addresses = new long[1 << 16];
+        byte[] values = new byte[addresses.length];
+        long[] writes = new long[addresses.length >>> 6];
+        int size = 0;
+
+        while (source.next()) {
+            if (size == addresses.length) {
+                if (size == Integer.MAX_VALUE - 64) {
+                    throw new IllegalArgumentException("Trace too large to decode in memory");
+                }
+                int capacity = (int) Math.min(Integer.MAX_VALUE - 64L, (long) size * 2);
+                addresses = Arrays.copyOf(addresses, capacity);
+                values = Arrays.copyOf(values, capacity);
+                writes = Arrays.copyOf(writes, (capacity + 63) >>> 6);
+            }
+            addresses[size] = source.getAddress();
+            values[size] = source.getValue();
+            if (source.isWrite()) {
+                writes[size >>> 6] |= 1L << size;
+            }
+            size++;
+        }
+        return new TraceBuffer(addresses, values, writes, size);
+    }
+    public int size() {
+        return size;
+    }
+    public long getAddress(int index) {
+        return addresses[index];
+    }
+    public byte getValue(int index) {
+        return values[index];
+    }
+    public boolean isWrite(int index) {
+        return (writes[index >>> 6] & (1L << index)) != 0;
+    }
+    public TraceSource cursor() {
+        return new Cursor();
+    }
+
+    private class Cursor implements TraceSource {
+        private int index = -1;
+
+        @Override
+        public boolean next() {
+            if (index + 1 >= size) {
+                index = size;
+                return false;
+            }
+            index++;
+            return true;
+        }
+        @Override
+        public boolean isWrite() {
+            return TraceBuffer.this.isWrite(index);
+        }
+        @Override
+        public long getAddress() {
+            return addresses[index];
+        }
+        @Override
+        public byte getValue() {
+            return values[index];
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package model.trace;
+
+import java.io.IOException;
+
+// Opens a fresh copy of the same trace each time, for replays that read it more than once.
+@FunctionalInterface
+public interface TraceOpener {
+    TraceSource open() throws IOException;
+}
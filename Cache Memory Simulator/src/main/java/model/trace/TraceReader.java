@@ -0,0 +1,143 @@
+package model.trace;
+
+import java.io.*;
+
+public class TraceReader implements TraceSource {
+    private final BufferedReader reader;
+    private long lineNumber = 0;
+    private long records = 0;
+    private boolean write;
+    private long address;
+    private byte value;
+    private int core;
+
+    public TraceReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+    }
+    @Override
+    public boolean next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (parse(line)) {
+                records++;
+                return true;
+            }
+        }
+        return false;
+    }
+    @Override
+    public boolean isWrite() {
+        return write;
+    }
+    @Override
+    public long getAddress() {
+        return address;
+    }
+    @Override
+    public byte getValue() {
+        return value;
+    }
+    @Override
+    public int getCore() {
+        return core;
+    }
+    public long getLineNumber() {
+        return lineNumber;
+    }
+    public long getRecords() {
+        return records;
+    }
+
+    // Accepts "[core:] <op> <address> [value]" where op is r/w (or the Dinero labels 0, 1, 2),
+    // the address is hexadecimal with an optional 0x prefix and the value is decimal or 0x-prefixed hex.
+    // The optional decimal core prefix tags the access for multi-core replays and defaults to 0.
+    private boolean parse(String line) {
+        int len = line.length();
+        int pos = skipSpaces(line, 0);
+        if (pos == len || line.charAt(pos) == '#') {
+            return false;
+        }
+
+        int end = skipToken(line, pos);
+        core = 0;
+        if (end - pos > 1 && line.charAt(end - 1) == ':') {
+            long id = parseNumber(line, pos, end - 1, 10);
+            if (id > Integer.MAX_VALUE) {
+                throw error("core out of range");
+            }
+            core = (int) id;
+            pos = skipSpaces(line, end);
+            end = skipToken(line, pos);
+            if (pos == end) {
+                throw error("missing operation");
+            }
+        }
+        if (end - pos != 1) {
+            throw error("unknown operation '" + line.substring(pos, end) + "'");
+        }
+        switch (line.charAt(pos)) {
+            case 'r', 'R', '0', '2' -> write = false;
+            case 'w', 'W', '1' -> write = true;
+            default -> throw error("unknown operation '" + line.charAt(pos) + "'");
+        }
+
+        pos = skipSpaces(line, end);
+        end = skipToken(line, pos);
+        if (pos == end) {
+            throw error("missing address");
+        }
+        if (end - pos > 2 && line.charAt(pos) == '0' && (line.charAt(pos + 1) == 'x' || line.charAt(pos + 1) == 'X')) {
+            pos += 2;
+        }
+        address = parseNumber(line, pos, end, 16);
+        if (address < 0) {
+            throw error("address out of range");
+        }
+
+        pos = skipSpaces(line, end);
+        end = skipToken(line, pos);
+        value = 0;
+        if (pos < end) {
+            long parsed;
+            if (end - pos > 2 && line.charAt(pos) == '0' && (line.charAt(pos + 1) == 'x' || line.charAt(pos + 1) == 'X')) {
+                parsed = parseNumber(line, pos + 2, end, 16);
+            } else if (line.charAt(pos) == '-') {
+                parsed = -parseNumber(line, pos + 1, end, 10);
+            } else {
+                parsed = parseNumber(line, pos, end, 10);
+            }
+            // a byte, signed or unsigned
+            if (parsed < Byte.MIN_VALUE || parsed > 0xFF) {
+                throw error("value out of range");
+            }
+            value = (byte) parsed;
+        }
+        return true;
+    }
+    private long parseNumber(String line, int from, int to, int radix) {
+        if (from == to || to - from > 16) {
+            throw error("invalid number '" + line.substring(from, to) + "'");
+        }
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(line.charAt(i), radix);
+            if (digit < 0) {
+                throw error("invalid number '" + line.substring(from, to) + "'");
+            }
+            result = result * radix + digit;
+        }
+        return result;
+    }
+    private static int skipSpaces(String line, int pos) {
+        while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) pos++;
+        return pos;
+    }
+    private static int skipToken(String line, int pos) {
+        while (pos < line.length() && !Character.isWhitespace(line.charAt(pos))) pos++;
+        return pos;
+    }
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Trace line " + lineNumber + ": " + message);
+    }
+}
@@ -0,0 +1,14 @@
+package model.trace;
+
+import java.io.IOException;
+
+public interface TraceSource {
+    boolean next() throws IOException;
+    boolean isWrite();
+    long getAddress();
+    byte getValue();
+    // the core that issued the access, for multi-core replays
+    default int getCore() {
+        return 0;
+    }
+}
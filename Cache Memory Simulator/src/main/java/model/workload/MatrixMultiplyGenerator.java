@@ -0,0 +1,80 @@
+package model.workload;
+
+// Memory accesses of C += A * B on n x n row-major matrices, blocked into tiles when tile < n.
+public class MatrixMultiplyGenerator extends WorkloadGenerator {
+    private static final int LOAD_C = 0;
+    private static final int LOAD_A = 1;
+    private static final int LOAD_B = 2;
+    private static final int STORE_C = 3;
+
+    private final long a;
+    private final long b;
+    private final long c;
+    private final int n;
+    private final int tile;
+    private final long elementSize;
+
+    private int ii, jj, kk;
+    private int i, j, k;
+    private int phase = LOAD_C;
+    private boolean store;
+
+    public MatrixMultiplyGenerator(long count, long base, int n, int tile, long elementSize) {
+        super(count, 0, 1);
+        this.n = n;
+        this.tile = Math.min(tile, n);
+        this.elementSize = elementSize;
+        this.a = base;
+        this.b = base + (long) n * n * elementSize;
+        this.c = base + 2L * n * n * elementSize;
+    }
+    @Override
+    protected long nextAddress() {
+        store = false;
+        switch (phase) {
+            case LOAD_C:
+                phase = LOAD_A;
+                return element(c, i, j);
+            case LOAD_A:
+                phase = LOAD_B;
+                return element(a, i, k);
+            case LOAD_B:
+                long address = element(b, k, j);
+                phase = ++k < Math.min(kk + tile, n) ? LOAD_A : STORE_C;
+                return address;
+            default:
+                store = true;
+                address = element(c, i, j);
+                advance();
+                phase = LOAD_C;
+                return address;
+        }
+    }
+    @Override
+    protected boolean nextIsWrite() {
+        return store;
+    }
+    private long element(long matrix, int row, int column) {
+        return matrix + ((long) row * n + column) * elementSize;
+    }
+    private void advance() {
+        if (++j == Math.min(jj + tile, n)) {
+            j = jj;
+            if (++i == Math.min(ii + tile, n)) {
+                i = ii;
+                if ((kk += tile) >= n) {
+                    kk = 0;
+                    if ((jj += tile) >= n) {
+                        jj = 0;
+                        if ((ii += tile) >= n) {
+                            ii = 0;
+                        }
+                    }
+                    i = ii;
+                }
+                j = jj;
+            }
+        }
+        k = kk;
+    }
+}
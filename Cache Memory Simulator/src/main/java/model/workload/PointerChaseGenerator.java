@@ -0,0 +1,40 @@
+package model.workload;
+
+// Follows a linked list whose nodes are visited in one random cycle, without building the list.
+public class PointerChaseGenerator extends WorkloadGenerator {
+    private static final long MULTIPLIER = 6364136223846793005L;
+    private static final long INCREMENT = 1442695040888963407L;
+
+    private final long base;
+    private final long nodes;
+    private final long nodeSize;
+    private final long mask;
+    private final int shift;
+    private long state;
+
+    public PointerChaseGenerator(long count, double writeRatio, long seed, long base, long nodes, long nodeSize) {
+        super(count, writeRatio, seed);
+        this.base = base;
+        this.nodes = nodes;
+        this.nodeSize = nodeSize;
+        int bits = Math.max(1, 64 - Long.numberOfLeadingZeros(nodes - 1));
+        this.mask = bits == 64 ? -1L : (1L << bits) - 1;
+        this.shift = Math.max(1, bits / 2);
+        this.state = seed & mask;
+    }
+    @Override
+    protected long nextAddress() {
+        long node;
+        do {
+            state = (state * MULTIPLIER + INCREMENT) & mask;
+            node = mix(state);
+        } while (node >= nodes);
+        return base + node * nodeSize;
+    }
+    private long mix(long x) {
+        x ^= x >>> shift;
+        x = (x * 0xBF58476D1CE4E5B9L) & mask;
+        x ^= x >>> shift;
+        return x;
+    }
+}
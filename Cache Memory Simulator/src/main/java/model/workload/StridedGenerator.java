@@ -0,0 +1,22 @@
+package model.workload;
+
+// Walks the footprint with a fixed stride and wraps around; a stride of one element is a
+// sequential scan.
+public class StridedGenerator extends WorkloadGenerator {
+    private final long base;
+    private final long footprint;
+    private final long stride;
+    private long offset = -1;
+
+    public StridedGenerator(long count, double writeRatio, long seed, long base, long footprint, long stride) {
+        super(count, writeRatio, seed);
+        this.base = base;
+        this.footprint = footprint;
+        this.stride = stride;
+    }
+    @Override
+    protected long nextAddress() {
+        offset = offset < 0 ? 0 : (offset + stride) % footprint;
+        return base + offset;
+    }
+}
@@ -0,0 +1,18 @@
+package model.workload;
+
+public class UniformGenerator extends WorkloadGenerator {
+    private final long base;
+    private final long elements;
+    private final long elementSize;
+
+    public UniformGenerator(long count, double writeRatio, long seed, long base, long elements, long elementSize) {
+        super(count, writeRatio, seed);
+        this.base = base;
+        this.elements = elements;
+        this.elementSize = elementSize;
+    }
+    @Override
+    protected long nextAddress() {
+        return base + Long.remainderUnsigned(nextRandom(), elements) * elementSize;
+    }
+}
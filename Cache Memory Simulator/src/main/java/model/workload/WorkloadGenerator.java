@@ -0,0 +1,55 @@
+package model.workload;
+
+import model.trace.TraceSource;
+
+// Base of the synthetic workloads: a TraceSource that computes each access on demand.
+public abstract class WorkloadGenerator implements TraceSource {
+    private final long count;
+    private final long writeThreshold;
+    private long random;
+    private long emitted;
+    private long address;
+    private boolean write;
+
+    protected WorkloadGenerator(long count, double writeRatio, long seed) {
+        this.count = count;
+        this.writeThreshold = (long) (writeRatio * (1L << 53));
+        this.random = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+    }
+    @Override
+    public boolean next() {
+        if (emitted == count) {
+            return false;
+        }
+        emitted++;
+        address = nextAddress();
+        write = nextIsWrite();
+        return true;
+    }
+    @Override
+    public boolean isWrite() {
+        return write;
+    }
+    @Override
+    public long getAddress() {
+        return address;
+    }
+    @Override
+    public byte getValue() {
+        return (byte) emitted;
+    }
+    protected abstract long nextAddress();
+    protected boolean nextIsWrite() {
+        return writeThreshold > 0 && (nextRandom() >>> 11) < writeThreshold;
+    }
+    // xorshift64*
+    protected long nextRandom() {
+        random ^= random >>> 12;
+        random ^= random << 25;
+        random ^= random >>> 27;
+        return random * 0x2545F4914F6CDD1DL;
+    }
+    protected double nextDouble() {
+        return (nextRandom() >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,11 @@
+package model.workload;
+
+public enum WorkloadPattern {
+    SEQUENTIAL,
+    STRIDED,
+    UNIFORM,
+    ZIPFIAN,
+    POINTER_CHASE,
+    MATMUL,
+    MATMUL_BLOCKED
+}
@@ -0,0 +1,139 @@
+package model.workload;
+
+import model.trace.TraceSource;
+
+public class WorkloadSpec {
+    private WorkloadPattern pattern = WorkloadPattern.SEQUENTIAL;
+    private long count = 1_000_000;
+    private long baseAddress = 0;
+    private long footprintBytes = 1 << 20;
+    private int elementSize = 8;
+    private long stride = 64;
+    private double writeRatio = 0.0;
+    private long seed = 42;
+    private double zipfExponent = 0.99;
+    private int matrixSize = 64;
+    private int tileSize = 16;
+
+    public WorkloadSpec() {}
+
+    // every call returns a fresh generator, so sweeps can replay the same stream on many threads
+    public TraceSource open() {
+        return open(seed);
+    }
+    // the stream of core `core` in a multi-core replay: the same workload drawn from seed + core
+    public TraceSource openCore(int core) {
+        return open(seed + core);
+    }
+    // the checks open() would fail on, without building a generator
+    public void validate() {
+        if (pattern == null) throw new IllegalArgumentException("pattern is required");
+        if (count <= 0) throw new IllegalArgumentException("count must be positive");
+        if (baseAddress < 0) throw new IllegalArgumentException("baseAddress must not be negative");
+        if (elementSize <= 0) throw new IllegalArgumentException("elementSize must be positive");
+        if (footprintBytes < elementSize) throw new IllegalArgumentException("footprintBytes must hold at least one element");
+        if (writeRatio < 0 || writeRatio > 1) throw new IllegalArgumentException("writeRatio must be between 0 and 1");
+        switch (pattern) {
+            case STRIDED:
+                if (stride <= 0) throw new IllegalArgumentException("stride must be positive");
+                break;
+            case ZIPFIAN:
+                if (zipfExponent <= 0) throw new IllegalArgumentException("zipfExponent must be positive");
+                break;
+            case MATMUL:
+            case MATMUL_BLOCKED:
+                if (matrixSize <= 0 || tileSize <= 0) throw new IllegalArgumentException("matrixSize and tileSize must be positive");
+                break;
+            default:
+                break;
+        }
+    }
+    private TraceSource open(long seed) {
+        validate();
+        long elements = footprintBytes / elementSize;
+        switch (pattern) {
+            case SEQUENTIAL:
+                return new StridedGenerator(count, writeRatio, seed, baseAddress, footprintBytes, elementSize);
+            case STRIDED:
+                return new StridedGenerator(count, writeRatio, seed, baseAddress, footprintBytes, stride);
+            case UNIFORM:
+                return new UniformGenerator(count, writeRatio, seed, baseAddress, elements, elementSize);
+            case ZIPFIAN:
+                return new ZipfianGenerator(count, writeRatio, seed, baseAddress, elements, elementSize, zipfExponent);
+            case POINTER_CHASE:
+                return new PointerChaseGenerator(count, writeRatio, seed, baseAddress, elements, elementSize);
+            case MATMUL:
+            case MATMUL_BLOCKED:
+                int tile = pattern == WorkloadPattern.MATMUL ? matrixSize : tileSize;
+                return new MatrixMultiplyGenerator(count, baseAddress, matrixSize, tile, elementSize);
+            default:
+                throw new IllegalArgumentException("Unknown workload pattern " + pattern);
+        }
+    }
+    public WorkloadPattern getPattern() {
+        return pattern;
+    }
+    public void setPattern(WorkloadPattern pattern) {
+        this.pattern = pattern;
+    }
+    public long getCount() {
+        return count;
+    }
+    public void setCount(long count) {
+        this.count = count;
+    }
+    public long getBaseAddress() {
+        return baseAddress;
+    }
+    public void setBaseAddress(long baseAddress) {
+        this.baseAddress = baseAddress;
+    }
+    public long getFootprintBytes() {
+        return footprintBytes;
+    }
+    public void setFootprintBytes(long footprintBytes) {
+        this.footprintBytes = footprintBytes;
+    }
+    public int getElementSize() {
+        return elementSize;
+    }
+    public void setElementSize(int elementSize) {
+        this.elementSize = elementSize;
+    }
+    public long getStride() {
+        return stride;
+    }
+    public void setStride(long stride) {
+        this.stride = stride;
+    }
+    public double getWriteRatio() {
+        return writeRatio;
+    }
+    public void setWriteRatio(double writeRatio) {
+        this.writeRatio = writeRatio;
+    }
+    public long getSeed() {
+        return seed;
+    }
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    public double getZipfExponent() {
+        return zipfExponent;
+    }
+    public void setZipfExponent(double zipfExponent) {
+        this.zipfExponent = zipfExponent;
+    }
+    public int getMatrixSize() {
+        return matrixSize;
+    }
+    public void setMatrixSize(int matrixSize) {
+        this.matrixSize = matrixSize;
+    }
+    public int getTileSize() {
+        return tileSize;
+    }
+    public void setTileSize(int tileSize) {
+        this.tileSize = tileSize;
+    }
+}
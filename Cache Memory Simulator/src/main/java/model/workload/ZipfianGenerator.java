@@ -0,0 +1,83 @@
+package model.workload;
+
+// Zipf-distributed element popularity sampled by rejection-inversion, with ranks permuted over the
+// footprint.
+public class ZipfianGenerator extends WorkloadGenerator {
+    private static final long SCATTER = 0x9E3779B97F4A7C15L;
+
+    private final long base;
+    private final long elements;
+    private final long elementSize;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralElements;
+    private final double s;
+    private final long mask;
+    private final int shift;
+
+    public ZipfianGenerator(long count, double writeRatio, long seed, long base, long elements, long elementSize, double exponent) {
+        super(count, writeRatio, seed);
+        this.base = base;
+        this.elements = elements;
+        this.elementSize = elementSize;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralElements = hIntegral(elements + 0.5);
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        int bits = Math.max(1, 64 - Long.numberOfLeadingZeros(elements - 1));
+        this.mask = bits == 64 ? -1L : (1L << bits) - 1;
+        this.shift = Math.max(1, bits / 2);
+    }
+    @Override
+    protected long nextAddress() {
+        long element = sample() - 1;
+        do {
+            element = mix(element);
+        } while (element >= elements);
+        return base + element * elementSize;
+    }
+    private long sample() {
+        while (true) {
+            double u = hIntegralElements + nextDouble() * (hIntegralX1 - hIntegralElements);
+            double x = hIntegralInverse(u);
+            long k = (long) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > elements) {
+                k = elements;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+    private long mix(long x) {
+        x = (x ^ SCATTER) & mask;
+        x ^= x >>> shift;
+        x = (x * 0xBF58476D1CE4E5B9L) & mask;
+        x ^= x >>> shift;
+        return x;
+    }
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) {
+            t = -1;
+        }
+        return Math.exp(helper1(t) * x);
+    }
+    // log1p(x) / x, accurate near zero
+    private static double helper1(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+    // expm1(x) / x, accurate near zero
+    private static double helper2(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+    }
+}
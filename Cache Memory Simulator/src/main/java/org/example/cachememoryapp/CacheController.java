@@ -1,12 +1,43 @@
 package org.example.cachememoryapp;
 
+import controller.BatchOperation;
+import controller.BatchResult;
+import controller.Checkpoint;
+import controller.LevelConfig;
+import controller.MultiCoreConfig;
+import controller.MultiCoreSimulator;
 import controller.SimulatorController;
+import controller.SimulatorRegistry;
+import controller.SimulatorSession;
+import controller.SweepConfig;
+import controller.SweepEngine;
+import model.cache.CacheStorageType;
+import model.prefetch.PrefetcherType;
+import model.statistics.LatencyModel;
 import model.statistics.StatisticsTracker;
+import model.trace.BinaryTrace;
+import model.trace.BinaryTraceReader;
+import model.trace.InterleavedTrace;
+import model.trace.TraceBuffer;
+import model.trace.TraceReader;
+import model.trace.TraceSource;
+import model.workload.WorkloadSpec;
 import model.write.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -14,20 +45,54 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class CacheController {
 
-    private final SimulatorController controller;
+    public static final String SESSION_HEADER = "X-Simulator-Session";
 
-    public CacheController(SimulatorController controller) {
-        this.controller = controller;
+    private final SimulatorRegistry registry;
+    private final TraceStore traceStore;
+    private final CheckpointStore checkpointStore;
+    private final SweepEngine sweepEngine;
+    private final SimulatorEvents events;
+    private final int maxBatchOperations;
+
+    public CacheController(SimulatorRegistry registry, TraceStore traceStore, CheckpointStore checkpointStore,
+                           SweepEngine sweepEngine, SimulatorEvents events,
+                           @Value("${simulator.batch.max-operations:100000}") int maxBatchOperations) {
+        this.registry = registry;
+        this.traceStore = traceStore;
+        this.checkpointStore = checkpointStore;
+        this.sweepEngine = sweepEngine;
+        this.events = events;
+        this.maxBatchOperations = maxBatchOperations;
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleUnavailable(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Simulator Error: " + e.getMessage());
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Request Error: " + e.getMessage());
+    }
+
+    // hitLatency, missPenalty, writeBackCost and writeThroughCost (in cycles) set the latency model charged to every access;
+    // prefetchDegree is how far ahead the prefetcher fetches, or the stream buffer depth;
+    // the optional body lists the levels below L1 (L2 first), and missPenalty is then the main memory latency
     @PostMapping("/config")
     public ResponseEntity<String> configureCache(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
             @RequestParam int cacheSizeBytes,
             @RequestParam int blockSize,
             @RequestParam int associativity,
-            @RequestParam String replacementPolicy) {
+            @RequestParam String replacementPolicy,
+            @RequestParam(defaultValue = "OBJECT") CacheStorageType storage,
+            @ModelAttribute LatencyModel latency,
+            @RequestParam(defaultValue = "NONE") PrefetcherType prefetcher,
+            @RequestParam(defaultValue = "1") int prefetchDegree,
+            @RequestBody(required = false) List<LevelConfig> levels) throws IOException {
         try {
-            controller.reconfigure(cacheSizeBytes, blockSize, associativity, replacementPolicy);
+            registry.get(session).reconfigure(cacheSizeBytes, blockSize, associativity, replacementPolicy, storage,
+                    latency, prefetcher, prefetchDegree, levels);
             return ResponseEntity.ok("Cache successfully reconfigured and statistics reset.");
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Configuration Error: " + e.getMessage());
@@ -35,18 +100,270 @@ public class CacheController {
     }
 
     @GetMapping("/read")
-    public Map<String, Object> read(@RequestParam long address) {
-        return controller.readStats(address);
+    public Map<String, Object> read(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
+            @RequestParam long address) throws IOException {
+        return registry.get(session).execute(c -> c.readStats(address));
     }
 
     @PostMapping("/write")
     public Map<String, Object> write(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
             @RequestParam long address,
             @RequestParam int value,
             @RequestParam WritePolicy writePolicy,
-            @RequestParam WriteMissPolicy missPolicy) {
+            @RequestParam WriteMissPolicy missPolicy) throws IOException {
+
+        return registry.get(session).execute(c -> c.writeStats(address, (byte) value, writePolicy, missPolicy));
+    }
+
+    // runs every operation in order under a single acquisition of the session lock
+    @PostMapping("/batch")
+    public BatchResult batch(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
+            @RequestBody List<BatchOperation> operations) throws IOException {
+        if (operations.size() > maxBatchOperations) {
+            throw new IllegalArgumentException("Batch exceeds " + maxBatchOperations + " operations");
+        }
+        return registry.get(session).execute(c -> c.batch(operations));
+    }
+
+    // tagOnly=true (here and on stored-trace and workload replays) runs on a cold tag-only copy of the
+    // session's cache and leaves the session as it was
+    @PostMapping("/trace")
+    public ResponseEntity<?> replayTrace(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
+            InputStream body,
+            @RequestParam(defaultValue = "WRITE_BACK") WritePolicy writePolicy,
+            @RequestParam(defaultValue = "WRITE_ALLOCATE") WriteMissPolicy missPolicy,
+            @RequestParam(defaultValue = "1") int shards,
+            @RequestParam(defaultValue = "false") boolean tagOnly) throws IOException {
+        // the body is applied as it streams in; a malformed line stops the replay after the accesses before it
+        TraceReader trace = new TraceReader(new InputStreamReader(body, StandardCharsets.US_ASCII));
+        try {
+            return ResponseEntity.ok(registry.get(session).execute(c -> (tagOnly ? c.tagOnlyCopy() : c).replayTrace(trace, writePolicy, missPolicy, shards)));
+        } catch (IllegalArgumentException e) {
+            String applied = tagOnly || trace.getRecords() == 0 ? "" : " (" + trace.getRecords() + " accesses before it were applied)";
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Trace Error: " + e.getMessage() + applied);
+        }
+    }
+
+    @PostMapping("/trace/stack-distance")
+    public ResponseEntity<?> stackDistance(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
+            InputStream body,
+            @RequestParam(defaultValue = "0") int blockSize,
+            @RequestParam(required = false) long[] cacheSizes) throws IOException {
+        try {
+            TraceReader trace = new TraceReader(new InputStreamReader(body, StandardCharsets.US_ASCII));
+            return ResponseEntity.ok(registry.get(session).execute(c -> c.stackDistance(trace, blockSize, cacheSizes)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Trace Error: " + e.getMessage());
+        }
+    }
+
+    @PutMapping("/traces/{name}")
+    public ResponseEntity<?> storeTrace(@PathVariable String name, InputStream body) throws IOException {
+        try {
+            Path path = traceStore.create(name);
+            TraceReader trace = new TraceReader(new InputStreamReader(body, StandardCharsets.US_ASCII));
+            long records = BinaryTrace.convert(trace, path);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("name", name);
+            result.put("records", records);
+            result.put("bytes", Files.size(path));
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Trace Error: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/traces/{name}/replay")
+    public ResponseEntity<?> replayStoredTrace(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
+            @PathVariable String name,
+            @RequestParam(defaultValue = "WRITE_BACK") WritePolicy writePolicy,
+            @RequestParam(defaultValue = "WRITE_ALLOCATE") WriteMissPolicy missPolicy,
+            @RequestParam(defaultValue = "1") int shards,
+            @RequestParam(defaultValue = "false") boolean tagOnly) throws IOException {
+        try {
+            Path path = traceStore.existing(name);
+            return ResponseEntity.ok(registry.get(session).execute(c -> (tagOnly ? c.tagOnlyCopy() : c).replayTrace(() -> new BinaryTraceReader(path), writePolicy, missPolicy, shards)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Trace Error: " + e.getMessage());
+        }
+    }
 
-        return controller.writeStats(address, (byte) value, writePolicy, missPolicy);
+    @PostMapping("/traces/{name}/stack-distance")
+    public ResponseEntity<?> storedStackDistance(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
+            @PathVariable String name,
+            @RequestParam(defaultValue = "0") int blockSize,
+            @RequestParam(required = false) long[] cacheSizes) throws IOException {
+        try (BinaryTraceReader trace = new BinaryTraceReader(traceStore.existing(name))) {
+            return ResponseEntity.ok(registry.get(session).execute(c -> c.stackDistance(trace, blockSize, cacheSizes)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Trace Error: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/traces/{name}/sweep")
+    public ResponseEntity<?> sweep(
+            @PathVariable String name,
+            @RequestBody List<SweepConfig> configs,
+            @ModelAttribute LatencyModel latency,
+            @RequestParam(defaultValue = "WRITE_BACK") WritePolicy writePolicy,
+            @RequestParam(defaultValue = "WRITE_ALLOCATE") WriteMissPolicy missPolicy) throws IOException {
+        try {
+            TraceBuffer trace;
+            try (BinaryTraceReader reader = new BinaryTraceReader(traceStore.existing(name))) {
+                trace = TraceBuffer.decode(reader);
+            }
+            return ResponseEntity.ok(sweepEngine.run(trace, configs, writePolicy, missPolicy, latency));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Sweep Error: " + e.getMessage());
+        }
+    }
+
+    // Synthetic workloads: the generator is described by query parameters (pattern, count, footprintBytes, ...)
+    // and streamed lazily, so no trace is stored or held in memory.
+    @PostMapping("/workloads/replay")
+    public ResponseEntity<?> replayWorkload(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
+            @ModelAttribute WorkloadSpec workload,
+            @RequestParam(defaultValue = "WRITE_BACK") WritePolicy writePolicy,
+            @RequestParam(defaultValue = "WRITE_ALLOCATE") WriteMissPolicy missPolicy,
+            @RequestParam(defaultValue = "1") int shards,
+            @RequestParam(defaultValue = "false") boolean tagOnly) throws IOException {
+        try {
+            workload.validate();
+            return ResponseEntity.ok(registry.get(session).execute(c -> (tagOnly ? c.tagOnlyCopy() : c).replayTrace(workload::open, writePolicy, missPolicy, shards)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Workload Error: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/workloads/batch")
+    public ResponseEntity<?> batchWorkload(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
+            @ModelAttribute WorkloadSpec workload,
+            @RequestParam(defaultValue = "WRITE_BACK") WritePolicy writePolicy,
+            @RequestParam(defaultValue = "WRITE_ALLOCATE") WriteMissPolicy missPolicy) throws IOException {
+        try {
+            if (workload.getCount() > maxBatchOperations) {
+                throw new IllegalArgumentException("Batch exceeds " + maxBatchOperations + " operations");
+            }
+            workload.validate();
+            return ResponseEntity.ok(registry.get(session).execute(c -> c.batch(workload::open, (int) workload.getCount(), writePolicy, missPolicy)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Workload Error: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/workloads/stack-distance")
+    public ResponseEntity<?> workloadStackDistance(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
+            @ModelAttribute WorkloadSpec workload,
+            @RequestParam(defaultValue = "0") int blockSize,
+            @RequestParam(required = false) long[] cacheSizes) throws IOException {
+        try {
+            TraceSource trace = workload.open();
+            return ResponseEntity.ok(registry.get(session).execute(c -> c.stackDistance(trace, blockSize, cacheSizes)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Workload Error: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/workloads/sweep")
+    public ResponseEntity<?> sweepWorkload(
+            @ModelAttribute WorkloadSpec workload,
+            @RequestBody List<SweepConfig> configs,
+            @ModelAttribute LatencyModel latency,
+            @RequestParam(defaultValue = "WRITE_BACK") WritePolicy writePolicy,
+            @RequestParam(defaultValue = "WRITE_ALLOCATE") WriteMissPolicy missPolicy) {
+        try {
+            workload.validate();
+            return ResponseEntity.ok(sweepEngine.run(workload::open, configs, writePolicy, missPolicy, latency));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Sweep Error: " + e.getMessage());
+        }
+    }
+
+    // Multi-core replays give each of `cores` cores a private cache (cacheSizeBytes, blockSize, associativity,
+    // replacementPolicy, storage) on a MESI or MOESI snooping bus with its own memory; they do not touch the session.
+    // Trace lines are tagged "core: op address [value]".
+    @PostMapping("/multicore/trace")
+    public ResponseEntity<?> replayMultiCore(
+            InputStream body,
+            @ModelAttribute MultiCoreConfig config,
+            @RequestParam(defaultValue = "1") int shards) throws IOException {
+        try {
+            MultiCoreSimulator simulator = new MultiCoreSimulator(config);
+            TraceReader trace = new TraceReader(new InputStreamReader(body, StandardCharsets.US_ASCII));
+            return ResponseEntity.ok(simulator.replay(trace, shards));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Multi-core Error: " + e.getMessage());
+        }
+    }
+
+    // every core runs the workload from its own seed (seed + core) and the streams are interleaved round-robin
+    @PostMapping("/multicore/workloads/replay")
+    public ResponseEntity<?> replayMultiCoreWorkload(
+            @ModelAttribute WorkloadSpec workload,
+            @ModelAttribute MultiCoreConfig config,
+            @RequestParam(defaultValue = "1") int shards) throws IOException {
+        try {
+            MultiCoreSimulator simulator = new MultiCoreSimulator(config);
+            TraceSource[] streams = new TraceSource[config.getCores()];
+            for (int core = 0; core < streams.length; core++) {
+                streams[core] = workload.openCore(core);
+            }
+            return ResponseEntity.ok(simulator.replay(new InterleavedTrace(streams), shards));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Workload Error: " + e.getMessage());
+        }
+    }
+
+    @PutMapping("/checkpoints/{name}")
+    public ResponseEntity<?> saveCheckpoint(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
+            @PathVariable String name) throws IOException {
+        try {
+            Path path = checkpointStore.create(name);
+            long start = System.nanoTime();
+            registry.get(session).execute(c -> {
+                Checkpoint.save(c, path);
+                return null;
+            });
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("name", name);
+            result.put("bytes", Files.size(path));
+            result.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Checkpoint Error: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/checkpoints/{name}/restore")
+    public ResponseEntity<?> restoreCheckpoint(
+            @RequestHeader(value = SESSION_HEADER, required = false) String session,
+            @PathVariable String name) throws IOException {
+        try {
+            Path path = checkpointStore.existing(name);
+            long start = System.nanoTime();
+            long epoch = registry.get(session).replace(c -> Checkpoint.restore(c, path));
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("name", name);
+            result.put("epoch", epoch);
+            result.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Checkpoint Error: " + e.getMessage());
+        }
     }
 
     /*@GetMapping("/state")
@@ -54,19 +371,63 @@ public class CacheController {
         return controller.getCache();
     }*/
 
+    // since=N returns only the lines changed after version N; fromSet/limit page through the full snapshot
     @GetMapping("/state")
-    public Map<String, Object> getCacheState() {
-        return controller.getCacheState();
+    public Map<String, Object> getCacheState(
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "0") int fromSet,
+            @RequestParam(defaultValue = "" + Integer.MAX_VALUE) int limit,
+            @RequestHeader(value = SESSION_HEADER, required = false) String session) throws IOException {
+        if (since != null) {
+            return registry.get(session).execute(c -> c.getCacheChanges(since));
+        }
+        return registry.get(session).execute(c -> c.getCacheState(fromSet, limit));
     }
 
     @GetMapping("/stats")
-    public StatisticsTracker getStats() {
-        return controller.getStats();
+    public StatisticsTracker getStats(@RequestHeader(value = SESSION_HEADER, required = false) String session) throws IOException {
+        return registry.get(session).execute(SimulatorController::getStats);
+    }
+
+    @GetMapping("/stats/set-conflicts")
+    public long[] getSetConflicts(@RequestHeader(value = SESSION_HEADER, required = false) String session) throws IOException {
+        return registry.get(session).execute(c -> c.getStats().getSetConflicts());
+    }
+
+    @GetMapping("/hierarchy")
+    public Map<String, Object> getHierarchy(@RequestHeader(value = SESSION_HEADER, required = false) String session) throws IOException {
+        return registry.get(session).execute(SimulatorController::getHierarchy);
     }
 
     @PostMapping("/flush")
-    public ResponseEntity<String> flushCache() {
-        controller.flush();
+    public ResponseEntity<String> flushCache(@RequestHeader(value = SESSION_HEADER, required = false) String session) throws IOException {
+        registry.get(session).execute(c -> {
+            c.flush();
+            return null;
+        });
         return ResponseEntity.ok("Cache flushed successfully. Dirty blocks written back to memory.");
     }
+
+    // EventSource cannot set headers, so the session may also be given as a query parameter
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    // subscribing never creates a session; a live subscription keeps its session from being evicted as idle
+    public ResponseEntity<SseEmitter> events(
+            @RequestParam(value = "session", required = false) String sessionParam,
+            @RequestHeader(value = SESSION_HEADER, required = false) String session) {
+        SimulatorSession target = registry.find(session != null ? session : sessionParam);
+        if (target == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(events.subscribe(target));
+    }
+
+    @DeleteMapping("/session")
+    public ResponseEntity<String> closeSession(@RequestHeader(value = SESSION_HEADER) String session) {
+        SimulatorSession removed = registry.remove(session);
+        if (removed == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Unknown session.");
+        }
+        events.disconnect(removed);
+        return ResponseEntity.ok("Session closed.");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package org.example.cachememoryapp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CheckpointStore extends FileStore {
+    public CheckpointStore(@Value("${simulator.checkpoint-dir:checkpoints}") String directory) {
+        super(directory, "checkpoint", ".ckpt");
+    }
+}
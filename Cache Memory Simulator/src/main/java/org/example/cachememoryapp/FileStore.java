@@ -0,0 +1,37 @@
+package org.example.cachememoryapp;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.regex.Pattern;
+
+// Named files of one kind under a directory; names are checked so they cannot leave it.
+public class FileStore {
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]{0,127}");
+
+    private final Path directory;
+    private final String kind;
+    private final String extension;
+
+    public FileStore(String directory, String kind, String extension) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.kind = kind;
+        this.extension = extension;
+    }
+    public Path resolve(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid " + kind + " name");
+        }
+        return directory.resolve(name + extension);
+    }
+    public Path create(String name) throws IOException {
+        Files.createDirectories(directory);
+        return resolve(name);
+    }
+    public Path existing(String name) {
+        Path path = resolve(name);
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("Unknown " + kind + " '" + name + "'");
+        }
+        return path;
+    }
+}
@@ -1,15 +1,23 @@
 package org.example.cachememoryapp;
 
 import controller.SimulatorController;
+import controller.SimulatorRegistry;
+import controller.SweepEngine;
 import model.address.AddressParser;
 import model.cache.Cache;
 import model.memory.MainMemory;
+import model.memory.MappedMainMemory;
+import model.memory.PagedMainMemory;
 import model.replacement.*;
 import model.statistics.StatisticsTracker;
 import model.write.WritePolicy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
 @Configuration
 public class SimulatorConfig {
 
@@ -19,8 +27,19 @@ public class SimulatorConfig {
     public static final int NR_SETS = (CACHE_SIZE_BYTES / BLOCK_SIZE) / ASSOCIATIVITY;
 
     @Bean
-    public MainMemory mainMemory() {
-        return new MainMemory();
+    public MainMemory mainMemory(
+            @Value("${simulator.memory.backing:heap}") String backing,
+            @Value("${simulator.memory.file:memory.img}") String file,
+            @Value("${simulator.memory.size:4294967296}") long size,
+            @Value("${simulator.memory.reopen:true}") boolean reopen) throws IOException {
+        switch (backing.toLowerCase()) {
+            case "heap":
+                return new PagedMainMemory();
+            case "file":
+                return new MappedMainMemory(Paths.get(file), size, reopen);
+            default:
+                throw new IllegalArgumentException("Unknown simulator.memory.backing '" + backing + "'");
+        }
     }
 
     @Bean
@@ -29,24 +48,59 @@ public class SimulatorConfig {
     }
 
     @Bean
-    public ReplacementPolicy defaultReplacementPolicy() {
-        return new FIFOReplacement();
+    public ReplacementPolicyFactory defaultReplacementPolicy() {
+        return FIFOReplacement::new;
     }
 
     @Bean
-    public Cache cache(ReplacementPolicy policy) {
+    public Cache cache(ReplacementPolicyFactory policy) {
         return new Cache(CACHE_SIZE_BYTES, BLOCK_SIZE, ASSOCIATIVITY, policy);
     }
 
+    // service-wide totals across every session, exported by SimulatorMetrics
+    @Bean
+    public StatisticsTracker simulatorTotals() {
+        return new StatisticsTracker();
+    }
+
     @Bean
-    public SimulatorController simulatorController(Cache cache, MainMemory memory, AddressParser parser) {
+    public SimulatorController simulatorController(Cache cache, MainMemory memory, AddressParser parser, StatisticsTracker totals) {
 
         return new SimulatorController(
                 cache,
                 memory,
                 parser,
                 WritePolicy.WRITE_BACK,
-                new StatisticsTracker()
+                new StatisticsTracker(totals, NR_SETS)
+        );
+    }
+
+    @Bean
+    public SimulatorRegistry simulatorRegistry(
+            SimulatorController defaultController,
+            ReplacementPolicyFactory policy,
+            StatisticsTracker totals,
+            @Value("${simulator.sessions.max:64}") int maxSessions,
+            @Value("${simulator.sessions.idle-timeout-ms:1800000}") long idleTimeoutMillis,
+            @Value("${simulator.sessions.max-pages:16384}") int maxPages) {
+
+        return new SimulatorRegistry(
+                defaultController,
+                () -> new SimulatorController(
+                        new Cache(CACHE_SIZE_BYTES, BLOCK_SIZE, ASSOCIATIVITY, policy),
+                        new PagedMainMemory(maxPages),
+                        new AddressParser(BLOCK_SIZE, NR_SETS),
+                        WritePolicy.WRITE_BACK,
+                        new StatisticsTracker(totals, NR_SETS)
+                ),
+                maxSessions,
+                idleTimeoutMillis
         );
     }
+
+    @Bean
+    public SweepEngine sweepEngine(@Value("${simulator.sweep.parallelism:0}") int parallelism,
+                                   @Value("${simulator.sweep.max-configs:256}") int maxConfigs) {
+        return new SweepEngine(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(), maxConfigs);
+    }
 }
\ No newline at end of file
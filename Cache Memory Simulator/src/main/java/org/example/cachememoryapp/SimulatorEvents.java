@@ -0,0 +1,123 @@
+package org.example.cachememoryapp;
+
+import controller.AccessEventBuffer;
+import controller.SimulatorSession;
+import model.statistics.StatisticsTracker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+// Fans session access events out to Server-Sent Events subscribers once per interval.
+@Component
+public class SimulatorEvents implements AutoCloseable {
+    private final Map<SimulatorSession, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final long timeoutMillis;
+    private final long statsEvery;
+    private long ticks;
+
+    public SimulatorEvents(
+            @Value("${simulator.events.interval-ms:100}") long intervalMillis,
+            @Value("${simulator.events.stats-interval-ms:1000}") long statsIntervalMillis,
+            @Value("${simulator.events.timeout-ms:0}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.statsEvery = Math.max(1, statsIntervalMillis / intervalMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "simulator-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::publish, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    public SseEmitter subscribe(SimulatorSession session) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribers.compute(session, (key, emitters) -> {
+            List<SseEmitter> list = emitters == null ? new CopyOnWriteArrayList<>() : emitters;
+            list.add(emitter);
+            session.getEvents().setEnabled(true);
+            return list;
+        });
+        emitter.onCompletion(() -> unsubscribe(session, emitter));
+        emitter.onTimeout(() -> unsubscribe(session, emitter));
+        emitter.onError(e -> unsubscribe(session, emitter));
+
+        send(session, emitter, "stats", stats(session.getStats()));
+        return emitter;
+    }
+    // ends every subscription of a session that was closed
+    public void disconnect(SimulatorSession session) {
+        List<SseEmitter> emitters = subscribers.remove(session);
+        if (emitters != null) {
+            session.getEvents().setEnabled(false);
+            emitters.forEach(SseEmitter::complete);
+        }
+    }
+    private void unsubscribe(SimulatorSession session, SseEmitter emitter) {
+        subscribers.computeIfPresent(session, (key, emitters) -> {
+            emitters.remove(emitter);
+            if (!emitters.isEmpty()) {
+                return emitters;
+            }
+            session.getEvents().setEnabled(false);
+            session.getEvents().drain();
+            return null;
+        });
+    }
+    private void publish() {
+        boolean sendStats = ++ticks % statsEvery == 0;
+        try {
+            for (Map.Entry<SimulatorSession, List<SseEmitter>> entry : subscribers.entrySet()) {
+                SimulatorSession session = entry.getKey();
+                AccessEventBuffer events = session.getEvents();
+
+                Map<String, Object> batch = events.drain();
+                Map<String, Object> stats = sendStats ? stats(session.getStats()) : null;
+                for (SseEmitter emitter : entry.getValue()) {
+                    if (batch != null) send(session, emitter, "accesses", batch);
+                    if (stats != null) send(session, emitter, "stats", stats);
+                }
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the periodic task; drop this tick instead
+        }
+    }
+    private void send(SimulatorSession session, SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(session, emitter);
+        }
+    }
+    private static Map<String, Object> stats(StatisticsTracker stats) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("reads", stats.getReads());
+        result.put("writes", stats.getWrites());
+        result.put("hits", stats.getHits());
+        result.put("misses", stats.getMisses());
+        result.put("evictions", stats.getEvictions());
+        result.put("writeBacks", stats.getWriteBacks());
+        result.put("hitRate", stats.hitRate());
+        result.put("cycles", stats.getCycles());
+        result.put("amat", stats.amat());
+        result.put("prefetches", stats.getPrefetches());
+        result.put("prefetchCoverage", stats.prefetchCoverage());
+        result.put("prefetchAccuracy", stats.prefetchAccuracy());
+        result.put("prefetchTimeliness", stats.prefetchTimeliness());
+        return result;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        for (List<SseEmitter> emitters : subscribers.values()) {
+            emitters.forEach(SseEmitter::complete);
+        }
+        subscribers.clear();
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.cachememoryapp;
+
+import controller.SimulatorRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import model.statistics.StatisticsTracker;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+// Publishes the service-wide simulator totals on /actuator/prometheus. Request latency comes from
+// Spring's own http.server.requests timer (histogram buckets are enabled in application.properties).
+@Component
+public class SimulatorMetrics implements MeterBinder {
+    private final StatisticsTracker totals;
+    private final SimulatorRegistry registry;
+
+    public SimulatorMetrics(StatisticsTracker totals, SimulatorRegistry registry) {
+        this.totals = totals;
+        this.registry = registry;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meters) {
+        counter(meters, "simulator.cache.reads", "Simulated read accesses", StatisticsTracker::getReads);
+        counter(meters, "simulator.cache.writes", "Simulated write accesses", StatisticsTracker::getWrites);
+        counter(meters, "simulator.cache.hits", "Simulated cache hits", StatisticsTracker::getHits);
+        counter(meters, "simulator.cache.misses", "Simulated cache misses", StatisticsTracker::getMisses);
+        counter(meters, "simulator.cache.evictions", "Valid lines evicted from a set", StatisticsTracker::getEvictions);
+        counter(meters, "simulator.cache.writebacks", "Dirty lines written back on eviction", StatisticsTracker::getWriteBacks);
+        counter(meters, "simulator.cache.cycles", "Cycles charged by the latency model", StatisticsTracker::getCycles);
+        counter(meters, "simulator.prefetch.issued", "Prefetches issued", StatisticsTracker::getPrefetches);
+        counter(meters, "simulator.prefetch.useful", "Prefetches used by a demand access", StatisticsTracker::getUsefulPrefetches);
+        counter(meters, "simulator.prefetch.late", "Useful prefetches whose data arrived after the demand access", StatisticsTracker::getLatePrefetches);
+        counter(meters, "simulator.prefetch.evictions", "Valid lines displaced by prefetch fills", StatisticsTracker::getPrefetchEvictions);
+
+        Gauge.builder("simulator.sessions.active", registry, SimulatorRegistry::size)
+                .description("Simulator sessions currently held in memory")
+                .register(meters);
+    }
+    private void counter(MeterRegistry meters, String name, String description, ToDoubleFunction<StatisticsTracker> value) {
+        FunctionCounter.builder(name, totals, value)
+                .description(description)
+                .register(meters);
+    }
+}
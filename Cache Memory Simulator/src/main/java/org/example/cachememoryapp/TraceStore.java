@@ -0,0 +1,12 @@
+package org.example.cachememoryapp;
+
+import model.trace.BinaryTrace;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TraceStore extends FileStore {
+    public TraceStore(@Value("${simulator.trace-dir:traces}") String directory) {
+        super(directory, "trace", BinaryTrace.EXTENSION);
+    }
+}
@@ -0,0 +1,54 @@
+package controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessEventBufferTest {
+    @Test
+    void recordsNothingWithoutSubscribers() {
+        AccessEventBuffer events = new AccessEventBuffer(4);
+        events.recordAccess(false, 64, 1, 0, true);
+        events.recordEviction(1, 0, 7, true);
+        assertNull(events.drain());
+    }
+
+    @Test
+    void drainCoalescesCountsAndKeepsTheNewestEvents() {
+        AccessEventBuffer events = new AccessEventBuffer(4);
+        events.setEnabled(true);
+        for (int i = 0; i < 5; i++) {
+            events.recordAccess(i % 2 == 1, i * 64L, i, 0, i < 2);
+        }
+        events.recordEviction(3, 1, 9, true);
+
+        Map<String, Object> batch = events.drain();
+        assertEquals(5L, batch.get("accesses"));
+        assertEquals(2L, batch.get("hits"));
+        assertEquals(3L, batch.get("misses"));
+        assertEquals(1L, batch.get("evictions"));
+        assertEquals(1L, batch.get("writeBacks"));
+        assertEquals(2L, batch.get("dropped"));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> kept = (List<Map<String, Object>>) batch.get("events");
+        assertEquals(4, kept.size());
+        assertEquals(128L, kept.get(0).get("address"));
+        assertEquals("miss", kept.get(0).get("type"));
+        assertEquals("READ", kept.get(0).get("operation"));
+        assertEquals("WRITE", kept.get(1).get("operation"));
+        assertEquals("writeBack", kept.get(3).get("type"));
+        assertEquals(9L, kept.get(3).get("tag"));
+        assertEquals(3, kept.get(3).get("setIndex"));
+        assertEquals(1, kept.get(3).get("wayIndex"));
+
+        assertNull(events.drain());
+        events.recordAccess(false, 0, 0, 0, true);
+        Map<String, Object> next = events.drain();
+        assertEquals(1L, next.get("accesses"));
+        assertEquals(0L, next.get("dropped"));
+    }
+}
@@ -0,0 +1,136 @@
+package controller;
+
+import model.address.AddressParser;
+import model.cache.CacheStorage;
+import model.cache.CacheStorageType;
+import model.cache.InclusionPolicy;
+import model.memory.MainMemory;
+import model.memory.PagedMainMemory;
+import model.prefetch.PrefetcherType;
+import model.statistics.StatisticsTracker;
+import model.trace.TraceBuffer;
+import model.trace.TraceReader;
+import model.trace.TraceSource;
+import model.write.WriteMissPolicy;
+import model.write.WritePolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointTest {
+    private static final int BLOCK_SIZE = 32;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoredSimulatorContinuesLikeTheOriginal() throws IOException {
+        SimulatorController original = controller(new PagedMainMemory());
+        original.replayTrace(trace(1), WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE);
+        Path file = directory.resolve("warm.ckpt");
+        Checkpoint.save(original, file);
+
+        SimulatorController restored = Checkpoint.restore(controller(new PagedMainMemory()), file);
+        assertEquals(original.getStats().getMisses(), restored.getStats().getMisses());
+        assertEquals(original.getStats().getPrefetches(), restored.getStats().getPrefetches());
+        assertEquals(PrefetcherType.STREAM_BUFFER, restored.getPrefetcher());
+        assertEquals(1, restored.getLowerLevels().size());
+
+        Map<String, Object> expected = original.replayTrace(trace(2), WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE);
+        Map<String, Object> actual = restored.replayTrace(trace(2), WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE);
+        for (String key : List.of("hits", "misses", "evictions", "writeBacks", "cycles", "prefetches", "usefulPrefetches")) {
+            assertEquals(expected.get(key), actual.get(key), key);
+        }
+        for (long address = MainMemory.PAGE_SIZE; address < 1 << 15; address += 97) {
+            assertEquals(original.read(address), restored.read(address));
+        }
+    }
+
+    @Test
+    void corruptPageLeavesMemoryUntouched() throws IOException {
+        SimulatorController original = controller(new PagedMainMemory());
+        original.replayTrace(trace(1), WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE);
+        original.getLowerLevels().get(0).flush();
+        Path file = directory.resolve("bad.ckpt");
+        Checkpoint.save(original, file);
+
+        // the last page number sits before the final page and the end marker
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putLong(bytes.length - Long.BYTES - MainMemory.PAGE_SIZE - Long.BYTES, Long.MAX_VALUE / 2);
+        Files.write(file, bytes);
+
+        PagedMainMemory memory = new PagedMainMemory();
+        memory.write(0x12345, (byte) 42);
+        SimulatorController target = controller(memory);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Checkpoint.restore(target, file));
+        assertEquals("Corrupt checkpoint", e.getMessage());
+        assertEquals(42, memory.read(0x12345));
+    }
+
+    @Test
+    void concurrentSavesUnderOneNameLeaveOneCompleteCheckpoint() throws Exception {
+        SimulatorController first = controller(new PagedMainMemory());
+        first.replayTrace(trace(1), WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE);
+        SimulatorController second = controller(new PagedMainMemory());
+        second.replayTrace(trace(2), WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE);
+        Path file = directory.resolve("shared.ckpt");
+
+        Thread other = new Thread(() -> {
+            try {
+                for (int i = 0; i < 5; i++) Checkpoint.save(second, file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        other.start();
+        for (int i = 0; i < 5; i++) Checkpoint.save(first, file);
+        other.join();
+
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+        long misses = Checkpoint.restore(controller(new PagedMainMemory()), file).getStats().getMisses();
+        assertTrue(misses == first.getStats().getMisses() || misses == second.getStats().getMisses());
+    }
+
+    private static SimulatorController controller(MainMemory memory) {
+        CacheStorage cache = SimulatorController.createCache(2048, BLOCK_SIZE, 4, "LRU", CacheStorageType.FLAT);
+        SimulatorController controller = new SimulatorController(cache, memory, new AddressParser(BLOCK_SIZE, cache.getNumSets()),
+                WritePolicy.WRITE_BACK, new StatisticsTracker(null, cache.getNumSets()));
+        LevelConfig l2 = new LevelConfig();
+        l2.setCacheSizeBytes(16384);
+        l2.setAssociativity(8);
+        l2.setReplacementPolicy("FIFO");
+        l2.setStorage(CacheStorageType.FLAT);
+        l2.setInclusion(InclusionPolicy.NON_INCLUSIVE);
+        l2.setWritePolicy(WritePolicy.WRITE_BACK);
+        l2.setHitLatency(10);
+        controller.setLevels(List.of(l2));
+        controller.setPrefetcher(PrefetcherType.STREAM_BUFFER, 4);
+        return controller;
+    }
+    private static TraceSource trace(long seed) throws IOException {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            long address = random.nextBoolean() ? i * 4L % (1 << 15) : random.nextInt(1 << 15);
+            if (random.nextInt(3) == 0) {
+                text.append("w ").append(Long.toHexString(address)).append(' ').append(random.nextInt(256) - 128).append('\n');
+            } else {
+                text.append("r ").append(Long.toHexString(address)).append('\n');
+            }
+        }
+        return TraceBuffer.decode(new TraceReader(new StringReader(text.toString()))).cursor();
+    }
+}
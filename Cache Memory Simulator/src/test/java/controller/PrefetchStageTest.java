@@ -0,0 +1,79 @@
+package controller;
+
+import model.memory.MainMemory;
+import model.prefetch.PrefetcherType;
+import model.statistics.StatisticsTracker;
+import model.write.WriteMissPolicy;
+import model.write.WritePolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetchStageTest {
+    private static final int BLOCK_SIZE = 32;
+    private static final long BASE = MainMemory.PAGE_SIZE;
+
+    @Test
+    void nextLineCountsUsefulLateAndUselessPrefetches() {
+        // default latencies: a hit costs 1 cycle, a fill 100 more
+        SimulatorController controller = SimulatorControllerTest.controller("LRU");
+        controller.setPrefetcher(PrefetcherType.NEXT_LINE, 1);
+        int numSets = controller.getCache().getNumSets();
+
+        controller.read(BASE);
+        // the prefetched line is still 100 cycles away
+        controller.read(BASE + BLOCK_SIZE);
+        assertEquals(202, controller.getStats().getCycles());
+        for (int i = 0; i < 100; i++) controller.read(BASE);
+        // the next one has arrived by now
+        controller.read(BASE + 2 * BLOCK_SIZE);
+        // two demand misses in its set push out the unused prefetch of the fourth block
+        controller.read(BASE + (3 + numSets) * BLOCK_SIZE);
+        controller.read(BASE + (3 + 2 * numSets) * BLOCK_SIZE);
+
+        StatisticsTracker stats = controller.getStats();
+        assertEquals(5, stats.getPrefetches());
+        assertEquals(2, stats.getUsefulPrefetches());
+        assertEquals(1, stats.getLatePrefetches());
+        assertEquals(1, stats.getUselessPrefetches());
+        assertEquals(0, stats.getPrefetchBufferHits());
+        assertEquals(3, stats.getMisses());
+    }
+
+    @Test
+    void streamBufferServesMissesAndDropsItsOldestLines() {
+        SimulatorController controller = SimulatorControllerTest.controller("LRU");
+        controller.write(BASE + 2 * BLOCK_SIZE + 5, (byte) 42, WritePolicy.WRITE_THROUGH, WriteMissPolicy.NO_WRITE_ALLOCATE);
+        controller.setPrefetcher(PrefetcherType.STREAM_BUFFER, 2);
+        StatisticsTracker stats = controller.getStats();
+        long cycles = stats.getCycles();
+
+        controller.read(BASE);
+        controller.read(BASE + BLOCK_SIZE);
+        assertEquals(202, stats.getCycles() - cycles);
+        for (int i = 0; i < 100; i++) controller.read(BASE);
+        // served from the buffer, data included, without waiting
+        assertEquals(42, controller.read(BASE + 2 * BLOCK_SIZE + 5));
+        assertEquals(202 + 100 + 1, stats.getCycles() - cycles);
+        // a new stream replaces both lines still buffered
+        controller.read(BASE + 50 * BLOCK_SIZE);
+
+        assertEquals(6, stats.getPrefetches());
+        assertEquals(2, stats.getUsefulPrefetches());
+        assertEquals(1, stats.getLatePrefetches());
+        assertEquals(2, stats.getUselessPrefetches());
+        assertEquals(2, stats.getPrefetchBufferHits());
+        assertEquals(0, stats.getPrefetchEvictions());
+    }
+
+    @Test
+    void rejectsDegreesOutsideTheCap() {
+        SimulatorController controller = SimulatorControllerTest.controller("LRU");
+        for (PrefetcherType type : PrefetcherType.values()) {
+            assertThrows(IllegalArgumentException.class, () -> controller.setPrefetcher(type, 0));
+            assertThrows(IllegalArgumentException.class, () -> controller.setPrefetcher(type, PrefetcherType.MAX_DEGREE + 1));
+        }
+        controller.setPrefetcher(PrefetcherType.STREAM_BUFFER, PrefetcherType.MAX_DEGREE);
+        assertEquals(PrefetcherType.MAX_DEGREE, controller.getPrefetchDegree());
+    }
+}
@@ -0,0 +1,68 @@
+package controller;
+
+import model.address.AddressParser;
+import model.cache.CacheStorage;
+import model.cache.CacheStorageType;
+import model.memory.MainMemory;
+import model.memory.PagedMainMemory;
+import model.statistics.StatisticsTracker;
+import model.trace.TraceBuffer;
+import model.trace.TraceReader;
+import model.write.WriteMissPolicy;
+import model.write.WritePolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedSimulatorTest {
+    private static final int BLOCK_SIZE = 16;
+    private static final int CACHE_SIZE = 1024 * 4 * BLOCK_SIZE;
+
+    @Test
+    void shardedReplayMatchesSequentialReplay() throws IOException {
+        TraceBuffer trace = trace();
+        for (String policy : List.of("LRU", "FIFO", "RANDOM")) {
+            for (WriteMissPolicy missPolicy : WriteMissPolicy.values()) {
+                SimulatorController sequential = controller(policy);
+                SimulatorController sharded = controller(policy);
+                Map<String, Object> expected = sequential.replayTrace(trace.cursor(), WritePolicy.WRITE_BACK, missPolicy, 1);
+                Map<String, Object> actual = sharded.replayTrace(trace.cursor(), WritePolicy.WRITE_BACK, missPolicy, 4);
+
+                assertTrue(((Number) actual.get("shards")).intValue() > 1);
+                for (String key : List.of("reads", "writes", "hits", "misses", "evictions", "writeBacks", "cycles")) {
+                    assertEquals(expected.get(key), actual.get(key), policy + " " + missPolicy + " " + key);
+                }
+                assertArrayEquals(sequential.getStats().getSetConflicts(), sharded.getStats().getSetConflicts());
+                // page 0 starts out random in every memory
+                for (long address = MainMemory.PAGE_SIZE; address < 4L * CACHE_SIZE; address += 61) {
+                    assertEquals(sequential.read(address), sharded.read(address));
+                }
+            }
+        }
+    }
+
+    private static SimulatorController controller(String policy) {
+        CacheStorage cache = SimulatorController.createCache(CACHE_SIZE, BLOCK_SIZE, 4, policy, CacheStorageType.FLAT);
+        return new SimulatorController(cache, new PagedMainMemory(), new AddressParser(BLOCK_SIZE, cache.getNumSets()),
+                WritePolicy.WRITE_BACK, new StatisticsTracker(null, cache.getNumSets()));
+    }
+    private static TraceBuffer trace() throws IOException {
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            long address = random.nextInt(4 * CACHE_SIZE);
+            if (random.nextInt(4) == 0) {
+                text.append("w ").append(Long.toHexString(address)).append(' ').append(random.nextInt(256)).append('\n');
+            } else {
+                text.append("r ").append(Long.toHexString(address)).append('\n');
+            }
+        }
+        return TraceBuffer.decode(new TraceReader(new StringReader(text.toString())));
+    }
+}
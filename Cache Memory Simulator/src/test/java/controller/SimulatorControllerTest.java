@@ -0,0 +1,182 @@
+package controller;
+
+import model.address.AddressParser;
+import model.cache.CacheLevel;
+import model.cache.CacheStorage;
+import model.cache.CacheStorageType;
+import model.cache.InclusionPolicy;
+import model.memory.MainMemory;
+import model.memory.PagedMainMemory;
+import model.prefetch.PrefetcherType;
+import model.statistics.LatencyModel;
+import model.statistics.StatisticsTracker;
+import model.trace.TraceReader;
+import model.write.WriteMissPolicy;
+import model.write.WritePolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatorControllerTest {
+    private static final int BLOCK_SIZE = 32;
+    private static final int CACHE_SIZE = 1024;
+
+    @Test
+    void batchMatchesTheSameAccessesOneByOne() {
+        SimulatorController batched = controller("LRU");
+        SimulatorController single = controller("LRU");
+        Random random = new Random(9);
+        List<BatchOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            BatchOperation op = new BatchOperation();
+            op.setOp(random.nextInt(3) == 0 ? "w" : "READ");
+            op.setAddress(MainMemory.PAGE_SIZE + random.nextInt(8 * CACHE_SIZE));
+            op.setValue(random.nextInt(256));
+            op.setMissPolicy(random.nextInt(4) == 0 ? WriteMissPolicy.NO_WRITE_ALLOCATE : WriteMissPolicy.WRITE_ALLOCATE);
+            operations.add(op);
+        }
+
+        BatchResult result = batched.batch(operations);
+        assertEquals(operations.size(), result.getCount());
+        int evictions = 0;
+        long cycles = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation op = operations.get(i);
+            Map<String, Object> expected = op.isWrite()
+                    ? single.writeStats(op.getAddress(), (byte) op.getValue(), op.getWritePolicy(), op.getMissPolicy())
+                    : single.readStats(op.getAddress());
+            boolean hit = (result.getHits()[i >>> 3] & (1 << (i & 7))) != 0;
+            assertEquals(expected.get("hit"), hit, "operation " + i);
+            assertEquals(expected.get("cycles"), result.getCycles()[i], "operation " + i);
+            if (!op.isWrite()) {
+                assertEquals(expected.get("value"), result.getValues()[i], "operation " + i);
+                assertEquals(expected.get("wayIndex"), result.getWays()[i], "operation " + i);
+            }
+            if (Boolean.TRUE.equals(expected.get("evicted"))) {
+                assertEquals(i, result.getEvictedIndexes()[evictions]);
+                assertEquals(expected.get("evictedTag"), result.getEvictedTags()[evictions]);
+                assertEquals(expected.get("evictedDirty"), result.getEvictedDirty()[evictions]);
+                evictions++;
+            }
+            cycles += ((Number) expected.get("cycles")).longValue();
+        }
+        assertEquals(evictions, result.getEvictedIndexes().length);
+        assertEquals(cycles, result.getTotalCycles());
+        assertEquals(single.getStats().getHits(), batched.getStats().getHits());
+        assertEquals(single.getStats().getWriteBacks(), batched.getStats().getWriteBacks());
+    }
+
+    @Test
+    void malformedBatchRunsNothing() {
+        SimulatorController controller = controller("LRU");
+        BatchOperation read = new BatchOperation();
+        read.setOp("r");
+        read.setAddress(64);
+        BatchOperation bad = new BatchOperation();
+        bad.setOp("x");
+        BatchOperation negative = new BatchOperation();
+        negative.setOp("w");
+        negative.setAddress(-1);
+        BatchOperation noPolicy = new BatchOperation();
+        noPolicy.setOp("w");
+        noPolicy.setWritePolicy(null);
+
+        for (BatchOperation op : new BatchOperation[]{bad, negative, noPolicy, null}) {
+            List<BatchOperation> operations = new ArrayList<>(List.of(read));
+            operations.add(op);
+            assertThrows(IllegalArgumentException.class, () -> controller.batch(operations));
+        }
+        assertEquals(0, controller.getStats().getReads() + controller.getStats().getWrites());
+    }
+
+    @Test
+    void chargesEachAccessFromTheLatencyModel() {
+        SimulatorController controller = controller("LRU");
+        LatencyModel latency = new LatencyModel();
+        latency.setHitLatency(2);
+        latency.setMissPenalty(50);
+        latency.setWriteBackCost(30);
+        latency.setWriteThroughCost(7);
+        controller.setLatency(latency);
+        int numSets = controller.getCache().getNumSets();
+        long base = MainMemory.PAGE_SIZE;
+        long sameSet = (long) numSets * BLOCK_SIZE;
+
+        assertEquals(52, controller.readStats(base).get("cycles"));
+        assertEquals(2, controller.readStats(base).get("cycles"));
+        assertEquals(2, controller.writeStats(base, (byte) 1, WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE).get("cycles"));
+        assertEquals(52, controller.readStats(base + sameSet).get("cycles"));
+        // the third block in a two-way set evicts the dirty one
+        assertEquals(82, controller.readStats(base + 2 * sameSet).get("cycles"));
+        assertEquals(9, controller.writeStats(base + 2 * sameSet, (byte) 2, WritePolicy.WRITE_THROUGH, WriteMissPolicy.WRITE_ALLOCATE).get("cycles"));
+        assertEquals(9, controller.writeStats(base + 3 * sameSet, (byte) 3, WritePolicy.WRITE_BACK, WriteMissPolicy.NO_WRITE_ALLOCATE).get("cycles"));
+
+        StatisticsTracker stats = controller.getStats();
+        assertEquals(52 + 2 + 2 + 52 + 82 + 9 + 9, stats.getCycles());
+        assertEquals(stats.getCycles() / 7.0, stats.amat(), 1e-9);
+    }
+
+    @Test
+    void replayReportsCyclesAndAmat() throws IOException {
+        SimulatorController controller = controller("LRU");
+        StringBuilder trace = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            trace.append("r ").append(MainMemory.PAGE_SIZE + (long) i * BLOCK_SIZE).append('\n');
+        }
+        trace.append("r ").append(MainMemory.PAGE_SIZE).append('\n');
+        Map<String, Object> result = controller.replayTrace(new TraceReader(new StringReader(trace.toString())),
+                WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE);
+        assertEquals(5L, result.get("accesses"));
+        assertEquals(4 * 101L + 1, result.get("cycles"));
+        assertEquals(405 / 5.0, (double) result.get("amat"), 1e-9);
+    }
+
+    @Test
+    void tagOnlyReplayCountsLikeTheDataCache() throws IOException {
+        for (String policy : new String[]{"LRU", "FIFO", "RANDOM"}) {
+            SimulatorController flat = controller(policy);
+            LevelConfig l2 = new LevelConfig();
+            l2.setCacheSizeBytes(4 * CACHE_SIZE);
+            l2.setAssociativity(4);
+            l2.setInclusion(InclusionPolicy.INCLUSIVE);
+            flat.setLevels(List.of(l2));
+            flat.setPrefetcher(PrefetcherType.NEXT_LINE, 2);
+            SimulatorController tagOnly = flat.tagOnlyCopy();
+            assertTrue(tagOnly.isTagOnly());
+
+            StringBuilder trace = new StringBuilder();
+            Random random = new Random(24);
+            for (int i = 0; i < 20_000; i++) {
+                long address = MainMemory.PAGE_SIZE + random.nextInt(16 * CACHE_SIZE);
+                trace.append(random.nextInt(3) == 0 ? "w " : "r ").append(address).append('\n');
+            }
+            for (WritePolicy writePolicy : WritePolicy.values()) {
+                Map<String, Object> expected = flat.replayTrace(new TraceReader(new StringReader(trace.toString())),
+                        writePolicy, WriteMissPolicy.NO_WRITE_ALLOCATE);
+                Map<String, Object> actual = tagOnly.replayTrace(new TraceReader(new StringReader(trace.toString())),
+                        writePolicy, WriteMissPolicy.NO_WRITE_ALLOCATE);
+                for (String key : new String[]{"hits", "misses", "evictions", "writeBacks", "cycles", "prefetches", "usefulPrefetches"}) {
+                    assertEquals(expected.get(key), actual.get(key), policy + " " + writePolicy + " " + key);
+                }
+            }
+            CacheLevel flatL2 = flat.getLowerLevels().get(0);
+            CacheLevel tagOnlyL2 = tagOnly.getLowerLevels().get(0);
+            assertEquals(flatL2.getStats().getHits(), tagOnlyL2.getStats().getHits(), policy);
+            assertEquals(flatL2.getStats().getWriteBacks(), tagOnlyL2.getStats().getWriteBacks(), policy);
+            assertEquals(flatL2.getBackInvalidations(), tagOnlyL2.getBackInvalidations(), policy);
+        }
+    }
+
+    static SimulatorController controller(String policy) {
+        CacheStorage cache = SimulatorController.createCache(CACHE_SIZE, BLOCK_SIZE, 2, policy, CacheStorageType.FLAT);
+        return new SimulatorController(cache, new PagedMainMemory(), new AddressParser(BLOCK_SIZE, cache.getNumSets()),
+                WritePolicy.WRITE_BACK, new StatisticsTracker(null, cache.getNumSets()));
+    }
+}
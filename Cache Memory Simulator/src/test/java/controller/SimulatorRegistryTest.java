@@ -0,0 +1,106 @@
+package controller;
+
+import model.address.AddressParser;
+import model.cache.CacheStorage;
+import model.cache.CacheStorageType;
+import model.memory.PagedMainMemory;
+import model.statistics.StatisticsTracker;
+import model.write.WritePolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatorRegistryTest {
+    @Test
+    void concurrentFirstRequestsNeverOvershootTheLimit() throws Exception {
+        SimulatorRegistry registry = new SimulatorRegistry(controller(), SimulatorRegistryTest::controller, 8, 60_000);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger refused = new AtomicInteger();
+        Set<SimulatorSession> created = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 64; i++) {
+                String id = "client-" + i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        created.add(registry.get(id));
+                    } catch (IllegalStateException e) {
+                        refused.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(8, created.size());
+        assertEquals(56, refused.get());
+        assertEquals(9, registry.size());
+    }
+
+    @Test
+    void removedAndIdleSessionsFreeTheirSlots() throws Exception {
+        SimulatorRegistry registry = new SimulatorRegistry(controller(), SimulatorRegistryTest::controller, 2, 0);
+        SimulatorSession a = registry.get("a");
+        assertSame(a, registry.get("a"));
+        registry.get("b");
+        assertSame(registry.get(null), registry.get(SimulatorRegistry.DEFAULT_SESSION));
+
+        // an idle timeout of 0 lets a full registry evict every session that is not running an operation
+        Thread.sleep(1);
+        SimulatorSession c = registry.get("c");
+        assertNotSame(a, registry.get("a"));
+        assertSame(c, registry.remove("c"));
+        assertNull(registry.remove("c"));
+        assertNotSame(c, registry.get("c"));
+        assertThrows(IllegalArgumentException.class, () -> registry.get("not a valid id"));
+    }
+
+    @Test
+    void findNeverCreatesAndSubscribedSessionsAreNotIdle() throws Exception {
+        SimulatorRegistry registry = new SimulatorRegistry(controller(), SimulatorRegistryTest::controller, 2, 0);
+        assertNull(registry.find("watcher"));
+        assertSame(registry.get(null), registry.find(null));
+        assertThrows(IllegalArgumentException.class, () -> registry.find("not a valid id"));
+
+        SimulatorSession watched = registry.get("watcher");
+        SimulatorSession idle = registry.get("idle");
+        assertSame(watched, registry.find("watcher"));
+        // the events buffer is enabled exactly while the session has /events subscribers
+        watched.getEvents().setEnabled(true);
+        Thread.sleep(1);
+        registry.get("new");
+        assertSame(watched, registry.find("watcher"));
+        assertNull(registry.find("idle"));
+    }
+
+    @Test
+    void sessionMemoryStopsAtItsPageLimit() {
+        PagedMainMemory memory = new PagedMainMemory(3);
+        memory.write(PagedMainMemory.PAGE_SIZE, (byte) 1);
+        memory.write(2L * PagedMainMemory.PAGE_SIZE, (byte) 2);
+        assertThrows(IllegalArgumentException.class, () -> memory.write(3L * PagedMainMemory.PAGE_SIZE, (byte) 3));
+        // already allocated pages and unwritten reads still work
+        memory.write(PagedMainMemory.PAGE_SIZE + 1, (byte) 4);
+        assertEquals(0, memory.read(9L * PagedMainMemory.PAGE_SIZE));
+        assertEquals(3, memory.getPageCount());
+    }
+
+    private static SimulatorController controller() {
+        CacheStorage cache = SimulatorController.createCache(1024, 32, 4, "LRU", CacheStorageType.FLAT);
+        return new SimulatorController(cache, new PagedMainMemory(), new AddressParser(32, cache.getNumSets()),
+                WritePolicy.WRITE_BACK, new StatisticsTracker());
+    }
+}
@@ -0,0 +1,46 @@
+package controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpscRingBufferTest {
+    @Test
+    void offerFailsWhenFullAndPollDrainsInOrder() {
+        SpscRingBuffer queue = new SpscRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i % 2 == 1, i, (byte) i, i));
+        }
+        assertFalse(queue.offer(false, 4, (byte) 4));
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.poll());
+            assertEquals(i % 2 == 1, queue.isWrite());
+            assertEquals(i, queue.getAddress());
+            assertEquals(i, queue.getValue());
+            assertEquals(i, queue.getCore());
+        }
+        assertFalse(queue.poll());
+    }
+
+    @Test
+    void takeDrainsEveryRecordBeforeReportingClose() throws InterruptedException {
+        SpscRingBuffer queue = new SpscRingBuffer(16);
+        int records = 100_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < records; i++) {
+                queue.put(false, i, (byte) 0);
+            }
+            queue.close();
+        });
+        producer.start();
+
+        long expected = 0;
+        while (queue.take()) {
+            assertEquals(expected++, queue.getAddress());
+        }
+        producer.join();
+        assertEquals(records, expected);
+        assertFalse(queue.take());
+    }
+}
@@ -0,0 +1,99 @@
+package controller;
+
+import model.address.AddressParser;
+import model.cache.CacheStorage;
+import model.cache.CacheStorageType;
+import model.memory.PagedMainMemory;
+import model.prefetch.PrefetcherType;
+import model.statistics.LatencyModel;
+import model.statistics.StatisticsTracker;
+import model.trace.TraceBuffer;
+import model.trace.TraceReader;
+import model.write.WriteMissPolicy;
+import model.write.WritePolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SweepEngineTest {
+    @Test
+    void everyConfigurationMatchesItsOwnReplay() throws IOException {
+        TraceBuffer trace = trace();
+        List<SweepConfig> configs = new ArrayList<>();
+        for (String policy : List.of("LRU", "FIFO")) {
+            for (int ways : new int[]{1, 4}) {
+                configs.add(config(4096, 32, ways, policy));
+            }
+        }
+        configs.add(config(8192, 64, 8, "LRU"));
+
+        List<Map<String, Object>> results;
+        try (SweepEngine sweep = new SweepEngine(4, 64)) {
+            results = sweep.run(trace, configs, WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE, new LatencyModel());
+        }
+        assertEquals(configs.size(), results.size());
+        for (int i = 0; i < configs.size(); i++) {
+            SweepConfig config = configs.get(i);
+            CacheStorage cache = SimulatorController.createCache(config.getCacheSizeBytes(), config.getBlockSize(),
+                    config.getAssociativity(), config.getReplacementPolicy(), config.getStorage());
+            SimulatorController alone = new SimulatorController(cache, new PagedMainMemory(),
+                    new AddressParser(cache.getBlockSize(), cache.getNumSets()), WritePolicy.WRITE_BACK, new StatisticsTracker());
+            Map<String, Object> expected = alone.replayTrace(trace.cursor(), WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE);
+            for (String key : List.of("hits", "misses", "evictions", "writeBacks", "cycles")) {
+                assertEquals(expected.get(key), results.get(i).get(key), i + " " + key);
+            }
+            assertEquals(config.getAssociativity(), results.get(i).get("associativity"));
+        }
+    }
+
+    @Test
+    void rejectsInvalidConfigurationsBeforeRunningAny() throws IOException {
+        TraceBuffer trace = trace();
+        SweepConfig noPrefetcher = config(4096, 32, 4, "LRU");
+        noPrefetcher.setPrefetcher(null);
+        SweepConfig optPrefetching = config(4096, 32, 4, "OPT");
+        optPrefetching.setPrefetcher(PrefetcherType.NEXT_LINE);
+        SweepConfig badDegree = config(4096, 32, 4, "LRU");
+        badDegree.setPrefetcher(PrefetcherType.STRIDE);
+        badDegree.setPrefetchDegree(0);
+
+        try (SweepEngine sweep = new SweepEngine(2, 4)) {
+            for (SweepConfig bad : List.of(noPrefetcher, optPrefetching, badDegree, config(4096, 32, 0, "LRU"), config(4096, 32, 4, "NOPE"))) {
+                assertThrows(IllegalArgumentException.class,
+                        () -> sweep.run(trace, List.of(config(4096, 32, 4, "LRU"), bad), WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE, new LatencyModel()));
+            }
+            List<SweepConfig> tooMany = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                tooMany.add(config(4096, 32, 4, "LRU"));
+            }
+            assertThrows(IllegalArgumentException.class,
+                    () -> sweep.run(trace, tooMany, WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE, new LatencyModel()));
+        }
+    }
+
+    private static SweepConfig config(int size, int block, int ways, String policy) {
+        SweepConfig config = new SweepConfig();
+        config.setCacheSizeBytes(size);
+        config.setBlockSize(block);
+        config.setAssociativity(ways);
+        config.setReplacementPolicy(policy);
+        config.setStorage(CacheStorageType.FLAT);
+        return config;
+    }
+    private static TraceBuffer trace() throws IOException {
+        Random random = new Random(5);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            long address = random.nextInt(3) == 0 ? random.nextInt(1 << 16) : random.nextInt(4096);
+            text.append(random.nextInt(4) == 0 ? "w " : "r ").append(Long.toHexString(address)).append(" 1\n");
+        }
+        return TraceBuffer.decode(new TraceReader(new StringReader(text.toString())));
+    }
+}
@@ -0,0 +1,95 @@
+package model.cache;
+
+import model.memory.MainMemory;
+import model.memory.PagedMainMemory;
+import model.replacement.LRUReplacement;
+import model.write.WritePolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheLevelTest {
+    private static final int BLOCK = 16;
+    // one set of two ways, so the third block evicts the first
+    private static final long A = MainMemory.PAGE_SIZE;
+    private static final long B = A + BLOCK;
+    private static final long C = A + 2 * BLOCK;
+
+    @Test
+    void inclusiveEvictionBackInvalidatesAndKeepsTheUpperDirtyCopy() {
+        MainMemory memory = new PagedMainMemory();
+        CacheLevel level = level(InclusionPolicy.INCLUSIVE, memory);
+        byte[] dirty = filled((byte) 7);
+        List<Long> invalidated = new ArrayList<>();
+        // the level above holds A dirty and writes it back when invalidated
+        level.setUpper(address -> {
+            invalidated.add(address);
+            if (address == A) level.writeBlock(A, dirty, 0, BLOCK);
+        });
+
+        byte[] block = new byte[BLOCK];
+        level.readBlock(A, block, 0, BLOCK);
+        level.readBlock(B, block, 0, BLOCK);
+        level.readBlock(C, block, 0, BLOCK);
+
+        assertEquals(List.of(A), invalidated);
+        assertEquals(1, level.getBackInvalidations());
+        assertEquals(1, level.getStats().getEvictions());
+        assertEquals(1, level.getStats().getWriteBacks());
+        assertEquals(7, memory.read(A + 3));
+        assertEquals(-1, level.getCache().findWay(0, A / BLOCK));
+    }
+
+    @Test
+    void nonInclusiveEvictionLeavesTheUpperLevelAlone() {
+        CacheLevel level = level(InclusionPolicy.NON_INCLUSIVE, new PagedMainMemory());
+        level.setUpper(address -> fail("back-invalidated " + address));
+        byte[] block = new byte[BLOCK];
+        for (long address : new long[]{A, B, C}) {
+            level.readBlock(address, block, 0, BLOCK);
+        }
+        level.insertVictim(A, block, 0);
+        assertEquals(0, level.getBackInvalidations());
+        assertEquals(-1, level.getCache().findWay(0, A / BLOCK));
+    }
+
+    @Test
+    void exclusiveLevelHoldsOnlyVictimsAndHandsThemBackUp() {
+        MainMemory memory = new PagedMainMemory();
+        CacheLevel level = level(InclusionPolicy.EXCLUSIVE, memory);
+        byte[] block = new byte[BLOCK];
+
+        // a miss goes straight through without allocating
+        level.readBlock(A, block, 0, BLOCK);
+        assertEquals(10 + 100, level.getLastReadCycles());
+        assertEquals(-1, level.getCache().findWay(0, A / BLOCK));
+
+        level.insertVictim(A, filled((byte) 3), 0);
+        level.insertVictim(B, filled((byte) 4), 0);
+        level.insertVictim(C, filled((byte) 5), 0);
+        // A was the least recently inserted and, being clean, is simply dropped
+        assertEquals(-1, level.getCache().findWay(0, A / BLOCK));
+        assertEquals(0, level.getStats().getWriteBacks());
+
+        level.readBlock(B, block, 0, BLOCK);
+        assertEquals(10, level.getLastReadCycles());
+        assertArrayEquals(filled((byte) 4), block);
+        // the block moved up, so this level no longer has it
+        assertEquals(-1, level.getCache().findWay(0, B / BLOCK));
+        assertTrue(level.getCache().findWay(0, C / BLOCK) >= 0);
+    }
+
+    private static CacheLevel level(InclusionPolicy inclusion, MainMemory next) {
+        FlatCache cache = new FlatCache(2 * BLOCK, BLOCK, 2, LRUReplacement::new);
+        return new CacheLevel(cache, next, inclusion, WritePolicy.WRITE_BACK, 10, 100);
+    }
+    private static byte[] filled(byte value) {
+        byte[] block = new byte[BLOCK];
+        Arrays.fill(block, value);
+        return block;
+    }
+}
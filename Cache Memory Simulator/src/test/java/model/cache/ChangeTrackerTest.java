@@ -0,0 +1,52 @@
+package model.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeTrackerTest {
+    @Test
+    void reportsEachChangedLineOnceInOrderOfItsLastChange() {
+        ChangeTracker changes = new ChangeTracker(8, 10);
+        changes.mark(3);
+        long afterFirst = changes.getVersion();
+        changes.mark(5);
+        changes.mark(1);
+        changes.mark(3);
+
+        assertEquals(14, changes.getVersion());
+        assertArrayEquals(new int[]{5, 1, 3}, changes.changedSince(10));
+        assertArrayEquals(new int[]{5, 1, 3}, changes.changedSince(afterFirst));
+        assertArrayEquals(new int[]{3}, changes.changedSince(13));
+        assertArrayEquals(new int[0], changes.changedSince(14));
+    }
+
+    @Test
+    void remarkingTheNewestOrOldestLineKeepsTheListIntact() {
+        ChangeTracker changes = new ChangeTracker(4, 0);
+        changes.mark(0);
+        changes.mark(1);
+        changes.mark(1);
+        changes.mark(0);
+        changes.mark(2);
+        assertArrayEquals(new int[]{1, 0, 2}, changes.changedSince(0));
+        assertArrayEquals(new int[]{0, 2}, changes.changedSince(3));
+    }
+
+    @Test
+    void resetInvalidatesOutstandingVersions() {
+        ChangeTracker changes = new ChangeTracker(4, 5);
+        assertTrue(changes.isCurrent(5));
+        changes.mark(2);
+        long held = changes.getVersion();
+        assertTrue(changes.isCurrent(held));
+        assertFalse(changes.isCurrent(held + 1));
+
+        changes.reset();
+        assertFalse(changes.isCurrent(held));
+        assertEquals(changes.getVersion(), changes.getBaseVersion());
+        assertTrue(changes.isCurrent(changes.getVersion()));
+        changes.mark(0);
+        assertArrayEquals(new int[]{0}, changes.changedSince(changes.getBaseVersion()));
+    }
+}
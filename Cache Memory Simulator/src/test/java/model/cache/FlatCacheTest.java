@@ -0,0 +1,109 @@
+package model.cache;
+
+import model.memory.MainMemory;
+import model.memory.PagedMainMemory;
+import model.replacement.LRUReplacement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatCacheTest {
+    private static final int BLOCK = 16;
+    private static final int SETS = 64;
+    private static final int WAYS = 2;
+
+    @Test
+    void bitsOfNeighbouringLinesAcrossAWordBoundaryStayApart() {
+        // lines 63 and 64 sit in different words of the valid and dirty bitsets
+        FlatCache cache = new FlatCache(SETS * WAYS * BLOCK, BLOCK, WAYS, LRUReplacement::new);
+        MainMemory memory = new PagedMainMemory();
+        cache.fillWay(31, 1, 5, memory);
+        cache.fillWay(32, 0, 6, memory);
+        cache.setDirty(31, 1, true);
+
+        assertTrue(cache.isValid(31, 1));
+        assertTrue(cache.isDirty(31, 1));
+        assertTrue(cache.isValid(32, 0));
+        assertFalse(cache.isDirty(32, 0));
+        assertFalse(cache.isValid(31, 0));
+        assertFalse(cache.isValid(32, 1));
+
+        cache.invalidate(31, 1);
+        assertFalse(cache.isValid(31, 1));
+        assertFalse(cache.isDirty(31, 1));
+        assertTrue(cache.isValid(32, 0));
+        assertEquals(-1, cache.findWay(31, 5));
+        assertEquals(0, cache.findWay(32, 6));
+    }
+
+    @Test
+    void writeBackCopiesTheLineAndCleansIt() {
+        FlatCache cache = new FlatCache(SETS * WAYS * BLOCK, BLOCK, WAYS, LRUReplacement::new);
+        MainMemory memory = new PagedMainMemory();
+        long address = (8L * SETS + 7) * BLOCK;
+        memory.write(address + 2, (byte) 9);
+
+        cache.fillWay(7, 0, 8, memory);
+        assertEquals(9, cache.readByte(7, 0, 2));
+        cache.writeByte(7, 0, 5, (byte) 42);
+        cache.setDirty(7, 0, true);
+        assertEquals(0, memory.read(address + 5));
+
+        cache.writeBack(7, 0, memory);
+        assertEquals(42, memory.read(address + 5));
+        assertFalse(cache.isDirty(7, 0));
+        assertTrue(cache.isValid(7, 0));
+    }
+
+    @Test
+    void matchesObjectStorageOnARandomWorkload() {
+        CacheStorage flat = CacheStorageType.FLAT.create(SETS * WAYS * BLOCK, BLOCK, WAYS, LRUReplacement::new);
+        CacheStorage object = CacheStorageType.OBJECT.create(SETS * WAYS * BLOCK, BLOCK, WAYS, LRUReplacement::new);
+        MainMemory flatMemory = new PagedMainMemory();
+        MainMemory objectMemory = new PagedMainMemory();
+
+        Random random = new Random(3);
+        for (int i = 0; i < 20_000; i++) {
+            // page 0 holds random bytes that differ between the two memories
+            long address = MainMemory.PAGE_SIZE + random.nextInt(SETS * WAYS * BLOCK * 4);
+            boolean write = random.nextInt(3) == 0;
+            byte value = (byte) random.nextInt();
+            assertEquals(access(object, objectMemory, address, write, value), access(flat, flatMemory, address, write, value), "access " + i);
+        }
+        for (int set = 0; set < SETS; set++) {
+            for (int way = 0; way < WAYS; way++) {
+                assertEquals(object.isValid(set, way), flat.isValid(set, way));
+                assertEquals(object.isDirty(set, way), flat.isDirty(set, way));
+                if (object.isValid(set, way)) {
+                    assertEquals(object.getTag(set, way), flat.getTag(set, way));
+                    assertArrayEquals(object.getData(set, way), flat.getData(set, way));
+                }
+            }
+        }
+    }
+
+    // the hit way (or -way - 1 on a miss) and the byte read, packed so one comparison checks both
+    private static long access(CacheStorage cache, MainMemory memory, long address, boolean write, byte value) {
+        long block = address / BLOCK;
+        int set = (int) (block % SETS);
+        long tag = block / SETS;
+        int offset = (int) (address % BLOCK);
+
+        int way = cache.findWay(set, tag);
+        int outcome = way;
+        if (way < 0) {
+            way = cache.chooseVictim(set);
+            outcome = -way - 1;
+            cache.fillWay(set, way, tag, memory);
+        } else {
+            cache.touch(set, way);
+        }
+        if (write) {
+            cache.writeByte(set, way, offset, value);
+            cache.setDirty(set, way, true);
+        }
+        return ((long) outcome << 8) | (cache.readByte(set, way, offset) & 0xFF);
+    }
+}
@@ -0,0 +1,82 @@
+package model.cache;
+
+import model.memory.NullMainMemory;
+import model.replacement.LRUReplacement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagIndexTest {
+    private static final int WAYS = 130;
+
+    @Test
+    void tracksTagsAndTheLowestFreeWay() {
+        TagIndex index = new TagIndex(WAYS);
+        assertEquals(0, index.firstFree());
+        for (int way = 0; way < WAYS; way++) {
+            index.insert(way, 1000 + way);
+        }
+        assertEquals(-1, index.firstFree());
+        assertEquals(129, index.find(1129));
+        assertEquals(-1, index.find(999));
+
+        index.remove(70, 1070);
+        index.remove(3, 1003);
+        assertEquals(-1, index.find(1070));
+        assertEquals(3, index.firstFree());
+        index.insert(3, 5);
+        assertEquals(70, index.firstFree());
+        assertEquals(3, index.find(5));
+    }
+
+    @Test
+    void wideFlatCacheAgreesWithAScanOfItsLines() {
+        assertTrue(TagIndex.wanted(WAYS));
+        int sets = 4;
+        FlatCache cache = new FlatCache(sets * WAYS * 16, 16, WAYS, LRUReplacement::new, true);
+        NullMainMemory memory = new NullMainMemory();
+        long[][] tags = new long[sets][WAYS];
+        boolean[][] valid = new boolean[sets][WAYS];
+        Random random = new Random(23);
+
+        for (int step = 0; step < 50_000; step++) {
+            int set = random.nextInt(sets);
+            long tag = random.nextInt(3 * WAYS);
+            int way = find(tags[set], valid[set], tag);
+            int choice = random.nextInt(10);
+            if (way >= 0 && choice < 3) {
+                cache.invalidate(set, way);
+                valid[set][way] = false;
+            } else if (way < 0 && choice < 8) {
+                int expectedFree = find(tags[set], valid[set], -1);
+                int victim = cache.chooseVictim(set);
+                if (expectedFree >= 0) assertEquals(expectedFree, victim, "step " + step);
+                cache.fillWay(set, victim, tag, memory);
+                tags[set][victim] = tag;
+                valid[set][victim] = true;
+            } else if (way < 0) {
+                int target = random.nextInt(WAYS);
+                cache.installWay(set, target, tag, null, 0);
+                tags[set][target] = tag;
+                valid[set][target] = true;
+            }
+            assertEquals(find(tags[set], valid[set], tag), cache.findWay(set, tag), "step " + step);
+        }
+        for (int set = 0; set < sets; set++) {
+            for (int way = 0; way < WAYS; way++) {
+                assertEquals(valid[set][way], cache.isValid(set, way));
+                if (valid[set][way]) assertEquals(way, cache.findWay(set, tags[set][way]));
+            }
+        }
+    }
+
+    // the way holding tag, or with tag -1 the lowest invalid way
+    private static int find(long[] tags, boolean[] valid, long tag) {
+        for (int way = 0; way < tags.length; way++) {
+            if (tag < 0 ? !valid[way] : valid[way] && tags[way] == tag) return way;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,51 @@
+package model.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TagMatcherTest {
+    @Test
+    void testsRunWithTheVectorModule() {
+        // surefire adds jdk.incubator.vector so the vector search below is exercised
+        assertTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+    }
+
+    @Test
+    void vectorSearchMatchesTheScanAtEveryWidthAndOffset() {
+        assumeTrue(TagMatcher.VECTORIZED, "no vector lanes for longs on this CPU");
+        Random random = new Random(22);
+        long[] tags = new long[160];
+        for (int round = 0; round < 200; round++) {
+            // few distinct values, so slices hold duplicates and misses alike
+            for (int i = 0; i < tags.length; i++) {
+                tags[i] = random.nextInt(4) == 0 ? -1 : random.nextInt(24);
+            }
+            int from = random.nextInt(16);
+            int to = from + random.nextInt(tags.length - from + 1);
+            for (long tag : new long[]{-1, random.nextInt(24), 99, Long.MIN_VALUE}) {
+                int expected = TagMatcher.scalarIndexOf(tags, from, to, tag);
+                assertEquals(expected, TagMatcher.vectorIndexOf(tags, from, to, tag), "tag " + tag + " in [" + from + ", " + to + ")");
+                assertEquals(expected, TagMatcher.indexOf(tags, from, to, tag));
+            }
+        }
+    }
+
+    @Test
+    void findsATagInTheLastLaneAndTheTail() {
+        assumeTrue(TagMatcher.VECTORIZED, "no vector lanes for longs on this CPU");
+        for (int ways = 1; ways <= 3 * TagMatcher.VECTOR_MIN_WAYS; ways++) {
+            long[] tags = new long[ways + 2];
+            for (int i = 0; i < tags.length; i++) tags[i] = i + 100;
+            for (int hit = 1; hit <= ways; hit++) {
+                assertEquals(hit, TagMatcher.vectorIndexOf(tags, 1, ways + 1, hit + 100));
+            }
+            // neighbours outside the slice never match
+            assertEquals(-1, TagMatcher.vectorIndexOf(tags, 1, ways + 1, 100));
+            assertEquals(-1, TagMatcher.vectorIndexOf(tags, 1, ways + 1, ways + 101));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package model.coherence;
+
+import model.address.AddressParser;
+import model.cache.CacheStorageType;
+import model.memory.PagedMainMemory;
+import model.replacement.LRUReplacement;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static model.coherence.CoherenceState.*;
+
+class SnoopingBusTest {
+    private static final int BLOCK_SIZE = 16;
+    private static final int SETS = 4;
+    private static final long ADDRESS = 0x40;
+
+    @Test
+    void mesiTransitions() {
+        SnoopingBus bus = bus(CoherenceProtocol.MESI);
+
+        bus.read(0, ADDRESS);
+        assertEquals(EXCLUSIVE, state(bus, 0));
+
+        bus.read(1, ADDRESS);
+        assertEquals(SHARED, state(bus, 0));
+        assertEquals(SHARED, state(bus, 1));
+
+        bus.write(0, ADDRESS, (byte) 7);
+        assertEquals(MODIFIED, state(bus, 0));
+        assertEquals(INVALID, state(bus, 1));
+        assertEquals(1, bus.getBusUpgrades());
+        assertEquals(1, bus.getInvalidations());
+
+        // the dirty owner supplies the block and writes it back
+        assertEquals(7, bus.read(1, ADDRESS));
+        assertEquals(SHARED, state(bus, 0));
+        assertEquals(SHARED, state(bus, 1));
+        assertEquals(1, bus.getCacheTransfers());
+        assertEquals(1, bus.getMemoryWriteBacks());
+        assertEquals(1, bus.getCores()[1].getCoherenceMisses());
+
+        bus.write(1, ADDRESS, (byte) 9);
+        assertEquals(INVALID, state(bus, 0));
+        assertEquals(MODIFIED, state(bus, 1));
+
+        // a write miss takes the dirty block over without going through memory
+        bus.write(0, ADDRESS + 1, (byte) 3);
+        assertEquals(MODIFIED, state(bus, 0));
+        assertEquals(INVALID, state(bus, 1));
+        assertEquals(9, bus.read(0, ADDRESS));
+        assertEquals(1, bus.getBusReadExclusives());
+    }
+
+    @Test
+    void moesiKeepsTheDirtyOwner() {
+        SnoopingBus bus = bus(CoherenceProtocol.MOESI);
+
+        bus.write(0, ADDRESS, (byte) 5);
+        assertEquals(MODIFIED, state(bus, 0));
+
+        assertEquals(5, bus.read(1, ADDRESS));
+        assertEquals(OWNED, state(bus, 0));
+        assertEquals(SHARED, state(bus, 1));
+        assertEquals(0, bus.getMemoryWriteBacks());
+
+        assertEquals(5, bus.read(2, ADDRESS));
+        assertEquals(OWNED, state(bus, 0));
+        assertEquals(2, bus.getCacheTransfers());
+
+        bus.write(0, ADDRESS, (byte) 6);
+        assertEquals(MODIFIED, state(bus, 0));
+        assertEquals(INVALID, state(bus, 1));
+        assertEquals(INVALID, state(bus, 2));
+        assertEquals(1, bus.getBusUpgrades());
+        assertEquals(2, bus.getInvalidations());
+    }
+
+    private static SnoopingBus bus(CoherenceProtocol protocol) {
+        CoreCache[] cores = new CoreCache[3];
+        for (int i = 0; i < cores.length; i++) {
+            cores[i] = new CoreCache(CacheStorageType.FLAT.create(BLOCK_SIZE * SETS * 2, BLOCK_SIZE, 2, LRUReplacement::new));
+        }
+        return new SnoopingBus(cores, new PagedMainMemory(), new AddressParser(BLOCK_SIZE, SETS), protocol);
+    }
+    private static CoherenceState state(SnoopingBus bus, int core) {
+        CoreCache cache = bus.getCores()[core];
+        AddressParser parser = new AddressParser(BLOCK_SIZE, SETS);
+        int setIndex = parser.getSetIndex(ADDRESS);
+        int way = cache.getCache().findWay(setIndex, parser.getTag(ADDRESS));
+        return way < 0 ? INVALID : cache.getState(setIndex, way);
+    }
+}
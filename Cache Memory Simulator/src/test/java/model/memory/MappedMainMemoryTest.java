@@ -0,0 +1,94 @@
+package model.memory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedMainMemoryTest {
+    private static final int PAGE = MainMemory.PAGE_SIZE;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void blockTransfersRoundTripAcrossPages() throws IOException {
+        try (MappedMainMemory memory = new MappedMainMemory(dir.resolve("m.img"), 16L * PAGE, false)) {
+            byte[] src = new byte[PAGE + 64];
+            for (int i = 0; i < src.length; i++) {
+                src[i] = (byte) (i * 13 + 5);
+            }
+            long address = 2L * PAGE - 32;
+            memory.writeBlock(address, src, 0, src.length);
+
+            byte[] dst = new byte[src.length];
+            memory.readBlock(address, dst, 0, dst.length);
+            assertArrayEquals(src, dst);
+            assertEquals(src[32], memory.read(2L * PAGE));
+            assertEquals(0, memory.read(address - 1));
+        }
+    }
+
+    @Test
+    void rejectsAccessesOutsideTheImage() throws IOException {
+        try (MappedMainMemory memory = new MappedMainMemory(dir.resolve("m.img"), 4L * PAGE, false)) {
+            assertEquals(4L * PAGE, memory.getSize());
+            assertThrows(IllegalArgumentException.class, () -> memory.read(4L * PAGE));
+            assertThrows(IllegalArgumentException.class, () -> memory.write(-1, (byte) 1));
+            assertThrows(IllegalArgumentException.class, () -> memory.readBlock(4L * PAGE - 8, new byte[16], 0, 16));
+        }
+    }
+
+    @Test
+    void savesOnlyWrittenPagesAndRestoresThemOverOthers() throws IOException {
+        byte[] saved;
+        try (MappedMainMemory memory = new MappedMainMemory(dir.resolve("a.img"), 8L * PAGE, false)) {
+            memory.write(PAGE + 3, (byte) 7);
+            memory.writeBlock(5L * PAGE, new byte[]{1, 2, 3}, 0, 3);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            memory.savePages(new DataOutputStream(bytes));
+            saved = bytes.toByteArray();
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(saved));
+        assertEquals(1, in.readLong());
+        in.skipNBytes(PAGE);
+        assertEquals(5, in.readLong());
+        in.skipNBytes(PAGE);
+        assertEquals(-1, in.readLong());
+
+        try (MappedMainMemory memory = new MappedMainMemory(dir.resolve("b.img"), 8L * PAGE, false)) {
+            memory.write(3L * PAGE, (byte) 9);
+            TreeMap<Long, byte[]> pages = new TreeMap<>();
+            byte[] page = new byte[PAGE];
+            page[3] = 7;
+            pages.put(1L, page);
+            memory.restorePages(pages);
+
+            assertEquals(7, memory.read(PAGE + 3));
+            assertEquals(0, memory.read(3L * PAGE));
+        }
+    }
+
+    @Test
+    void reopenedImageKeepsItsContents() throws IOException {
+        Path file = dir.resolve("m.img");
+        try (MappedMainMemory memory = new MappedMainMemory(file, 8L * PAGE, false)) {
+            memory.write(6L * PAGE + 1, (byte) 42);
+        }
+        try (MappedMainMemory memory = new MappedMainMemory(file, 8L * PAGE, true)) {
+            assertEquals(42, memory.read(6L * PAGE + 1));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            memory.savePages(new DataOutputStream(bytes));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            assertEquals(6, in.readLong());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package model.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedMainMemoryTest {
+    private static final int PAGE = MainMemory.PAGE_SIZE;
+
+    @Test
+    void blockTransfersSplitAtPageBoundaries() {
+        PagedMainMemory memory = new PagedMainMemory();
+        byte[] src = new byte[PAGE + 100];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) (i * 7 + 1);
+        }
+        long address = 3L * PAGE - 50;
+        memory.writeBlock(address, src, 0, src.length);
+
+        assertEquals(src[0], memory.read(address));
+        assertEquals(src[50], memory.read(3L * PAGE));
+        assertEquals(src[src.length - 1], memory.read(address + src.length - 1));
+        assertEquals(0, memory.read(address - 1));
+
+        byte[] dst = new byte[src.length + 20];
+        memory.readBlock(address, dst, 10, src.length);
+        for (int i = 0; i < src.length; i++) {
+            assertEquals(src[i], dst[10 + i], "byte " + i);
+        }
+    }
+
+    @Test
+    void readsOfUnwrittenPagesAreZeroAndAllocateNothing() {
+        PagedMainMemory memory = new PagedMainMemory();
+        int pages = memory.getPageCount();
+        byte[] dst = {1, 2, 3, 4};
+
+        assertEquals(0, memory.read(40L * PAGE));
+        memory.readBlock(41L * PAGE - 2, dst, 0, dst.length);
+        assertArrayEquals(new byte[4], dst);
+        assertEquals(pages, memory.getPageCount());
+
+        memory.write(40L * PAGE + 9, (byte) 5);
+        assertEquals(pages + 1, memory.getPageCount());
+        assertEquals((long) (pages + 1) * PAGE, memory.getAllocatedBytes());
+    }
+
+    @Test
+    void restoreReplacesTheLastPageTouched() {
+        PagedMainMemory memory = new PagedMainMemory();
+        memory.write(5L * PAGE, (byte) 1);
+        assertEquals(1, memory.read(5L * PAGE));
+
+        byte[] page = new byte[PAGE];
+        page[0] = 2;
+        TreeMap<Long, byte[]> pages = new TreeMap<>();
+        pages.put(5L, page);
+        memory.restorePages(pages);
+        assertEquals(2, memory.read(5L * PAGE));
+
+        memory.restorePages(new TreeMap<>());
+        assertEquals(0, memory.read(5L * PAGE));
+        assertEquals(0, memory.getPageCount());
+    }
+}
@@ -0,0 +1,46 @@
+package model.replacement;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FIFOReplacementTest {
+    @Test
+    void evictsInFillOrderRegardlessOfWayOrAccesses() {
+        FIFOReplacement fifo = new FIFOReplacement(2, 4);
+        for (int way : new int[]{2, 0, 3, 1}) {
+            fifo.onInsert(0, way);
+        }
+        fifo.onAccess(0, 2);
+        assertEquals(2, fifo.choose(0));
+
+        fifo.onRemove(0, 2);
+        fifo.onInsert(0, 2);
+        assertEquals(0, fifo.choose(0));
+
+        // a line invalidated out of the middle leaves the order of the others alone
+        fifo.onRemove(0, 3);
+        fifo.onRemove(0, 0);
+        assertEquals(1, fifo.choose(0));
+        assertEquals(0, fifo.choose(1));
+    }
+
+    @Test
+    void checkpointRestoresTheFillOrder() throws IOException {
+        FIFOReplacement fifo = new FIFOReplacement(1, 4);
+        for (int way : new int[]{3, 1, 0}) {
+            fifo.onInsert(0, way);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        fifo.saveState(new DataOutputStream(bytes));
+
+        FIFOReplacement restored = new FIFOReplacement(1, 4);
+        restored.loadState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        for (int way : new int[]{3, 1, 0}) {
+            assertEquals(way, restored.choose(0));
+            restored.onRemove(0, way);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package model.replacement;
+
+import controller.BatchOperation;
+import controller.BatchResult;
+import controller.SimulatorController;
+import model.address.AddressParser;
+import model.cache.CacheStorage;
+import model.cache.CacheStorageType;
+import model.memory.PagedMainMemory;
+import model.statistics.StatisticsTracker;
+import model.trace.NextUseIndex;
+import model.trace.TraceBuffer;
+import model.trace.TraceReader;
+import model.write.WriteMissPolicy;
+import model.write.WritePolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptReplacementTest {
+    private static final int BLOCK_SIZE = 16;
+
+    @Test
+    void missesMatchBeladyByBruteForce() throws IOException {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 12; trial++) {
+            int associativity = 1 << random.nextInt(4);
+            int sets = 1 << random.nextInt(3);
+            int span = associativity * sets * (2 + random.nextInt(3));
+            long[] addresses = new long[3_000];
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < addresses.length; i++) {
+                addresses[i] = (long) random.nextInt(span) * BLOCK_SIZE + random.nextInt(BLOCK_SIZE);
+                text.append("r ").append(Long.toHexString(addresses[i])).append('\n');
+            }
+            TraceBuffer trace = TraceBuffer.decode(new TraceReader(new StringReader(text.toString())));
+            long expected = belady(addresses, sets, associativity);
+
+            for (CacheStorageType storage : new CacheStorageType[]{CacheStorageType.OBJECT, CacheStorageType.FLAT, CacheStorageType.TAG_ONLY}) {
+                CacheStorage cache = SimulatorController.createCache(BLOCK_SIZE * associativity * sets, BLOCK_SIZE, associativity, "OPT", storage);
+                SimulatorController controller = new SimulatorController(cache, new PagedMainMemory(), new AddressParser(BLOCK_SIZE, sets),
+                        WritePolicy.WRITE_BACK, new StatisticsTracker());
+                Map<String, Object> result = controller.replayTrace(trace.cursor(), NextUseIndex.build(trace.cursor(), BLOCK_SIZE),
+                        WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE);
+                assertEquals(expected, ((Number) result.get("misses")).longValue(), storage + " " + sets + "x" + associativity);
+            }
+        }
+    }
+
+    @Test
+    void refusesAccessesWithoutAFuture() {
+        CacheStorage cache = SimulatorController.createCache(256, BLOCK_SIZE, 4, "OPT", CacheStorageType.FLAT);
+        SimulatorController controller = new SimulatorController(cache, new PagedMainMemory(), new AddressParser(BLOCK_SIZE, 4),
+                WritePolicy.WRITE_BACK, new StatisticsTracker());
+        assertThrows(IllegalArgumentException.class, () -> controller.replayTrace(new TraceReader(new StringReader("r 0\n")),
+                WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE));
+        assertThrows(IllegalArgumentException.class, () -> controller.readStats(0));
+        assertThrows(IllegalArgumentException.class, () -> controller.writeStats(0, (byte) 1, WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE));
+        BatchOperation read = new BatchOperation();
+        read.setOp("r");
+        assertThrows(IllegalArgumentException.class, () -> controller.batch(List.of(read)));
+        assertThrows(IllegalArgumentException.class, () -> controller.batch(new TraceReader(new StringReader("r 0\n")), 1,
+                WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE));
+        assertEquals(0, controller.getStats().getReads() + controller.getStats().getWrites());
+    }
+
+    @Test
+    void batchOfAReopenableTraceSeesItsFuture() throws IOException {
+        Random random = new Random(25);
+        long[] addresses = new long[2_000];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = (long) random.nextInt(64) * BLOCK_SIZE;
+            text.append("r ").append(Long.toHexString(addresses[i])).append('\n');
+        }
+        TraceBuffer trace = TraceBuffer.decode(new TraceReader(new StringReader(text.toString())));
+        CacheStorage cache = SimulatorController.createCache(BLOCK_SIZE * 4 * 4, BLOCK_SIZE, 4, "OPT", CacheStorageType.FLAT);
+        SimulatorController controller = new SimulatorController(cache, new PagedMainMemory(), new AddressParser(BLOCK_SIZE, 4),
+                WritePolicy.WRITE_BACK, new StatisticsTracker());
+
+        BatchResult result = controller.batch(trace::cursor, addresses.length, WritePolicy.WRITE_BACK, WriteMissPolicy.WRITE_ALLOCATE);
+        assertEquals(addresses.length, result.getCount());
+        assertEquals(belady(addresses, 4, 4), controller.getStats().getMisses());
+        // the future ends with the batch
+        assertThrows(IllegalArgumentException.class, () -> controller.readStats(0));
+    }
+
+    private static long belady(long[] addresses, int sets, int associativity) {
+        List<List<Long>> cache = new ArrayList<>();
+        for (int i = 0; i < sets; i++) {
+            cache.add(new ArrayList<>());
+        }
+        long misses = 0;
+        for (int i = 0; i < addresses.length; i++) {
+            long block = addresses[i] / BLOCK_SIZE;
+            List<Long> set = cache.get((int) (block % sets));
+            if (set.contains(block)) continue;
+            misses++;
+            if (set.size() == associativity) {
+                long victim = -1;
+                int farthest = -1;
+                for (long resident : set) {
+                    int next = i + 1;
+                    while (next < addresses.length && addresses[next] / BLOCK_SIZE != resident) next++;
+                    if (next > farthest) {
+                        farthest = next;
+                        victim = resident;
+                    }
+                }
+                set.remove(victim);
+            }
+            set.add(block);
+        }
+        return misses;
+    }
+}
@@ -0,0 +1,46 @@
+package model.replacement;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomReplacementTest {
+    @Test
+    void setsDrawIndependentRepeatableVictims() {
+        RandomReplacement random = new RandomReplacement(4, 8);
+        int[] expected = new int[64];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = random.choose(1);
+            assertTrue(expected[i] >= 0 && expected[i] < 8);
+        }
+
+        // draws from other sets in between do not change set 1's sequence
+        RandomReplacement interleaved = new RandomReplacement(4, 8);
+        for (int i = 0; i < expected.length; i++) {
+            interleaved.choose(0);
+            assertEquals(expected[i], interleaved.choose(1));
+            interleaved.choose(3);
+        }
+
+        random.clear();
+        assertEquals(expected[0], random.choose(1));
+    }
+
+    @Test
+    void checkpointContinuesTheSequence() throws IOException {
+        RandomReplacement random = new RandomReplacement(2, 16);
+        for (int i = 0; i < 10; i++) {
+            random.choose(i % 2);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        random.saveState(new DataOutputStream(bytes));
+
+        RandomReplacement restored = new RandomReplacement(2, 16);
+        restored.loadState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        for (int i = 0; i < 32; i++) {
+            assertEquals(random.choose(i % 2), restored.choose(i % 2));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package model.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyModelTest {
+    @Test
+    void acceptsLatenciesUpToTheLimit() {
+        LatencyModel latency = new LatencyModel();
+        latency.setHitLatency(0);
+        latency.setMissPenalty(LatencyModel.MAX_LATENCY);
+        latency.setWriteBackCost(LatencyModel.MAX_LATENCY);
+        latency.setWriteThroughCost(LatencyModel.MAX_LATENCY);
+        assertSame(latency, latency.validate());
+    }
+
+    @Test
+    void rejectsNegativeAndOversizedLatencies() {
+        for (int cycles : new int[]{-1, LatencyModel.MAX_LATENCY + 1, Integer.MAX_VALUE}) {
+            LatencyModel hit = new LatencyModel();
+            hit.setHitLatency(cycles);
+            assertThrows(IllegalArgumentException.class, hit::validate);
+            LatencyModel miss = new LatencyModel();
+            miss.setMissPenalty(cycles);
+            assertThrows(IllegalArgumentException.class, miss::validate);
+            LatencyModel writeBack = new LatencyModel();
+            writeBack.setWriteBackCost(cycles);
+            assertThrows(IllegalArgumentException.class, writeBack::validate);
+            LatencyModel writeThrough = new LatencyModel();
+            writeThrough.setWriteThroughCost(cycles);
+            assertThrows(IllegalArgumentException.class, writeThrough::validate);
+        }
+    }
+}
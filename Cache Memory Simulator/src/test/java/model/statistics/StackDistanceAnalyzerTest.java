@@ -0,0 +1,61 @@
+package model.statistics;
+
+import model.cache.FlatCache;
+import model.memory.NullMainMemory;
+import model.replacement.LRUReplacement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StackDistanceAnalyzerTest {
+    private static final int BLOCK = 64;
+
+    @Test
+    void distancesCountOtherBlocksTouchedInBetween() {
+        StackDistanceAnalyzer analyzer = new StackDistanceAnalyzer(BLOCK);
+        for (long block : new long[]{1, 2, 3, 1, 1, 3, 2}) {
+            analyzer.access(block * BLOCK + 5);
+        }
+        // 1 after {2, 3}, 1 again, 3 after {1}, 2 after {1, 3}
+        assertArrayEquals(new long[]{1, 1, 2}, analyzer.getHistogram());
+        assertEquals(3, analyzer.getColdMisses());
+        assertEquals(3, analyzer.getDistinctBlocks());
+        assertEquals(7, analyzer.getAccesses());
+        assertEquals(1, analyzer.hits(1));
+        assertEquals(4, analyzer.hits(3));
+    }
+
+    @Test
+    void hitsMatchFullyAssociativeLruCaches() {
+        int[] sizes = {1, 4, 16, 100, 512};
+        FlatCache[] caches = new FlatCache[sizes.length];
+        long[] hits = new long[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            caches[i] = new FlatCache(sizes[i] * BLOCK, BLOCK, sizes[i], LRUReplacement::new, true);
+        }
+        NullMainMemory memory = new NullMainMemory();
+        StackDistanceAnalyzer analyzer = new StackDistanceAnalyzer(BLOCK);
+
+        // more accesses than the analyzer's initial time window, so it compacts along the way
+        Random random = new Random(11);
+        for (int n = 0; n < 200_000; n++) {
+            long block = random.nextInt(4) == 0 ? random.nextInt(3000) : random.nextInt(64);
+            analyzer.access(block * BLOCK + random.nextInt(BLOCK));
+            for (int i = 0; i < sizes.length; i++) {
+                int way = caches[i].findWay(0, block);
+                if (way >= 0) {
+                    caches[i].touch(0, way);
+                    hits[i]++;
+                } else {
+                    caches[i].fillWay(0, caches[i].chooseVictim(0), block, memory);
+                }
+            }
+        }
+        for (int i = 0; i < sizes.length; i++) {
+            assertEquals(hits[i], analyzer.hits(sizes[i]), sizes[i] + " lines");
+        }
+        assertEquals(200_000, analyzer.getAccesses());
+    }
+}
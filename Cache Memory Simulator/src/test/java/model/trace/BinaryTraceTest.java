@@ -0,0 +1,76 @@
+package model.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTraceTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void convertedTraceReadsBackRecordForRecord() throws IOException {
+        String text = "r 10\nw 0x7fffffffffffffff -1\nr 0\nw 40 200\n";
+        Path path = dir.resolve("t" + BinaryTrace.EXTENSION);
+        assertEquals(4, BinaryTrace.convert(new TraceReader(new StringReader(text)), path));
+
+        TraceReader expected = new TraceReader(new StringReader(text));
+        try (BinaryTraceReader actual = new BinaryTraceReader(path)) {
+            assertEquals(4, actual.getRecordCount());
+            while (expected.next()) {
+                assertTrue(actual.next());
+                assertEquals(expected.isWrite(), actual.isWrite());
+                assertEquals(expected.getAddress(), actual.getAddress());
+                assertEquals(expected.getValue(), actual.getValue());
+            }
+            assertFalse(actual.next());
+        }
+    }
+
+    @Test
+    void failedConversionLeavesTheStoredTraceAlone() throws IOException {
+        Path path = dir.resolve("t" + BinaryTrace.EXTENSION);
+        BinaryTrace.convert(new TraceReader(new StringReader("r 10\n")), path);
+        byte[] before = Files.readAllBytes(path);
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryTrace.convert(new TraceReader(new StringReader("r 20\nq 30\n")), path));
+        assertArrayEquals(before, Files.readAllBytes(path));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void rejectsUnknownOpsAndNegativeAddresses() throws IOException {
+        Path path = dir.resolve("t" + BinaryTrace.EXTENSION);
+        BinaryTrace.convert(new TraceReader(new StringReader("r 10\nw 20 1\n")), path);
+
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(BinaryTrace.HEADER_SIZE + BinaryTrace.RECORD_SIZE);
+            file.writeByte(7);
+        }
+        assertCorrupt(path, "Corrupt trace record 1");
+
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(BinaryTrace.HEADER_SIZE + BinaryTrace.RECORD_SIZE);
+            file.writeByte(BinaryTrace.OP_WRITE);
+            file.writeLong(-8);
+        }
+        assertCorrupt(path, "Corrupt trace record 1");
+    }
+
+    private static void assertCorrupt(Path path, String message) throws IOException {
+        try (BinaryTraceReader trace = new BinaryTraceReader(path)) {
+            assertTrue(trace.next());
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, trace::next);
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package model.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceReaderTest {
+    @Test
+    void parsesOperationsAddressesAndValues() throws IOException {
+        TraceReader trace = new TraceReader(new StringReader("# comment\n\nr 1f\nW 0x20 -5\n2: 1 40 0xff\n0 50\n"));
+
+        assertTrue(trace.next());
+        assertFalse(trace.isWrite());
+        assertEquals(0x1f, trace.getAddress());
+        assertEquals(0, trace.getValue());
+
+        assertTrue(trace.next());
+        assertTrue(trace.isWrite());
+        assertEquals(0x20, trace.getAddress());
+        assertEquals(-5, trace.getValue());
+
+        assertTrue(trace.next());
+        assertTrue(trace.isWrite());
+        assertEquals(2, trace.getCore());
+        assertEquals(0x40, trace.getAddress());
+        assertEquals((byte) 0xff, trace.getValue());
+
+        assertTrue(trace.next());
+        assertFalse(trace.isWrite());
+        assertEquals(0, trace.getCore());
+        assertEquals(6, trace.getLineNumber());
+
+        assertFalse(trace.next());
+    }
+
+    @Test
+    void acceptsSignedAndUnsignedByteValues() throws IOException {
+        TraceReader trace = new TraceReader(new StringReader("w 0 255\nw 0 -128\n"));
+        assertTrue(trace.next());
+        assertEquals((byte) 255, trace.getValue());
+        assertTrue(trace.next());
+        assertEquals(Byte.MIN_VALUE, trace.getValue());
+    }
+
+    @Test
+    void rejectsValuesOutsideAByte() {
+        assertError("w 0 256\n", "Trace line 1: value out of range");
+        assertError("w 0 -129\n", "Trace line 1: value out of range");
+        assertError("w 0 0x100\n", "Trace line 1: value out of range");
+    }
+
+    @Test
+    void rejectsMalformedLines() {
+        assertError("r 10\nx 10\n", "Trace line 2: unknown operation 'x'");
+        assertError("r\n", "Trace line 1: missing address");
+        assertError("r 1g\n", "Trace line 1: invalid number '1g'");
+        assertError("r 10000000000000000\n", "Trace line 1: invalid number '10000000000000000'");
+        assertError("r ffffffffffffffff\n", "Trace line 1: address out of range");
+    }
+
+    @Test
+    void countsRecordsParsedBeforeAnError() throws IOException {
+        TraceReader trace = new TraceReader(new StringReader("r 0\n# skipped\nw 8 1\nr zz\n"));
+        assertTrue(trace.next());
+        assertTrue(trace.next());
+        assertThrows(IllegalArgumentException.class, trace::next);
+        assertEquals(2, trace.getRecords());
+        assertEquals(4, trace.getLineNumber());
+    }
+
+    private static void assertError(String text, String message) {
+        TraceReader trace = new TraceReader(new StringReader(text));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> {
+            while (trace.next()) {}
+        });
+        assertEquals(message, e.getMessage());
+    }
+}
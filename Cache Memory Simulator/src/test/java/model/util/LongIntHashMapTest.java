@@ -0,0 +1,53 @@
+package model.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+    @Test
+    void removeKeepsCollidingKeysReachable() {
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+        for (int i = 0; i < 64; i++) {
+            map.put(i * 1024L, i);
+        }
+        for (int i = 0; i < 64; i += 2) {
+            assertEquals(i, map.remove(i * 1024L));
+        }
+        assertEquals(32, map.size());
+        for (int i = 0; i < 64; i++) {
+            assertEquals(i % 2 == 0 ? -1 : i, map.get(i * 1024L));
+        }
+        assertEquals(-1, map.remove(0));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomPutsAndRemoves() {
+        LongIntHashMap map = new LongIntHashMap(16, -1);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            if (random.nextBoolean()) {
+                assertEquals(expected.getOrDefault(key, -1), map.put(key, i));
+                expected.put(key, i);
+            } else {
+                assertEquals(expected.getOrDefault(key, -1), map.remove(key));
+                expected.remove(key);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = -1_000; key < 1_000; key++) {
+            assertEquals(expected.getOrDefault(key, -1), map.get(key));
+        }
+    }
+
+    @Test
+    void rejectsTheReservedKey() {
+        assertThrows(IllegalArgumentException.class, () -> new LongIntHashMap(4, -1).put(Long.MIN_VALUE, 1));
+    }
+}
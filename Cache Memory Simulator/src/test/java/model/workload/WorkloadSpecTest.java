@@ -0,0 +1,99 @@
+package model.workload;
+
+import model.trace.TraceSource;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadSpecTest {
+    @Test
+    void everyPatternStaysInsideItsFootprintAndRepeatsForASeed() throws IOException {
+        for (WorkloadPattern pattern : WorkloadPattern.values()) {
+            WorkloadSpec spec = spec(pattern, 10_000);
+            spec.setBaseAddress(1 << 20);
+            spec.setWriteRatio(0.25);
+            TraceSource first = spec.open();
+            TraceSource second = spec.open();
+            int count = 0;
+            int writes = 0;
+            while (first.next()) {
+                assertTrue(second.next());
+                assertEquals(first.getAddress(), second.getAddress(), pattern + " access " + count);
+                assertEquals(first.isWrite(), second.isWrite());
+                assertTrue(first.getAddress() >= spec.getBaseAddress(), pattern.toString());
+                if (pattern != WorkloadPattern.MATMUL && pattern != WorkloadPattern.MATMUL_BLOCKED) {
+                    assertTrue(first.getAddress() < spec.getBaseAddress() + spec.getFootprintBytes(), pattern.toString());
+                }
+                if (first.isWrite()) writes++;
+                count++;
+            }
+            assertFalse(second.next());
+            assertEquals(10_000, count, pattern.toString());
+            if (pattern != WorkloadPattern.MATMUL && pattern != WorkloadPattern.MATMUL_BLOCKED) {
+                assertTrue(writes > 2000 && writes < 3000, pattern + " writes " + writes);
+            }
+        }
+    }
+
+    @Test
+    void pointerChaseVisitsEveryNodeOncePerLap() throws IOException {
+        WorkloadSpec spec = spec(WorkloadPattern.POINTER_CHASE, 3 * 1000);
+        spec.setFootprintBytes(1000 * 8);
+        TraceSource trace = spec.open();
+        for (int lap = 0; lap < 3; lap++) {
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(trace.next());
+                assertTrue(seen.add(trace.getAddress()), "lap " + lap + " repeats a node");
+            }
+        }
+    }
+
+    @Test
+    void zipfianRanksReachEveryElement() throws IOException {
+        WorkloadSpec spec = spec(WorkloadPattern.ZIPFIAN, 100_000);
+        spec.setFootprintBytes(100 * 8);
+        spec.setZipfExponent(0.5);
+        TraceSource trace = spec.open();
+        Set<Long> seen = new HashSet<>();
+        while (trace.next()) {
+            seen.add(trace.getAddress());
+        }
+        assertEquals(100, seen.size());
+    }
+
+    @Test
+    void validateRejectsWhatOpenWouldReject() {
+        WorkloadSpec noPattern = spec(null, 10);
+        WorkloadSpec noCount = spec(WorkloadPattern.UNIFORM, 0);
+        WorkloadSpec tooSmall = spec(WorkloadPattern.UNIFORM, 10);
+        tooSmall.setFootprintBytes(4);
+        WorkloadSpec badRatio = spec(WorkloadPattern.SEQUENTIAL, 10);
+        badRatio.setWriteRatio(1.5);
+        WorkloadSpec badStride = spec(WorkloadPattern.STRIDED, 10);
+        badStride.setStride(0);
+        WorkloadSpec badExponent = spec(WorkloadPattern.ZIPFIAN, 10);
+        badExponent.setZipfExponent(0);
+        WorkloadSpec badTile = spec(WorkloadPattern.MATMUL_BLOCKED, 10);
+        badTile.setTileSize(0);
+        for (WorkloadSpec bad : new WorkloadSpec[]{noPattern, noCount, tooSmall, badRatio, badStride, badExponent, badTile}) {
+            assertThrows(IllegalArgumentException.class, bad::validate);
+            assertThrows(IllegalArgumentException.class, bad::open);
+        }
+        spec(WorkloadPattern.MATMUL, 10).validate();
+    }
+
+    private static WorkloadSpec spec(WorkloadPattern pattern, long count) {
+        WorkloadSpec spec = new WorkloadSpec();
+        spec.setPattern(pattern);
+        spec.setCount(count);
+        spec.setFootprintBytes(1 << 16);
+        spec.setMatrixSize(16);
+        spec.setTileSize(4);
+        return spec;
+    }
+}